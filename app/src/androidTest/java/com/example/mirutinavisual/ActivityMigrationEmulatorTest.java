@@ -0,0 +1,229 @@
+package com.example.mirutinavisual;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Migración de actividades al subárbol de cada usuario contra el emulador de Realtime Database.
+ * Con el emulador del equipo en marcha:
+ * firebase emulators:exec --only database --project demo-mirutinavisual "./gradlew connectedDebugAndroidTest"
+ * Desde el emulador de Android el equipo es 10.0.2.2; en un dispositivo físico se pasa otra
+ * dirección con el argumento de instrumentación firebaseEmulatorHost.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ActivityMigrationEmulatorTest {
+
+    private static final int EMULATOR_PORT = 9000;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static FirebaseDatabase database;
+
+    private DatabaseReference root;
+    private ActivityStore store;
+    private ActivityMigration migration;
+    private String userId;
+    private String otherUserId;
+    private final List<String> legacyIds = new ArrayList<>();
+
+    @BeforeClass
+    public static void connectToEmulator() {
+        String host = InstrumentationRegistry.getArguments().getString("firebaseEmulatorHost", "10.0.2.2");
+        database = FirebaseDatabase.getInstance();
+        database.useEmulator(host, EMULATOR_PORT);
+    }
+
+    @Before
+    public void setUp() {
+        root = database.getReference();
+        store = new ActivityStore(database, ActivityPaths.Layout.DUAL);
+        migration = new ActivityMigration(store);
+        userId = "test_" + UUID.randomUUID();
+        otherUserId = "test_" + UUID.randomUUID();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Map<String, Object> cleanup = new HashMap<>();
+        cleanup.put(ActivityPaths.USERS_ROOT + "/" + userId, null);
+        cleanup.put(ActivityPaths.USERS_ROOT + "/" + otherUserId, null);
+        for (String activityId : legacyIds) {
+            cleanup.put(ActivityPaths.legacy(activityId), null);
+        }
+        await(root.updateChildren(cleanup));
+    }
+
+    @Test
+    public void firstLogin_copiesOnlyThatUsersActivitiesAndKeepsLegacy() throws Exception {
+        String breakfast = seedLegacy(userId, "Desayunar", "08:00");
+        String teeth = seedLegacy(userId, "Lavarse los dientes", "08:30");
+        String other = seedLegacy(otherUserId, "Ir al colegio", "09:00");
+
+        assertTrue(migrate(userId));
+
+        DataSnapshot perUser = read(ActivityPaths.perUserRoot(userId));
+        assertEquals(2, perUser.getChildrenCount());
+        assertEquals("Desayunar", perUser.child(breakfast).child("name").getValue(String.class));
+        assertTrue(perUser.hasChild(teeth));
+        assertFalse(perUser.hasChild(other));
+
+        DataSnapshot marker = read(ActivityPaths.migrationMarker(userId));
+        assertEquals(Integer.valueOf(ActivityPaths.MIGRATION_VERSION), marker.child("version").getValue(Integer.class));
+        assertEquals(Integer.valueOf(2), marker.child("count").getValue(Integer.class));
+        assertTrue(marker.hasChild("migratedAt"));
+
+        // El nodo global sigue completo para las versiones que aún lo leen
+        assertTrue(read(ActivityPaths.legacy(breakfast)).exists());
+        assertFalse(read(ActivityPaths.perUserRoot(otherUserId)).exists());
+        assertTrue(store.isMigrated(userId));
+    }
+
+    @Test
+    public void nextLogin_repairsCopiesLostOrWrittenOnlyToLegacy() throws Exception {
+        String breakfast = seedLegacy(userId, "Desayunar", "08:00");
+        assertTrue(migrate(userId));
+        await(root.child(ActivityPaths.perUser(userId, breakfast)).removeValue());
+        // Una versión antigua de la app solo escribe en el nodo global
+        String fromOldClient = seedLegacy(userId, "Merendar", "17:00");
+        long markedAt = read(ActivityPaths.migrationMarker(userId)).child("migratedAt").getValue(Long.class);
+
+        // Otra ejecución de la app: no sabe nada del usuario salvo lo que hay en la base de datos
+        ActivityStore nextStore = new ActivityStore(database, ActivityPaths.Layout.DUAL);
+        ActivityMigration nextMigration = new ActivityMigration(nextStore);
+        assertTrue(migrate(nextMigration, userId));
+        assertTrue(nextStore.isMigrated(userId));
+
+        DataSnapshot perUser = read(ActivityPaths.perUserRoot(userId));
+        assertEquals(2, perUser.getChildrenCount());
+        assertEquals("Desayunar", perUser.child(breakfast).child("name").getValue(String.class));
+        assertEquals("Merendar", perUser.child(fromOldClient).child("name").getValue(String.class));
+        // La marca no se vuelve a escribir
+        assertEquals(Long.valueOf(markedAt),
+                read(ActivityPaths.migrationMarker(userId)).child("migratedAt").getValue(Long.class));
+    }
+
+    @Test
+    public void writesBeforeMigration_areReconciledByCopy() throws Exception {
+        String breakfast = seedLegacy(userId, "Desayunar", "08:00");
+        // Escritura doble antes de migrar: en el subárbol solo queda el campo cambiado
+        await(store.setActivityField(userId, breakfast, "completed", true));
+        await(root.child(ActivityPaths.perUser(userId, "borrada")).setValue(activityValue(userId, "Vieja", "07:00")));
+
+        assertTrue(migrate(userId));
+
+        DataSnapshot perUser = read(ActivityPaths.perUserRoot(userId));
+        assertEquals(1, perUser.getChildrenCount());
+        assertEquals("Desayunar", perUser.child(breakfast).child("name").getValue(String.class));
+        assertEquals(Boolean.TRUE, perUser.child(breakfast).child("completed").getValue(Boolean.class));
+    }
+
+    @Test
+    public void dualWrites_changeBothCopiesAndReadsPreferLegacy() throws Exception {
+        String breakfast = seedLegacy(userId, "Desayunar", "08:00");
+        assertTrue(migrate(userId));
+
+        await(store.setActivityField(userId, breakfast, "completed", true));
+        assertEquals(Boolean.TRUE, read(ActivityPaths.legacy(breakfast) + "/completed").getValue(Boolean.class));
+        assertEquals(Boolean.TRUE, read(ActivityPaths.perUser(userId, breakfast) + "/completed").getValue(Boolean.class));
+
+        // Una versión antigua de la app solo escribe en el nodo global
+        String fromOldClient = seedLegacy(userId, "Merendar", "17:00");
+        DataSnapshot fallback = await(store.readActivity(userId, fromOldClient));
+        assertEquals("Merendar", fallback.child("name").getValue(String.class));
+        // Y solo cambia allí: se lee su cambio, no la copia del subárbol
+        await(root.child(ActivityPaths.legacy(breakfast)).child("name").setValue("Desayunar tarde"));
+        DataSnapshot edited = await(store.readActivity(userId, breakfast));
+        assertEquals("Desayunar tarde", edited.child("name").getValue(String.class));
+
+        await(store.removeActivity(userId, breakfast));
+        assertFalse(read(ActivityPaths.legacy(breakfast)).exists());
+        assertFalse(read(ActivityPaths.perUser(userId, breakfast)).exists());
+    }
+
+    @Test
+    public void activitiesQueries_addUserSubtreeOnceMigrated() throws Exception {
+        seedLegacy(userId, "Desayunar", "08:00");
+        seedLegacy(userId, "Lavarse los dientes", "08:30");
+        seedLegacy(otherUserId, "Ir al colegio", "09:00");
+
+        List<Query> before = store.activitiesQueries(userId, false);
+        assertEquals(1, before.size());
+        DataSnapshot legacy = await(before.get(0).get());
+        assertEquals(ActivityPaths.LEGACY_ROOT, legacy.getKey());
+        assertEquals(2, legacy.getChildrenCount());
+
+        boolean migrated = migrate(userId);
+        // En la fase DUAL manda el nodo global y el subárbol cubre lo que no esté allí
+        List<Query> after = store.activitiesQueries(userId, migrated);
+        assertEquals(2, after.size());
+        assertEquals(ActivityPaths.LEGACY_ROOT, await(after.get(0).get()).getKey());
+        DataSnapshot perUser = await(after.get(1).get());
+        assertEquals(userId, perUser.getRef().getParent().getKey());
+        assertEquals(2, perUser.getChildrenCount());
+
+        ActivityStore perUserStore = new ActivityStore(database, ActivityPaths.Layout.PER_USER);
+        assertEquals(1, perUserStore.activitiesQueries(userId, false).size());
+    }
+
+    private String seedLegacy(String owner, String name, String time) throws Exception {
+        String activityId = store.newActivityId();
+        await(root.child(ActivityPaths.legacy(activityId)).setValue(activityValue(owner, name, time)));
+        legacyIds.add(activityId);
+        return activityId;
+    }
+
+    private static Map<String, Object> activityValue(String owner, String name, String time) {
+        Map<String, Object> activity = new HashMap<>();
+        activity.put("name", name);
+        activity.put("time", time);
+        activity.put("userId", owner);
+        activity.put("completed", false);
+        return activity;
+    }
+
+    private boolean migrate(String user) throws InterruptedException {
+        return migrate(migration, user);
+    }
+
+    private static boolean migrate(ActivityMigration migration, String user) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicBoolean result = new AtomicBoolean();
+        migration.ensureMigrated(user, migrated -> {
+            result.set(migrated);
+            latch.countDown();
+        });
+        assertTrue("La migración no terminó a tiempo", latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        return result.get();
+    }
+
+    private DataSnapshot read(String path) throws Exception {
+        return await(root.child(path).get());
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.mirutinavisual;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Un solo ArasaacApiService por proceso, con sus búsquedas en el pool acotado de
+ * {@link ArasaacExecutors}. Antes cada pantalla creaba su propio servicio y su propio pool.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArasaacApiServiceInstrumentedTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Test
+    public void getInstance_sharesOneServiceAndPoolPerProcess() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ArasaacApiService first = ArasaacApiService.getInstance(context);
+        ArasaacApiService second = ArasaacApiService.getInstance(context.getApplicationContext());
+
+        assertSame(first, second);
+        assertSame(first.getSearchExecutor(), second.getSearchExecutor());
+
+        ExecutorService executor = first.getSearchExecutor();
+        assertTrue(executor instanceof ThreadPoolExecutor);
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        assertTrue(pool.getMaximumPoolSize() <= ArasaacExecutors.MAX_THREADS);
+        assertEquals(ArasaacExecutors.QUEUE_CAPACITY, pool.getQueue().size() + pool.getQueue().remainingCapacity());
+    }
+
+    @Test
+    public void fullQueue_rejectsNewSearchesWithAnError() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ArasaacApiService service = ArasaacApiService.getInstance(context);
+        ExecutorService executor = service.getSearchExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            // Se ocupan todos los hilos y los 32 huecos de la cola
+            int accepted = 0;
+            boolean rejected = false;
+            while (!rejected && accepted <= ArasaacExecutors.MAX_THREADS + ArasaacExecutors.QUEUE_CAPACITY) {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                    accepted++;
+                } catch (RejectedExecutionException e) {
+                    rejected = true;
+                }
+            }
+            assertTrue("La cola debería estar acotada", rejected);
+            assertEquals(0, ((ThreadPoolExecutor) executor).getQueue().remainingCapacity());
+
+            // Una búsqueda más no se queda esperando: avisa del error en el hilo principal
+            CountDownLatch answered = new CountDownLatch(1);
+            AtomicReference<String> error = new AtomicReference<>();
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() ->
+                    service.searchPictograms("prueba" + System.nanoTime(), new ArasaacApiService.PictogramSearchCallback() {
+                        @Override
+                        public void onSuccess(List<Pictogram> pictograms) {
+                            answered.countDown();
+                        }
+
+                        @Override
+                        public void onError(String message) {
+                            error.set(message);
+                            answered.countDown();
+                        }
+                    }));
+            assertTrue("La búsqueda no respondió", answered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertNotNull(error.get());
+            assertTrue(error.get().contains("Demasiadas búsquedas"));
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -9,11 +9,10 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
-
 import java.util.List;
 
-public class AchievementAdapter extends RecyclerView.Adapter<AchievementAdapter.AchievementViewHolder> {
+public class AchievementAdapter extends RecyclerView.Adapter<AchievementAdapter.AchievementViewHolder>
+        implements PictogramListPreloader.PictogramIds {
 
     public interface OnAchievementClickListener {
         void onAchievementClick(Achievement achievement);
@@ -49,16 +48,8 @@ public class AchievementAdapter extends RecyclerView.Adapter<AchievementAdapter.
         holder.descriptionText.setText(achievement.getDescription());
         
         // Configurar imagen del pictograma
-        if (achievement.getPictogramId() != null && !achievement.getPictogramId().isEmpty()) {
-            String imageUrl = "https://api.arasaac.org/api/pictograms/" + achievement.getPictogramId() + "?download=false";
-            Glide.with(holder.itemView.getContext())
-                .load(imageUrl)
-                .placeholder(R.drawable.ic_placeholder)
-                .error(R.drawable.ic_error)
-                .into(holder.achievementImageView);
-        } else {
-            holder.achievementImageView.setImageResource(R.drawable.ic_placeholder);
-        }
+        PictogramImageLoader.load(holder.achievementImageView, pictogramIdOf(achievement),
+                R.drawable.ic_placeholder, R.drawable.ic_error);
         
         // Configurar estado (desbloqueado/bloqueado)
         if (achievement.isUnlocked()) {
@@ -81,6 +72,24 @@ public class AchievementAdapter extends RecyclerView.Adapter<AchievementAdapter.
         });
     }
 
+    // Los logros guardan el id como texto
+    private static int pictogramIdOf(Achievement achievement) {
+        if (achievement.getPictogramId() == null || achievement.getPictogramId().isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(achievement.getPictogramId().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("ACHIEVEMENT: Id de pictograma no válido: " + achievement.getPictogramId());
+            return 0;
+        }
+    }
+
+    @Override
+    public int getPictogramIdAt(int position) {
+        return pictogramIdOf(achievementsList.get(position));
+    }
+
     @Override
     public int getItemCount() {
         return achievementsList != null ? achievementsList.size() : 0;
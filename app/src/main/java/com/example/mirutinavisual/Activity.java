@@ -35,6 +35,26 @@ public class Activity {
         this.currentStepIndex = 0;
     }
 
+    // Copia independiente, pasos incluidos, para poder modificarla sin tocar el original
+    public Activity(Activity other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.time = other.time;
+        this.pictogramId = other.pictogramId;
+        this.pictogramKeyword = other.pictogramKeyword;
+        this.completed = other.completed;
+        this.createdAt = other.createdAt;
+        this.userId = other.userId;
+        this.isSequence = other.isSequence;
+        if (other.steps != null) {
+            this.steps = new ArrayList<>(other.steps.size());
+            for (SequenceStep step : other.steps) {
+                this.steps.add(step != null ? new SequenceStep(step) : null);
+            }
+        }
+        this.currentStepIndex = other.currentStepIndex;
+    }
+
     // Getters y Setters
     public String getId() {
         return id;
@@ -101,7 +121,7 @@ public class Activity {
     }
 
     public String getPictogramUrl() {
-        return "https://api.arasaac.org/api/pictograms/" + pictogramId + "?download=false";
+        return PictogramRef.of(pictogramId).getUrl();
     }
     
     // Métodos para secuencias
@@ -12,11 +12,10 @@ import androidx.annotation.NonNull;
 import androidx.cardview.widget.CardView;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
-
 import java.util.List;
 
-public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.ActivityViewHolder> {
+public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.ActivityViewHolder>
+        implements PictogramListPreloader.PictogramIds {
 
     private List<Activity> activities;
     private OnActivityClickListener listener;
@@ -49,11 +48,8 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
         holder.activityTimeText.setText(activity.getTime());
         
         // Cargar pictograma
-        Glide.with(holder.itemView.getContext())
-                .load(activity.getPictogramUrl())
-                .placeholder(R.drawable.ic_image_placeholder)
-                .error(R.drawable.ic_image_error)
-                .into(holder.pictogramImageView);
+        PictogramImageLoader.load(holder.pictogramImageView, activity.getPictogramId(),
+                R.drawable.ic_image_placeholder, R.drawable.ic_image_error);
         
         // Configurar estado completado
         if (activity.isCompleted()) {
@@ -96,6 +92,11 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
         });
     }
 
+    @Override
+    public int getPictogramIdAt(int position) {
+        return activities.get(position).getPictogramId();
+    }
+
     @Override
     public int getItemCount() {
         return activities.size();
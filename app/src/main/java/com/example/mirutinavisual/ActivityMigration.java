@@ -0,0 +1,175 @@
+package com.example.mirutinavisual;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ServerValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pasa las actividades de un usuario del nodo global a "users/{uid}/activities" la primera vez
+ * que entra, sin parar la app ni migrar a todos los usuarios a la vez.
+ * Mientras dura la fase DUAL todas las escrituras van a los dos sitios y el nodo global es la
+ * copia completa. La migración copia las actividades del usuario y vuelve a leer las dos copias:
+ * solo cuando coinciden deja la marca de migrado, y a partir de ahí se lee del subárbol propio.
+ * Si alguna escritura se cuela entre la copia y la comprobación se repite la copia; si no se
+ * consigue, el usuario sigue leyendo del nodo global y se intenta en su próxima entrada.
+ * Con la marca ya puesta, en la fase DUAL se hace la misma comprobación en cada entrada: así se
+ * repara el subárbol si una versión antigua ha escrito solo en el nodo global o si se ha perdido
+ * alguna copia.
+ */
+public class ActivityMigration {
+
+    public interface Callback {
+        // migrated indica si ya se puede leer del subárbol del usuario
+        void onReady(boolean migrated);
+    }
+
+    private static final int MAX_COPY_PASSES = 3;
+
+    private static ActivityMigration instance;
+
+    private final ActivityStore store;
+    private final DatabaseReference root;
+    // Usuarios con una migración en marcha y quién espera a que termine
+    private final Map<String, List<Callback>> pending = new HashMap<>();
+
+    public static synchronized ActivityMigration getInstance() {
+        if (instance == null) {
+            instance = new ActivityMigration(ActivityStore.getInstance());
+        }
+        return instance;
+    }
+
+    ActivityMigration(ActivityStore store) {
+        this.store = store;
+        this.root = store.getRoot();
+    }
+
+    /**
+     * Migra al usuario si hace falta y avisa cuando ya se sabe de dónde leer. Varias llamadas a
+     * la vez para el mismo usuario comparten la misma migración. El callback llega en el hilo
+     * principal, salvo si ya se sabía el resultado, que llega en el momento.
+     */
+    public void ensureMigrated(String userId, Callback callback) {
+        if (store.getLayout() == ActivityPaths.Layout.LEGACY) {
+            callback.onReady(false);
+            return;
+        }
+        if (store.isMigrated(userId)) {
+            callback.onReady(true);
+            return;
+        }
+        synchronized (pending) {
+            List<Callback> waiting = pending.get(userId);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            pending.put(userId, waiting);
+        }
+
+        root.child(ActivityPaths.migrationMarker(userId)).child("version").get()
+                .addOnSuccessListener(snapshot -> {
+                    Integer version = snapshot.getValue(Integer.class);
+                    boolean marked = version != null && version >= ActivityPaths.MIGRATION_VERSION;
+                    if (marked && store.getLayout() != ActivityPaths.Layout.DUAL) {
+                        finish(userId, true);
+                    } else {
+                        if (!marked) {
+                            System.out.println("ACTIVITY_MIGRATION: Migrando actividades de " + userId);
+                        }
+                        copyPass(userId, 1, marked);
+                    }
+                })
+                .addOnFailureListener(e -> fail(userId, e));
+    }
+
+    // Lee las dos copias; si coinciden deja la marca (si no la tenía ya) y si no copia y vuelve
+    // a comprobar. Un usuario ya marcado sigue migrado aunque la comprobación no termine
+    private void copyPass(String userId, int pass, boolean marked) {
+        Task<DataSnapshot> legacyRead = root.child(ActivityPaths.LEGACY_ROOT)
+                .orderByChild("userId")
+                .equalTo(userId)
+                .get();
+        Task<DataSnapshot> perUserRead = root.child(ActivityPaths.perUserRoot(userId)).get();
+
+        Tasks.whenAllSuccess(legacyRead, perUserRead)
+                .addOnSuccessListener(results -> {
+                    Map<String, Object> legacy = valuesOf((DataSnapshot) results.get(0));
+                    Map<String, Object> perUser = valuesOf((DataSnapshot) results.get(1));
+
+                    if (legacy.equals(perUser)) {
+                        if (marked) {
+                            finish(userId, true);
+                        } else {
+                            writeMarker(userId, legacy.size());
+                        }
+                    } else if (pass > MAX_COPY_PASSES) {
+                        System.out.println("ACTIVITY_MIGRATION: Las copias de " + userId
+                                + " siguen cambiando; se reintentará más adelante");
+                        finish(userId, marked);
+                    } else {
+                        if (marked && pass == 1) {
+                            System.out.println("ACTIVITY_MIGRATION: Reparando el subárbol de " + userId);
+                        }
+                        root.updateChildren(ActivityPaths.copyUpdate(userId, legacy, perUser.keySet()))
+                                .addOnSuccessListener(aVoid -> copyPass(userId, pass + 1, marked))
+                                .addOnFailureListener(e -> fail(userId, e, marked));
+                    }
+                })
+                .addOnFailureListener(e -> fail(userId, e, marked));
+    }
+
+    private void writeMarker(String userId, int count) {
+        root.child(ActivityPaths.migrationMarker(userId))
+                .setValue(ActivityPaths.migrationMarker(count, ServerValue.TIMESTAMP))
+                .addOnSuccessListener(aVoid -> {
+                    System.out.println("ACTIVITY_MIGRATION: " + count + " actividades migradas para " + userId);
+                    finish(userId, true);
+                })
+                .addOnFailureListener(e -> fail(userId, e));
+    }
+
+    private void fail(String userId, Exception e) {
+        fail(userId, e, false);
+    }
+
+    // Sin conexión o sin permisos: si no estaba marcado se sigue leyendo del nodo global, que está
+    // completo; si lo estaba, de los dos
+    private void fail(String userId, Exception e, boolean marked) {
+        System.out.println("ACTIVITY_MIGRATION: Error al migrar " + userId + ": " + e.getMessage());
+        finish(userId, marked);
+    }
+
+    private void finish(String userId, boolean migrated) {
+        if (migrated) {
+            store.markMigrated(userId);
+        }
+        List<Callback> waiting;
+        synchronized (pending) {
+            waiting = pending.remove(userId);
+        }
+        if (waiting != null) {
+            for (Callback callback : waiting) {
+                callback.onReady(migrated);
+            }
+        }
+    }
+
+    private static Map<String, Object> valuesOf(DataSnapshot snapshot) {
+        Map<String, Object> values = new HashMap<>();
+        for (DataSnapshot child : snapshot.getChildren()) {
+            values.put(child.getKey(), child.getValue());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.mirutinavisual;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rutas de las actividades en Firebase.
+ * Antes todas las actividades estaban en el nodo global "activities" y se filtraban por userId;
+ * ahora cada usuario tiene las suyas en "users/{uid}/activities". El paso de una a otra se hace
+ * por fases ({@link Layout}) y los datos de cada usuario se copian la primera vez que entra
+ * (ver {@link ActivityMigration}).
+ */
+final class ActivityPaths {
+
+    /**
+     * Fase del cambio de estructura.
+     */
+    enum Layout {
+        // Solo el nodo global, como antes
+        LEGACY,
+        // Se escribe en los dos sitios; se leen los dos si el usuario ya está migrado y si no el global
+        DUAL,
+        // Solo el subárbol de cada usuario, cuando ya no quedan versiones que lean el global
+        PER_USER;
+
+        boolean readsPerUser(boolean userMigrated) {
+            return this == PER_USER || (this == DUAL && userMigrated);
+        }
+    }
+
+    static final String LEGACY_ROOT = "activities";
+    static final String USERS_ROOT = "users";
+    static final String PER_USER_NODE = "activities";
+    static final String MIGRATION_NODE = "activitiesMigration";
+
+    // Sube si alguna vez hay que volver a copiar los datos con otro formato
+    static final int MIGRATION_VERSION = 1;
+
+    private ActivityPaths() {
+    }
+
+    static String legacy(String activityId) {
+        return LEGACY_ROOT + "/" + activityId;
+    }
+
+    static String perUserRoot(String userId) {
+        return USERS_ROOT + "/" + userId + "/" + PER_USER_NODE;
+    }
+
+    static String perUser(String userId, String activityId) {
+        return perUserRoot(userId) + "/" + activityId;
+    }
+
+    static String migrationMarker(String userId) {
+        return USERS_ROOT + "/" + userId + "/" + MIGRATION_NODE;
+    }
+
+    /**
+     * Rutas en las que hay que escribir una actividad en esta fase.
+     */
+    static List<String> writePaths(Layout layout, String userId, String activityId) {
+        List<String> paths = new ArrayList<>();
+        if (layout != Layout.PER_USER) {
+            paths.add(legacy(activityId));
+        }
+        if (layout != Layout.LEGACY) {
+            paths.add(perUser(userId, activityId));
+        }
+        return paths;
+    }
+
+    /**
+     * Actualización multi-ruta que escribe {@code value} en todas las rutas (null para borrar).
+     */
+    static Map<String, Object> valueUpdate(List<String> paths, Object value) {
+        Map<String, Object> update = new HashMap<>();
+        for (String path : paths) {
+            update.put(path, value);
+        }
+        return update;
+    }
+
+    /**
+     * Actualización multi-ruta que cambia solo los campos indicados en todas las rutas.
+     */
+    static Map<String, Object> fieldUpdate(List<String> paths, Map<String, Object> fields) {
+        Map<String, Object> update = new HashMap<>();
+        for (String path : paths) {
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                update.put(path + "/" + field.getKey(), field.getValue());
+            }
+        }
+        return update;
+    }
+
+    /**
+     * Actualización atómica que deja el subárbol del usuario igual que sus actividades del nodo
+     * global: copia cada una y borra las que ya no están allí. El nodo global no se toca.
+     */
+    static Map<String, Object> copyUpdate(String userId, Map<String, Object> legacyActivities,
+                                          Set<String> perUserIds) {
+        Map<String, Object> update = new HashMap<>();
+        for (String activityId : perUserIds) {
+            if (!legacyActivities.containsKey(activityId)) {
+                update.put(perUser(userId, activityId), null);
+            }
+        }
+        for (Map.Entry<String, Object> activity : legacyActivities.entrySet()) {
+            update.put(perUser(userId, activity.getKey()), activity.getValue());
+        }
+        return update;
+    }
+
+    /**
+     * Marca de usuario migrado; {@code migratedAt} suele ser ServerValue.TIMESTAMP.
+     */
+    static Map<String, Object> migrationMarker(int count, Object migratedAt) {
+        Map<String, Object> marker = new HashMap<>();
+        marker.put("version", MIGRATION_VERSION);
+        marker.put("count", count);
+        marker.put("migratedAt", migratedAt);
+        return marker;
+    }
+}
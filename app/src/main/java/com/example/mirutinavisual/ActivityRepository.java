@@ -0,0 +1,520 @@
+package com.example.mirutinavisual;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actividades de cada usuario, compartidas por todas las pantallas.
+ * Hay una sola suscripción a Firebase por usuario, con un contador de referencias: la abre el
+ * primer observador y la cierra el último cuando se destruye su pantalla. La lista se guarda en
+ * memoria ordenada por hora, así una pantalla que se abre después la recibe al momento sin
+ * volver a descargarla.
+ * La suscripción escucha los eventos de cada hijo: un cambio en una actividad se aplica solo a
+ * esa actividad en la {@link SortedActivityList} y se avisa de la posición afectada, sin volver
+ * a leer ni ordenar las demás. En la fase DUAL se escuchan el nodo global y el subárbol del
+ * usuario, y sus actividades se unen por id con {@link MergedActivitySources}.
+ * Los observadores siguen el ciclo de vida de su pantalla: solo reciben avisos mientras está
+ * visible, al volver a ella reciben la lista completa si cambió entretanto, y se quitan solos en
+ * onDestroy. Todo se usa desde el hilo principal, igual que los callbacks de Firebase.
+ */
+public class ActivityRepository {
+
+    /**
+     * Las listas que se reciben son de solo lectura y valen solo durante la llamada: hay que
+     * copiar lo que se quiera guardar. Sus actividades son copias para ese observador, así que
+     * modificarlas no cambia lo que ven las demás pantallas; los cambios se guardan con
+     * {@link ActivityStore}. Si no se implementan los avisos por posición, cada cambio llega como
+     * una lista completa.
+     */
+    public interface Observer {
+        // Lista completa: al cargar y al volver a una pantalla que no ha visto los últimos cambios
+        void onActivitiesChanged(List<Activity> activities);
+        void onError(String error);
+
+        default void onActivityInserted(List<Activity> activities, int position) {
+            onActivitiesChanged(activities);
+        }
+
+        default void onActivityChanged(List<Activity> activities, int position) {
+            onActivitiesChanged(activities);
+        }
+
+        // La actividad que estaba en fromPosition ha cambiado de hora y ahora está en toPosition
+        default void onActivityMoved(List<Activity> activities, int fromPosition, int toPosition) {
+            onActivitiesChanged(activities);
+        }
+
+        default void onActivityRemoved(List<Activity> activities, int position) {
+            onActivitiesChanged(activities);
+        }
+    }
+
+    /**
+     * Observador para una pantalla con lista: mantiene {@code target}, la lista de su adaptador,
+     * igual que la compartida y avisa al adaptador solo de las filas que cambian.
+     */
+    public abstract static class AdapterObserver implements Observer {
+
+        private final List<Activity> target;
+        private final RecyclerView.Adapter<?> adapter;
+
+        protected AdapterObserver(List<Activity> target, RecyclerView.Adapter<?> adapter) {
+            this.target = target;
+            this.adapter = adapter;
+        }
+
+        // Después de cada actualización; fullReload indica que se ha recibido la lista completa
+        protected abstract void onListUpdated(boolean fullReload);
+
+        @Override
+        public final void onActivitiesChanged(List<Activity> activities) {
+            target.clear();
+            target.addAll(activities);
+            if (adapter != null) {
+                adapter.notifyDataSetChanged();
+            }
+            onListUpdated(true);
+        }
+
+        @Override
+        public final void onActivityInserted(List<Activity> activities, int position) {
+            target.add(position, activities.get(position));
+            if (adapter != null) {
+                adapter.notifyItemInserted(position);
+            }
+            onListUpdated(false);
+        }
+
+        @Override
+        public final void onActivityChanged(List<Activity> activities, int position) {
+            target.set(position, activities.get(position));
+            if (adapter != null) {
+                adapter.notifyItemChanged(position);
+            }
+            onListUpdated(false);
+        }
+
+        @Override
+        public final void onActivityMoved(List<Activity> activities, int fromPosition, int toPosition) {
+            target.remove(fromPosition);
+            target.add(toPosition, activities.get(toPosition));
+            if (adapter != null) {
+                adapter.notifyItemMoved(fromPosition, toPosition);
+                adapter.notifyItemChanged(toPosition);
+            }
+            onListUpdated(false);
+        }
+
+        @Override
+        public final void onActivityRemoved(List<Activity> activities, int position) {
+            target.remove(position);
+            if (adapter != null) {
+                adapter.notifyItemRemoved(position);
+            }
+            onListUpdated(false);
+        }
+    }
+
+    private static ActivityRepository instance;
+
+    private final Map<String, Subscription> subscriptions = new HashMap<>();
+
+    public static synchronized ActivityRepository getInstance() {
+        if (instance == null) {
+            instance = new ActivityRepository();
+        }
+        return instance;
+    }
+
+    private ActivityRepository() {
+    }
+
+    /**
+     * Empieza a observar las actividades de {@code userId} hasta que se destruya {@code owner}.
+     */
+    public void observe(LifecycleOwner owner, String userId, Observer observer) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+        Subscription subscription = subscriptions.get(userId);
+        if (subscription == null) {
+            subscription = new Subscription(userId);
+            subscriptions.put(userId, subscription);
+            subscription.start();
+        }
+        ObserverBinding binding = new ObserverBinding(subscription, lifecycle, observer);
+        subscription.bindings.add(binding);
+        System.out.println("ACTIVITY_REPO: " + subscription.bindings.size() + " observadores para " + userId);
+        // Si la pantalla ya está visible, addObserver llama a onStart y recibe lo que haya en memoria
+        lifecycle.addObserver(binding);
+    }
+
+    /**
+     * Copia de la última lista conocida de un usuario observado, o vacía si todavía no ha llegado.
+     */
+    public List<Activity> getActivities(String userId) {
+        Subscription subscription = subscriptions.get(userId);
+        return subscription != null
+                ? new ArrayList<>(subscription.model.copies()) : Collections.<Activity>emptyList();
+    }
+
+    private void release(ObserverBinding binding) {
+        Subscription subscription = binding.subscription;
+        if (!subscription.bindings.remove(binding)) {
+            return;
+        }
+        if (subscription.bindings.isEmpty()) {
+            subscription.stop();
+            subscriptions.remove(subscription.userId);
+        }
+    }
+
+    // Las consultas a Firebase de un usuario y el estado en memoria que comparten sus observadores
+    private class Subscription {
+
+        final String userId;
+        final List<ObserverBinding> bindings = new ArrayList<>();
+        final SortedActivityList model = new SortedActivityList();
+        // Se deciden al terminar la migración del usuario: su subárbol, el nodo global o los dos
+        final List<Source> sources = new ArrayList<>();
+        MergedActivitySources merged;
+        boolean stopped;
+
+        // Hasta que llegan todos los datos iniciales no se avisa a nadie
+        boolean loaded;
+        int pendingLoads;
+        int errorVersion;
+        String error;
+
+        Subscription(String userId) {
+            this.userId = userId;
+        }
+
+        void start() {
+            ActivityMigration.getInstance().ensureMigrated(userId, migrated -> {
+                if (stopped) {
+                    return;
+                }
+                List<Query> queries = ActivityStore.getInstance().activitiesQueries(userId, migrated);
+                merged = new MergedActivitySources(queries.size());
+                pendingLoads = queries.size();
+                System.out.println("ACTIVITY_REPO: Suscripción abierta para " + userId
+                        + (migrated ? " (subárbol del usuario)" : " (nodo global)")
+                        + (queries.size() > 1 ? " con " + queries.size() + " consultas" : ""));
+                for (int i = 0; i < queries.size(); i++) {
+                    Source source = new Source(i, queries.get(i));
+                    sources.add(source);
+                    source.query.addChildEventListener(source);
+                    source.query.addListenerForSingleValueEvent(source.initialLoad);
+                }
+            });
+        }
+
+        void stop() {
+            stopped = true;
+            for (Source source : sources) {
+                source.query.removeEventListener(source);
+                source.query.removeEventListener(source.initialLoad);
+            }
+            System.out.println("ACTIVITY_REPO: Suscripción cerrada para " + userId);
+        }
+
+        private void onSourceLoaded() {
+            if (--pendingLoads > 0) {
+                return;
+            }
+            loaded = true;
+            System.out.println("ACTIVITY_REPO: " + model.size() + " actividades cargadas para " + userId);
+            for (ObserverBinding binding : new ArrayList<>(bindings)) {
+                binding.sync();
+            }
+        }
+
+        private void onSourcePut(int index, Activity activity) {
+            if (merged.put(index, activity)) {
+                apply(activity);
+            }
+        }
+
+        private void onSourceRemoved(int index, String id) {
+            if (!merged.remove(index, id)) {
+                return;
+            }
+            Activity remaining = merged.get(id);
+            if (remaining != null) {
+                apply(remaining);
+            } else {
+                remove(id);
+            }
+        }
+
+        private void onSourceCancelled(DatabaseError databaseError) {
+            error = databaseError.getMessage();
+            errorVersion++;
+            System.out.println("ACTIVITY_REPO: Error en la suscripción de " + userId + ": " + error);
+            for (ObserverBinding binding : new ArrayList<>(bindings)) {
+                binding.deliverError();
+            }
+        }
+
+        private void apply(Activity activity) {
+            if (!model.contains(activity.getId())) {
+                int position = model.insert(activity);
+                // Copias: un observador puede destruir su pantalla y quitarse mientras se avisa
+                for (ObserverBinding binding : new ArrayList<>(bindings)) {
+                    if (binding.canDeliver()) {
+                        binding.observer.onActivityInserted(model.copies(), position);
+                    }
+                }
+                return;
+            }
+            int from = model.indexOf(activity.getId());
+            int to = model.update(activity);
+            for (ObserverBinding binding : new ArrayList<>(bindings)) {
+                if (!binding.canDeliver()) {
+                    continue;
+                }
+                if (from == to) {
+                    binding.observer.onActivityChanged(model.copies(), to);
+                } else {
+                    binding.observer.onActivityMoved(model.copies(), from, to);
+                }
+            }
+        }
+
+        private void remove(String id) {
+            int position = model.remove(id);
+            if (position < 0) {
+                return;
+            }
+            for (ObserverBinding binding : new ArrayList<>(bindings)) {
+                if (binding.canDeliver()) {
+                    binding.observer.onActivityRemoved(model.copies(), position);
+                }
+            }
+        }
+
+        // Una de las consultas; index es su prioridad en merged
+        private class Source implements ChildEventListener {
+
+            final int index;
+            final Query query;
+
+            // Firebase lanza los onChildAdded de los datos iniciales antes que este evento
+            final ValueEventListener initialLoad = new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                    onSourceLoaded();
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError databaseError) {
+                    // El error llega también al ChildEventListener, que es el que avisa
+                }
+            };
+
+            Source(int index, Query query) {
+                this.index = index;
+                this.query = query;
+            }
+
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, String previousChildName) {
+                Activity activity = parseActivity(snapshot);
+                if (activity != null) {
+                    onSourcePut(index, activity);
+                }
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, String previousChildName) {
+                Activity activity = parseActivity(snapshot);
+                if (activity != null) {
+                    onSourcePut(index, activity);
+                } else {
+                    onSourceRemoved(index, snapshot.getKey());
+                }
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                onSourceRemoved(index, snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, String previousChildName) {
+                // Es el orden de la consulta (por userId); la lista se ordena por hora en onChildChanged
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                onSourceCancelled(databaseError);
+            }
+        }
+    }
+
+    private class ObserverBinding implements DefaultLifecycleObserver {
+
+        final Subscription subscription;
+        final Lifecycle lifecycle;
+        final Observer observer;
+        // Tiene la lista al día y puede recibir cambios por posición
+        boolean synced;
+        int seenErrorVersion;
+
+        ObserverBinding(Subscription subscription, Lifecycle lifecycle, Observer observer) {
+            this.subscription = subscription;
+            this.lifecycle = lifecycle;
+            this.observer = observer;
+        }
+
+        private boolean isStarted() {
+            return lifecycle.getCurrentState().isAtLeast(Lifecycle.State.STARTED);
+        }
+
+        boolean canDeliver() {
+            if (synced && isStarted()) {
+                return true;
+            }
+            // Se pierde este cambio: al volver a la pantalla recibirá la lista completa
+            synced = false;
+            return false;
+        }
+
+        void sync() {
+            if (synced || !subscription.loaded || !isStarted()) {
+                return;
+            }
+            synced = true;
+            observer.onActivitiesChanged(subscription.model.copies());
+        }
+
+        void deliverError() {
+            if (isStarted() && seenErrorVersion != subscription.errorVersion) {
+                seenErrorVersion = subscription.errorVersion;
+                observer.onError(subscription.error);
+            }
+        }
+
+        @Override
+        public void onStart(@NonNull LifecycleOwner owner) {
+            deliverError();
+            sync();
+        }
+
+        @Override
+        public void onDestroy(@NonNull LifecycleOwner owner) {
+            lifecycle.removeObserver(this);
+            release(this);
+        }
+    }
+
+    /**
+     * Crea la actividad de un snapshot, con sus pasos personalizados si es una secuencia.
+     */
+    static Activity parseActivity(DataSnapshot activitySnapshot) {
+        try {
+            Activity activity = activitySnapshot.getValue(Activity.class);
+            if (activity != null) {
+                activity.setId(activitySnapshot.getKey());
+
+                // Cargar pasos personalizados si existen
+                Boolean isSequence = activitySnapshot.child("isSequence").getValue(Boolean.class);
+                Object stepsData = activitySnapshot.child("steps").getValue();
+                if (isSequence != null && isSequence && stepsData != null) {
+                    List<SequenceStep> customSteps = loadStepsFromSnapshot(stepsData);
+                    if (!customSteps.isEmpty()) {
+                        activity.setSequence(true);
+                        activity.setSteps(customSteps);
+                    }
+                }
+            }
+            return activity;
+        } catch (Exception e) {
+            System.out.println("ACTIVITY_REPO: Error al crear actividad desde snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Método para cargar pasos desde DataSnapshot
+    private static List<SequenceStep> loadStepsFromSnapshot(Object stepsData) {
+        List<SequenceStep> steps = new ArrayList<>();
+
+        try {
+            if (stepsData instanceof List) {
+                List<?> stepsList = (List<?>) stepsData;
+
+                for (Object stepObj : stepsList) {
+                    if (stepObj instanceof Map) {
+                        Map<?, ?> stepMap = (Map<?, ?>) stepObj;
+
+                        SequenceStep step = new SequenceStep();
+                        step.setId(getStringValue(stepMap, "id"));
+                        step.setName(getStringValue(stepMap, "name"));
+                        step.setDescription(getStringValue(stepMap, "description"));
+                        step.setPictogramId((int) getLongValue(stepMap, "pictogramId"));
+                        step.setPictogramKeyword(getStringValue(stepMap, "pictogramKeyword"));
+                        step.setStepNumber(getIntValue(stepMap, "stepNumber"));
+                        step.setCompleted(getBooleanValue(stepMap, "completed"));
+                        step.setAudioText(getStringValue(stepMap, "audioText"));
+
+                        steps.add(step);
+                    }
+                }
+
+                // Ordenar por número de paso
+                steps.sort((s1, s2) -> Integer.compare(s1.getStepNumber(), s2.getStepNumber()));
+            }
+        } catch (Exception e) {
+            System.out.println("ACTIVITY_REPO: Error al cargar pasos: " + e.getMessage());
+        }
+
+        return steps;
+    }
+
+    // Métodos auxiliares para extraer datos de Map de forma segura
+    private static String getStringValue(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        return value != null ? value.toString() : "";
+    }
+
+    private static long getLongValue(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return 0;
+    }
+
+    private static int getIntValue(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return 0;
+    }
+
+    private static boolean getBooleanValue(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return false;
+    }
+}
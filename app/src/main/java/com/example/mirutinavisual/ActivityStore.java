@@ -0,0 +1,149 @@
+package com.example.mirutinavisual;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lectura y escritura de actividades según la fase en que está el cambio de estructura
+ * ({@link ActivityPaths.Layout}).
+ * Las escrituras son actualizaciones multi-ruta desde la raíz: en la fase DUAL el nodo global y
+ * el subárbol del usuario cambian en una sola operación atómica, así ninguna copia se queda atrás.
+ * Las lecturas van al subárbol del usuario cuando ya está migrado. Mientras dura la fase DUAL
+ * también van al nodo global, que es la copia completa y manda: las versiones antiguas siguen
+ * escribiendo y borrando solo allí.
+ */
+public class ActivityStore {
+
+    // Fase actual del despliegue; pasa a PER_USER cuando ya no queden versiones que lean el nodo global
+    static final ActivityPaths.Layout LAYOUT = ActivityPaths.Layout.DUAL;
+
+    private static ActivityStore instance;
+
+    private final DatabaseReference root;
+    private final ActivityPaths.Layout layout;
+    // Usuarios cuya copia propia está completa; lo anota ActivityMigration
+    private final Set<String> migratedUsers = ConcurrentHashMap.newKeySet();
+
+    public static synchronized ActivityStore getInstance() {
+        if (instance == null) {
+            instance = new ActivityStore(FirebaseDatabase.getInstance(), LAYOUT);
+        }
+        return instance;
+    }
+
+    ActivityStore(FirebaseDatabase database, ActivityPaths.Layout layout) {
+        this.root = database.getReference();
+        this.layout = layout;
+    }
+
+    /**
+     * Usuario con sesión iniciada, o null.
+     */
+    public static String currentUserId() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        return user != null ? user.getUid() : null;
+    }
+
+    ActivityPaths.Layout getLayout() {
+        return layout;
+    }
+
+    DatabaseReference getRoot() {
+        return root;
+    }
+
+    boolean isMigrated(String userId) {
+        return migratedUsers.contains(userId);
+    }
+
+    void markMigrated(String userId) {
+        migratedUsers.add(userId);
+    }
+
+    /**
+     * Clave para una actividad nueva; las claves de push son únicas en toda la base de datos.
+     */
+    public String newActivityId() {
+        return root.child(ActivityPaths.LEGACY_ROOT).push().getKey();
+    }
+
+    public Task<Void> setActivity(String userId, String activityId, Object activity) {
+        return root.updateChildren(ActivityPaths.valueUpdate(pathsFor(userId, activityId), activity));
+    }
+
+    public Task<Void> updateActivity(String userId, String activityId, Map<String, Object> fields) {
+        return root.updateChildren(ActivityPaths.fieldUpdate(pathsFor(userId, activityId), fields));
+    }
+
+    public Task<Void> setActivityField(String userId, String activityId, String field, Object value) {
+        return updateActivity(userId, activityId, Collections.singletonMap(field, value));
+    }
+
+    public Task<Void> removeActivity(String userId, String activityId) {
+        return root.updateChildren(ActivityPaths.valueUpdate(pathsFor(userId, activityId), null));
+    }
+
+    /**
+     * Lee una actividad del nodo global y, si no aparece y el usuario ya está migrado, de su
+     * subárbol. En la fase PER_USER solo del subárbol.
+     */
+    public Task<DataSnapshot> readActivity(String userId, String activityId) {
+        DatabaseReference legacy = root.child(ActivityPaths.legacy(activityId));
+        if (userId == null || !layout.readsPerUser(isMigrated(userId))) {
+            return legacy.get();
+        }
+        DatabaseReference perUser = root.child(ActivityPaths.perUser(userId, activityId));
+        if (layout == ActivityPaths.Layout.PER_USER) {
+            return perUser.get();
+        }
+        return legacy.get().continueWithTask(task -> {
+            if (task.isSuccessful() && task.getResult().exists()) {
+                return task;
+            }
+            return perUser.get();
+        });
+    }
+
+    /**
+     * Consultas que juntas dan todas las actividades de un usuario, de mayor a menor prioridad
+     * (ver {@link MergedActivitySources}). {@code migrated} lo da
+     * {@link ActivityMigration#ensureMigrated}. En la fase DUAL un usuario migrado lee el nodo
+     * global, que manda, y su subárbol solo para lo que no esté allí.
+     */
+    List<Query> activitiesQueries(String userId, boolean migrated) {
+        Query legacy = root.child(ActivityPaths.LEGACY_ROOT)
+                .orderByChild("userId")
+                .equalTo(userId);
+        if (!layout.readsPerUser(migrated)) {
+            return Collections.singletonList(legacy);
+        }
+        Query perUser = root.child(ActivityPaths.perUserRoot(userId));
+        if (layout == ActivityPaths.Layout.PER_USER) {
+            return Collections.singletonList(perUser);
+        }
+        return Arrays.asList(legacy, perUser);
+    }
+
+    private List<String> pathsFor(String userId, String activityId) {
+        if (userId == null) {
+            // Sin usuario no se sabe cuál es su subárbol: solo queda el nodo global
+            System.out.println("ACTIVITY_STORE: Escritura sin usuario para " + activityId);
+            return layout == ActivityPaths.Layout.PER_USER
+                    ? Collections.<String>emptyList()
+                    : Collections.singletonList(ActivityPaths.legacy(activityId));
+        }
+        return ActivityPaths.writePaths(layout, userId, activityId);
+    }
+}
@@ -14,13 +14,16 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
-
 import java.util.ArrayList;
 import java.util.List;
 
 public class AddStepDialog {
 
+    // Paleta de pictogramas frecuentes al abrir el diálogo
+    private static final int MAX_FREQUENT_PICTOGRAMS = 9;
+    // Celdas por delante que se precargan: tres filas de la rejilla
+    private static final int PICTOGRAM_PRELOAD_WINDOW = 9;
+
     public interface OnStepSavedListener {
         void onStepSaved(SequenceStep step);
         void onStepUpdated(SequenceStep step, int position);
@@ -42,13 +45,17 @@ public class AddStepDialog {
     private Pictogram selectedPictogram;
     private List<Pictogram> pictogramsList;
     private PictogramAdapter pictogramAdapter;
+    private PictogramGridPaging pictogramPaging;
     private ArasaacApiService arasaacService;
+    private IncrementalPictogramSearch incrementalSearch;
+    private PictogramUsageTracker usageTracker;
 
     public AddStepDialog(Context context, OnStepSavedListener listener) {
         this.context = context;
         this.listener = listener;
         this.pictogramsList = new ArrayList<>();
-        this.arasaacService = new ArasaacApiService();
+        this.arasaacService = ArasaacApiService.getInstance(context);
+        this.usageTracker = PictogramUsageTracker.getInstance(context);
     }
 
     public void showAddDialog() {
@@ -80,6 +87,11 @@ public class AddStepDialog {
         // Configurar RecyclerView de pictogramas
         setupPictogramRecyclerView();
         
+        // Al abrir, los pictogramas más usados están a un toque sin buscar
+        if (editingStep == null) {
+            showFrequentPictograms();
+        }
+        
         // Crear y mostrar diálogo
         AlertDialog dialog = new AlertDialog.Builder(context)
                 .setView(dialogView)
@@ -88,6 +100,7 @@ public class AddStepDialog {
         
         // Configurar listeners
         setupClickListeners(dialog);
+        setupIncrementalSearch(dialog);
         
         dialog.show();
     }
@@ -133,6 +146,7 @@ public class AddStepDialog {
                         try {
                             System.out.println("STEP_DIALOG: Pictograma seleccionado: " + pictogram.getId());
                             selectedPictogram = pictogram;
+                            usageTracker.recordSelection(pictogram);
                             updateSelectedPictogramView();
                             stepPictogramsRecyclerView.setVisibility(View.GONE);
                         } catch (Exception e) {
@@ -143,6 +157,9 @@ public class AddStepDialog {
                 });
                 
                 stepPictogramsRecyclerView.setAdapter(pictogramAdapter);
+                new PictogramListPreloader(stepPictogramsRecyclerView, pictogramAdapter,
+                        R.id.pictogramImageView, PICTOGRAM_PRELOAD_WINDOW);
+                pictogramPaging = new PictogramGridPaging(stepPictogramsRecyclerView, pictogramsList, pictogramAdapter);
                 System.out.println("STEP_DIALOG: RecyclerView configurado correctamente");
             } else {
                 System.out.println("STEP_DIALOG: ERROR - stepPictogramsRecyclerView es null");
@@ -159,7 +176,7 @@ public class AddStepDialog {
                 String keyword = stepPictogramSearchEditText.getText().toString().trim();
                 System.out.println("STEP_DIALOG: Botón buscar presionado, keyword: '" + keyword + "'");
                 
-                if (!keyword.isEmpty() && keyword.length() >= 2) {
+                if (!keyword.isEmpty() && keyword.length() >= IncrementalPictogramSearch.MIN_TERM_LENGTH) {
                     searchPictograms(keyword);
                 } else {
                     showToast("Escribe al menos 2 letras para buscar");
@@ -182,90 +199,99 @@ public class AddStepDialog {
         });
     }
 
+    private void setupIncrementalSearch(AlertDialog dialog) {
+        // El diálogo es LifecycleOwner: al cerrarse se cancelan sus búsquedas
+        incrementalSearch = new IncrementalPictogramSearch(dialog, arasaacService, usageTracker, new IncrementalPictogramSearch.Listener() {
+            @Override
+            public void onSearchStarted(String term, boolean requestedByUser) {
+                System.out.println("STEP_DIALOG: Iniciando búsqueda de pictogramas para: " + term);
+                stepPictogramsRecyclerView.setVisibility(View.VISIBLE);
+                searchStepPictogramButton.setText("🔍...");
+            }
+
+            @Override
+            public void onResults(String term, PictogramPager pager, boolean requestedByUser) {
+                showSearchResults(term, pager, requestedByUser);
+            }
+
+            @Override
+            public void onError(String term, String error, boolean requestedByUser) {
+                System.out.println("STEP_DIALOG: Error en búsqueda: " + error);
+                handleSearchError(error, requestedByUser);
+            }
+
+            @Override
+            public void onSearchCleared() {
+                searchStepPictogramButton.setText("🔍");
+                showFrequentPictograms();
+            }
+        });
+        stepPictogramSearchEditText.addTextChangedListener(incrementalSearch);
+    }
+
     private void searchPictograms(String keyword) {
         try {
-            System.out.println("STEP_DIALOG: Iniciando búsqueda de pictogramas para: " + keyword);
+            // Búsqueda explícita: cancela la incremental que pudiera estar en curso
+            incrementalSearch.searchNow(keyword);
+        } catch (Exception e) {
+            System.out.println("STEP_DIALOG: Error al iniciar búsqueda: " + e.getMessage());
+            handleSearchError("Error al iniciar búsqueda", true);
+        }
+    }
+
+    private void showFrequentPictograms() {
+        if (pictogramPaging == null) {
+            return;
+        }
+        List<Pictogram> frequent = usageTracker.getFrequentPictograms(MAX_FREQUENT_PICTOGRAMS);
+        pictogramPaging.show(new PictogramPager(frequent, ArasaacApiService.PAGE_SIZE));
+        stepPictogramsRecyclerView.setVisibility(frequent.isEmpty() ? View.GONE : View.VISIBLE);
+    }
+
+    private void showSearchResults(String keyword, PictogramPager pager, boolean requestedByUser) {
+        try {
+            System.out.println("STEP_DIALOG: Pictogramas encontrados: " + pager.getTotal());
             
-            // Mostrar RecyclerView y deshabilitar botón
-            stepPictogramsRecyclerView.setVisibility(View.VISIBLE);
-            searchStepPictogramButton.setEnabled(false);
-            searchStepPictogramButton.setText("🔍...");
+            // Primera página; las siguientes se cargan al desplazarse por la rejilla
+            if (pictogramPaging != null) {
+                pictogramPaging.show(pager);
+            }
             
-            arasaacService.searchPictograms(keyword, new ArasaacApiService.PictogramSearchCallback() {
-                @Override
-                public void onSuccess(List<Pictogram> pictograms) {
-                    try {
-                        System.out.println("STEP_DIALOG: Pictogramas encontrados: " + pictograms.size());
-                        
-                        // Asegurar que estamos en el hilo principal
-                        if (context instanceof android.app.Activity) {
-                            ((android.app.Activity) context).runOnUiThread(() -> {
-                                try {
-                                    pictogramsList.clear();
-                                    pictogramsList.addAll(pictograms);
-                                    
-                                    if (pictogramAdapter != null) {
-                                        pictogramAdapter.notifyDataSetChanged();
-                                    }
-                                    
-                                    // Restaurar botón
-                                    searchStepPictogramButton.setEnabled(true);
-                                    searchStepPictogramButton.setText("🔍");
-                                    
-                                    if (pictograms.isEmpty()) {
-                                        showToast("No se encontraron pictogramas para: " + keyword);
-                                        stepPictogramsRecyclerView.setVisibility(View.GONE);
-                                    }
-                                    
-                                    System.out.println("STEP_DIALOG: UI actualizada correctamente");
-                                } catch (Exception e) {
-                                    System.out.println("STEP_DIALOG: Error al actualizar UI: " + e.getMessage());
-                                    handleSearchError("Error al mostrar resultados");
-                                }
-                            });
-                        }
-                    } catch (Exception e) {
-                        System.out.println("STEP_DIALOG: Error en onSuccess: " + e.getMessage());
-                        handleSearchError("Error al procesar resultados");
-                    }
-                }
-
-                @Override
-                public void onError(String error) {
-                    System.out.println("STEP_DIALOG: Error en búsqueda: " + error);
-                    handleSearchError(error);
+            // Restaurar botón
+            searchStepPictogramButton.setText("🔍");
+            
+            if (pager.isEmpty()) {
+                if (requestedByUser) {
+                    showToast("No se encontraron pictogramas para: " + keyword);
                 }
-            });
+                stepPictogramsRecyclerView.setVisibility(View.GONE);
+            } else {
+                stepPictogramsRecyclerView.setVisibility(View.VISIBLE);
+            }
             
+            System.out.println("STEP_DIALOG: UI actualizada correctamente");
         } catch (Exception e) {
-            System.out.println("STEP_DIALOG: Error al iniciar búsqueda: " + e.getMessage());
-            handleSearchError("Error al iniciar búsqueda");
+            System.out.println("STEP_DIALOG: Error al actualizar UI: " + e.getMessage());
+            handleSearchError("Error al mostrar resultados", requestedByUser);
         }
     }
     
-    private void handleSearchError(String error) {
+    private void handleSearchError(String error, boolean requestedByUser) {
         try {
-            if (context instanceof android.app.Activity) {
-                ((android.app.Activity) context).runOnUiThread(() -> {
-                    try {
-                        // Restaurar botón
-                        searchStepPictogramButton.setEnabled(true);
-                        searchStepPictogramButton.setText("🔍");
-                        
-                        // Ocultar RecyclerView
-                        stepPictogramsRecyclerView.setVisibility(View.GONE);
-                        
-                        // Mostrar error
-                        showToast("Error al buscar pictogramas: " + error);
-                        
-                        System.out.println("STEP_DIALOG: Error manejado correctamente");
-                    } catch (Exception e) {
-                        System.out.println("STEP_DIALOG: Error al manejar error: " + e.getMessage());
-                    }
-                });
+            // Restaurar botón
+            searchStepPictogramButton.setText("🔍");
+            
+            if (requestedByUser) {
+                // Ocultar RecyclerView
+                stepPictogramsRecyclerView.setVisibility(View.GONE);
+                
+                // Mostrar error
+                showToast("Error al buscar pictogramas: " + error);
             }
+            
+            System.out.println("STEP_DIALOG: Error manejado correctamente");
         } catch (Exception e) {
-            System.out.println("STEP_DIALOG: Error crítico en handleSearchError: " + e.getMessage());
+            System.out.println("STEP_DIALOG: Error al manejar error: " + e.getMessage());
         }
     }
 
@@ -283,14 +309,10 @@ public class AddStepDialog {
                 
                 if (selectedStepPictogramImageView != null) {
                     try {
-                        String imageUrl = "https://api.arasaac.org/api/pictograms/" + selectedPictogram.getId() + "?download=false";
-                        System.out.println("STEP_DIALOG: Cargando imagen: " + imageUrl);
+                        System.out.println("STEP_DIALOG: Cargando imagen del pictograma: " + selectedPictogram.getId());
                         
-                        Glide.with(context)
-                            .load(imageUrl)
-                            .placeholder(R.drawable.ic_placeholder)
-                            .error(R.drawable.ic_error)
-                            .into(selectedStepPictogramImageView);
+                        PictogramImageLoader.load(selectedStepPictogramImageView, selectedPictogram.getId(),
+                            R.drawable.ic_placeholder, R.drawable.ic_error);
                     } catch (Exception e) {
                         System.out.println("STEP_DIALOG: Error al cargar imagen con Glide: " + e.getMessage());
                         selectedStepPictogramImageView.setImageResource(R.drawable.ic_placeholder);
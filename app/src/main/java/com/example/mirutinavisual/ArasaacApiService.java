@@ -1,148 +1,1070 @@
 package com.example.mirutinavisual;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
 import android.widget.ImageView;
 
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
-
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ArasaacApiService {
     
     private static final String BASE_URL = "https://api.arasaac.org/api/pictograms";
-    private static final String SEARCH_URL = BASE_URL + "/es/search/";
     
-    private ExecutorService executorService;
+    // Idiomas en los que se puede buscar; el catálogo local y las claves sin sufijo son de "es"
+    private static final String PRIMARY_LOCALE = "es";
+    private static final List<String> SUPPORTED_LOCALES = Arrays.asList(
+            "es", "en", "ca", "eu", "gl", "fr", "it", "pt", "de");
+    private static final String PREFS_NAME = "arasaac_preferences";
+    private static final String KEY_SEARCH_LOCALES = "search_locales";
+    // Con varios idiomas se responde con lo que haya llegado en este tiempo
+    private static final long SEARCH_LATENCY_BUDGET_MS = 3000;
+    // Búsquedas simultáneas de un mismo searchMany
+    private static final int BATCH_PARALLELISM = 3;
+    
+    private static final String CATALOG_URL = BASE_URL + "/all/es";
+    private static final String SEARCH_CACHE_FILE = "arasaac_search_cache.json";
+    private static final String CATALOG_FILE = "arasaac_catalog_es.bin";
+    // Se analizan hasta MAX_RESULTS resultados, pero la rejilla los muestra de PAGE_SIZE en PAGE_SIZE
+    public static final int PAGE_SIZE = 12;
+    static final int MAX_RESULTS = 120;
+    private static final int SEARCH_READ_TIMEOUT_MS = 15000; // 15 segundos
+    private static final int CATALOG_READ_TIMEOUT_MS = 60000; // El catálogo completo es grande
+    
+    // El catálogo es el mismo para toda la app: se carga (o descarga) una sola vez por proceso
+    private static volatile PictogramCatalog catalog;
+    private static final AtomicBoolean catalogLoading = new AtomicBoolean(false);
+    private static final long CATALOG_RETRY_MS = 10 * 60 * 1000;
+    // Pasado este tiempo se descarga de nuevo para tener los pictogramas que ARASAAC haya añadido
+    private static final long CATALOG_MAX_AGE_MS = 30L * 24 * 60 * 60 * 1000;
+    private static volatile long nextCatalogAttempt = 0;
+    
+    // Un único cliente por proceso: comparte hilos, caché y búsquedas en curso entre pantallas
+    private static ArasaacApiService instance;
+    
+    private final ExecutorService executorService;
+    // Pool aparte para las peticiones por idioma: nunca esperan a una búsqueda del pool principal
+    private final ExecutorService localeExecutor;
+    private final SharedPreferences prefs;
+    private volatile List<String> searchLocales;
+    private final Handler mainHandler;
+    private final ArasaacTransport transport;
+    private final PictogramSearchCache searchCache;
+    private final File catalogFile;
+    
+    // Búsquedas en curso por término normalizado (single-flight)
+    private final Map<String, SearchFlight> inFlightSearches = new HashMap<>();
+    private final Map<SearchTier, TierStats> tierStats = new EnumMap<>(SearchTier.class);
+    
+    // Miniaturas de la primera página, precargadas mientras la pantalla pinta los resultados
+    private final PictogramPrefetcher prefetcher;
+    private final AtomicLong startedSearches = new AtomicLong();
+    private final AtomicLong coalescedSearches = new AtomicLong();
     
     public interface PictogramSearchCallback {
         void onSuccess(List<Pictogram> pictograms);
         void onError(String error);
+        
+        // complete es false si faltan idiomas que no respondieron a tiempo (ver fetchAllLocales)
+        default void onSuccess(List<Pictogram> pictograms, boolean complete) {
+            onSuccess(pictograms);
+        }
+    }
+    
+    public interface PagedSearchCallback {
+        void onSuccess(PictogramPager pager);
+        void onError(String error);
+    }
+    
+    /**
+     * Nivel de búsqueda. BEST pide a /bestsearch solo las coincidencias exactas (respuesta muy
+     * pequeña) y, si no hay ninguna, pasa sola a la búsqueda completa; FULL usa /search.
+     */
+    public enum SearchTier {
+        BEST("/bestsearch/"),
+        FULL("/search/");
+        
+        private final String path;
+        
+        SearchTier(String path) {
+            this.path = path;
+        }
+    }
+    
+    /**
+     * Latencia y tamaño de las respuestas de un nivel, para comparar bestsearch con search.
+     */
+    public static class TierStats {
+        private long requests;
+        private long emptyResponses;
+        private long totalLatencyMs;
+        private long totalBytes;
+        
+        synchronized void record(long latencyMs, long bytes, boolean empty) {
+            requests++;
+            totalLatencyMs += latencyMs;
+            totalBytes += bytes;
+            if (empty) {
+                emptyResponses++;
+            }
+        }
+        
+        public synchronized long getRequests() {
+            return requests;
+        }
+        
+        public synchronized long getEmptyResponses() {
+            return emptyResponses;
+        }
+        
+        public synchronized long getAverageLatencyMs() {
+            return requests > 0 ? totalLatencyMs / requests : 0;
+        }
+        
+        // Bytes del cuerpo leídos (ya descomprimidos); el lector deja de leer al tener MAX_RESULTS
+        public synchronized long getAverageBytes() {
+            return requests > 0 ? totalBytes / requests : 0;
+        }
+        
+        @Override
+        public synchronized String toString() {
+            return "peticiones=" + requests + ", vacías=" + emptyResponses
+                    + ", latencia media=" + getAverageLatencyMs() + " ms, tamaño medio=" + getAverageBytes() + " B";
+        }
     }
     
-    public ArasaacApiService() {
-        executorService = Executors.newFixedThreadPool(3);
+    public interface BatchSearchCallback {
+        // Mejor pictograma de cada término, en el orden pedido; los términos sin resultado no aparecen
+        void onComplete(Map<String, Pictogram> bestMatches);
     }
     
-    public void searchPictograms(String searchTerm, PictogramSearchCallback callback) {
-        executorService.execute(() -> {
+    /**
+     * Búsqueda pedida por un llamador. Al cancelarla su callback ya no se llama, así que una
+     * búsqueda antigua nunca pisa los resultados de otra más nueva; si nadie más espera la
+     * misma petición HTTP, también se corta la conexión.
+     */
+    public static class SearchRequest implements DefaultLifecycleObserver {
+        private final String term;
+        private final PictogramSearchCallback callback;
+        // Las búsquedas por lotes no muestran rejilla: no precargan miniaturas
+        private final boolean prefetchImages;
+        private volatile boolean cancelled = false;
+        private SearchFlight flight;
+        private Lifecycle boundLifecycle;
+        
+        SearchRequest(String term, PictogramSearchCallback callback, boolean prefetchImages) {
+            this.term = term;
+            this.callback = callback;
+            this.prefetchImages = prefetchImages;
+        }
+        
+        public String getTerm() {
+            return term;
+        }
+        
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            
+            if (flight != null) {
+                flight.unsubscribe(this);
+            }
+            System.out.println("ARASAAC: Búsqueda cancelada para '" + term + "'");
+        }
+        
+        // Se cancela sola cuando se destruye la Activity o el diálogo que la pidió
+        void bindTo(LifecycleOwner owner) {
+            Lifecycle lifecycle = owner.getLifecycle();
+            if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+                cancel();
+                return;
+            }
+            boundLifecycle = lifecycle;
+            lifecycle.addObserver(this);
+        }
+        
+        // Siempre en el hilo principal, igual que los callbacks
+        void unbind() {
+            if (boundLifecycle != null) {
+                boundLifecycle.removeObserver(this);
+                boundLifecycle = null;
+            }
+        }
+        
+        @Override
+        public void onDestroy(@NonNull LifecycleOwner owner) {
+            unbind();
+            cancel();
+        }
+    }
+    
+    /**
+     * Petición real compartida por todos los llamadores que buscan el mismo término normalizado
+     * a la vez (single-flight). Todos reciben el mismo resultado o el mismo error.
+     */
+    private class SearchFlight {
+        private final String cacheKey;
+        private final String term;
+        private final List<String> locales;
+        private final SearchTier tier;
+        // Clave de la búsqueda completa del mismo término (igual a cacheKey si tier es FULL)
+        private final String fullCacheKey;
+        private final List<SearchRequest> subscribers = new ArrayList<>();
+        private volatile boolean cancelled = false;
+        private boolean completed = false;
+        private volatile Future<?> future;
+        // La última búsqueda en varios idiomas se cortó sin que respondieran todos
+        private volatile boolean partial = false;
+        // Una conexión por idioma mientras están en curso
+        private final List<ArasaacTransport.Call> calls = new CopyOnWriteArrayList<>();
+        
+        SearchFlight(String cacheKey, String term, List<String> locales, SearchTier tier) {
+            this.cacheKey = cacheKey;
+            this.term = term;
+            this.locales = locales;
+            this.tier = tier;
+            this.fullCacheKey = cacheKeyFor(term, locales, SearchTier.FULL);
+        }
+        
+        void cancelCalls() {
+            for (ArasaacTransport.Call active : calls) {
+                active.cancel();
+            }
+        }
+        
+        void unsubscribe(SearchRequest request) {
+            boolean abandoned;
+            synchronized (inFlightSearches) {
+                subscribers.remove(request);
+                // Una vez entregado el resultado la conexión solo revalida la caché: se deja seguir
+                abandoned = subscribers.isEmpty() && !completed;
+                if (abandoned) {
+                    inFlightSearches.remove(cacheKey, this);
+                }
+            }
+            
+            if (abandoned) {
+                cancelled = true;
+                Future<?> pending = future;
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+                cancelCalls();
+            }
+        }
+        
+        // Se retira del mapa antes de avisar: quien llegue después inicia una búsqueda nueva
+        private List<SearchRequest> complete() {
+            synchronized (inFlightSearches) {
+                completed = true;
+                inFlightSearches.remove(cacheKey, this);
+                return new ArrayList<>(subscribers);
+            }
+        }
+        
+        // Los callbacks se entregan en el hilo principal; la cancelación se comprueba allí mismo
+        void deliverSuccess(List<Pictogram> pictograms) {
+            deliverSuccess(pictograms, true);
+        }
+        
+        void deliverSuccess(List<Pictogram> pictograms, boolean completeResults) {
+            List<SearchRequest> requests = complete();
+            prefetchFirstPage(requests, pictograms);
+            for (SearchRequest request : requests) {
+                List<Pictogram> copy = new ArrayList<>(pictograms);
+                mainHandler.post(() -> {
+                    request.unbind();
+                    if (!request.isCancelled()) {
+                        request.callback.onSuccess(copy, completeResults);
+                    }
+                });
+            }
+        }
+        
+        void deliverError(String error) {
+            for (SearchRequest request : complete()) {
+                mainHandler.post(() -> {
+                    request.unbind();
+                    if (!request.isCancelled()) {
+                        request.callback.onError(error);
+                    }
+                });
+            }
+        }
+    }
+    
+    public static synchronized ArasaacApiService getInstance(Context context) {
+        if (instance == null) {
+            instance = new ArasaacApiService(context.getApplicationContext());
+        }
+        return instance;
+    }
+    
+    private ArasaacApiService(Context appContext) {
+        // Reintentos, petición duplicada tras el p95 y circuit breaker sobre HttpURLConnection
+        this(appContext, new ResilientTransport(new HttpUrlConnectionTransport(), true));
+    }
+    
+    ArasaacApiService(Context appContext, ArasaacTransport transport) {
+        this.transport = transport;
+        for (SearchTier tier : SearchTier.values()) {
+            tierStats.put(tier, new TierStats());
+        }
+        prefetcher = new PictogramPrefetcher(appContext);
+        executorService = ArasaacExecutors.newBoundedExecutor();
+        localeExecutor = ArasaacExecutors.newBoundedExecutor(ArasaacExecutors.MAX_THREADS,
+                ArasaacExecutors.QUEUE_CAPACITY, 30, TimeUnit.SECONDS);
+        mainHandler = new Handler(Looper.getMainLooper());
+        
+        // Caché persistente de búsquedas para responder sin red a los términos repetidos
+        File cacheFile = new File(appContext.getCacheDir(), SEARCH_CACHE_FILE);
+        searchCache = new PictogramSearchCache(cacheFile);
+        
+        prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        searchLocales = loadSearchLocales();
+        
+        // Índice local del catálogo para buscar sin red
+        catalogFile = new File(appContext.getFilesDir(), CATALOG_FILE);
+        loadCatalog();
+    }
+    
+    private void loadCatalog() {
+        if (catalog != null || System.currentTimeMillis() < nextCatalogAttempt
+                || !catalogLoading.compareAndSet(false, true)) {
+            return;
+        }
+        
+        try {
+            executorService.execute(this::loadCatalogNow);
+        } catch (RejectedExecutionException e) {
+            catalogLoading.set(false);
+        }
+    }
+    
+    private void loadCatalogNow() {
+        PictogramCatalog stored = readStoredCatalog();
+        if (stored != null) {
+            catalog = stored;
+            System.out.println("ARASAAC: Catálogo local listo con " + stored.getPictogramCount()
+                    + " pictogramas y " + stored.getTermCount() + " términos");
+            if (System.currentTimeMillis() - catalogFile.lastModified() < CATALOG_MAX_AGE_MS) {
+                return;
+            }
+        }
+        
+        try {
+            PictogramCatalog downloaded = downloadCatalog();
+            downloaded.writeTo(catalogFile);
+            catalog = downloaded;
+            System.out.println("ARASAAC: Catálogo local descargado con " + downloaded.getPictogramCount()
+                    + " pictogramas y " + downloaded.getTermCount() + " términos");
+        } catch (Exception e) {
+            // Si había uno guardado se sigue usando y se actualizará en otro arranque; si no,
+            // se reintentará en una búsqueda posterior, sin insistir en cada pulsación
+            System.out.println("ARASAAC: No se pudo descargar el catálogo local: " + e.getMessage());
+            if (stored == null) {
+                nextCatalogAttempt = System.currentTimeMillis() + CATALOG_RETRY_MS;
+                catalogLoading.set(false);
+            }
+        }
+    }
+    
+    // El catálogo guardado, o null si no hay o no se puede leer (de otra versión, cortado al
+    // escribirlo); en ese caso se borra para volver a descargarlo
+    private PictogramCatalog readStoredCatalog() {
+        if (!catalogFile.exists()) {
+            return null;
+        }
+        try {
+            return PictogramCatalog.readFrom(catalogFile);
+        } catch (Exception e) {
+            System.out.println("ARASAAC: Catálogo local no válido, se descarta: " + e.getMessage());
+            catalogFile.delete();
+            return null;
+        }
+    }
+    
+    private PictogramCatalog downloadCatalog() throws IOException {
+        System.out.println("ARASAAC: Descargando catálogo desde " + CATALOG_URL);
+        
+        ArasaacTransport.Call call = transport.newCall(CATALOG_URL, null, null, CATALOG_READ_TIMEOUT_MS);
+        try (ArasaacTransport.Response response = call.execute()) {
+            if (response.getCode() != HttpURLConnection.HTTP_OK) {
+                throw new ServerException(response.getCode());
+            }
+            
+            Reader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+            return PictogramCatalog.parse(reader);
+        }
+    }
+    
+    public SearchRequest searchPictograms(String searchTerm, PictogramSearchCallback callback) {
+        return startSearch(searchTerm, SearchTier.FULL, callback, true);
+    }
+    
+    public SearchRequest searchPictograms(String searchTerm, SearchTier tier, PictogramSearchCallback callback) {
+        return startSearch(searchTerm, tier, callback, true);
+    }
+    
+    private SearchRequest startSearch(String searchTerm, SearchTier tier, PictogramSearchCallback callback, boolean prefetchImages) {
+        loadCatalog();
+        
+        List<String> locales = searchLocales;
+        String cacheKey = cacheKeyFor(searchTerm, locales, tier);
+        SearchRequest request = new SearchRequest(searchTerm, callback, prefetchImages);
+        
+        SearchFlight flight;
+        synchronized (inFlightSearches) {
+            flight = inFlightSearches.get(cacheKey);
+            if (flight != null) {
+                // Ya hay una petición igual en marcha: se espera su resultado en vez de repetirla
+                flight.subscribers.add(request);
+                request.flight = flight;
+                long coalesced = coalescedSearches.incrementAndGet();
+                System.out.println("ARASAAC: Búsqueda de '" + cacheKey + "' unida a una en curso ("
+                        + coalesced + " agrupadas de " + (coalesced + startedSearches.get()) + ")");
+                return request;
+            }
+            
+            flight = new SearchFlight(cacheKey, searchTerm, locales, tier);
+            flight.subscribers.add(request);
+            request.flight = flight;
+            inFlightSearches.put(cacheKey, flight);
+        }
+        startedSearches.incrementAndGet();
+        
+        // Una búsqueda nueva deja sin sentido las miniaturas de la anterior
+        if (prefetchImages) {
+            mainHandler.post(prefetcher::cancel);
+        }
+        
+        SearchFlight newFlight = flight;
+        try {
+            flight.future = executorService.submit(() -> runSearch(newFlight));
+        } catch (RejectedExecutionException e) {
+            flight.deliverError("Demasiadas búsquedas en curso, inténtalo de nuevo");
+        }
+        return request;
+    }
+    
+    /**
+     * Igual que {@link #searchPictograms(String, PictogramSearchCallback)}, pero la búsqueda se
+     * cancela sola al destruirse {@code owner}. Debe llamarse desde el hilo principal.
+     */
+    public SearchRequest searchPictograms(LifecycleOwner owner, String searchTerm, PictogramSearchCallback callback) {
+        SearchRequest request = searchPictograms(searchTerm, callback);
+        request.bindTo(owner);
+        return request;
+    }
+    
+    private void runSearch(SearchFlight flight) {
+        if (flight.cancelled) {
+            return;
+        }
+        String searchTerm = flight.term;
+        String cacheKey = flight.cacheKey;
+        
+        // Primero el catálogo local: prefijos y palabras completas sin tocar la red.
+        // Con más idiomas el catálogo solo aporta la parte en español (ver searchLocale)
+        PictogramCatalog localCatalog = catalog;
+        if (localCatalog != null && isPrimaryOnly(flight.locales)) {
+            List<Pictogram> local = localCatalog.search(searchTerm, MAX_RESULTS);
+            if (!local.isEmpty()) {
+                System.out.println("ARASAAC: " + local.size() + " resultados del catálogo local para '" + cacheKey + "'");
+                flight.deliverSuccess(local);
+                return;
+            }
+        }
+        
+        // Una búsqueda completa reciente ya contiene las mejores coincidencias
+        if (flight.tier == SearchTier.BEST) {
+            PictogramSearchCache.Entry full = searchCache.get(flight.fullCacheKey);
+            if (full != null && searchCache.freshnessOf(full) != PictogramSearchCache.Freshness.EXPIRED) {
+                System.out.println("ARASAAC: Búsqueda completa en caché para '" + flight.fullCacheKey + "'");
+                flight.deliverSuccess(full.getPictograms());
+                return;
+            }
+        }
+        
+        PictogramSearchCache.Entry cached = searchCache.get(cacheKey);
+        PictogramSearchCache.Freshness freshness = cached != null ? searchCache.freshnessOf(cached) : null;
+        
+        if (freshness == PictogramSearchCache.Freshness.FRESH) {
+            System.out.println("ARASAAC: Resultado en caché para '" + cacheKey + "'");
+            flight.deliverSuccess(cached.getPictograms());
+            return;
+        }
+        
+        if (freshness == PictogramSearchCache.Freshness.STALE) {
+            // Stale-while-revalidate: responder ya con la caché y refrescar después
+            System.out.println("ARASAAC: Caché caducada para '" + cacheKey + "', revalidando");
+            flight.deliverSuccess(cached.getPictograms());
             try {
-                String encodedTerm = URLEncoder.encode(searchTerm, "UTF-8");
-                String urlString = SEARCH_URL + encodedTerm;
-                
-                // Debug: mostrar URL
-                System.out.println("ARASAAC URL: " + urlString);
-                
-                URL url = new URL(urlString);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("GET");
-                connection.setRequestProperty("User-Agent", "MiRutinaVisual/1.0");
-                connection.setConnectTimeout(10000); // 10 segundos
-                connection.setReadTimeout(15000); // 15 segundos
-                
-                int responseCode = connection.getResponseCode();
-                System.out.println("Response Code: " + responseCode);
-                
-                if (responseCode == HttpURLConnection.HTTP_OK) {
-                    BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(connection.getInputStream()));
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    
-                    while ((line = reader.readLine()) != null) {
-                        response.append(line);
+                fetchPictograms(flight, cached);
+            } catch (Exception e) {
+                System.out.println("ARASAAC: No se pudo revalidar '" + cacheKey + "': " + e.getMessage());
+            }
+            return;
+        }
+        
+        try {
+            List<Pictogram> pictograms = fetchPictograms(flight, cached);
+            flight.deliverSuccess(pictograms, !flight.partial);
+            
+        } catch (ServerException e) {
+            flight.deliverError("Error del servidor: " + e.getResponseCode());
+        } catch (IOException e) {
+            if (flight.cancelled) {
+                return;
+            }
+            if (cached != null) {
+                // Sin conexión: mejor un resultado antiguo que ninguno
+                System.out.println("ARASAAC: Sin conexión, usando caché expirada para '" + cacheKey + "'");
+                flight.deliverSuccess(cached.getPictograms());
+            } else if (e instanceof ResilientTransport.CircuitOpenException) {
+                flight.deliverError(e.getMessage());
+            } else {
+                flight.deliverError("Error de conexión: " + e.getMessage());
+            }
+        } catch (Exception e) {
+            flight.deliverError("Error inesperado: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Búsqueda paginada: el resultado completo queda en el PictogramPager y la pantalla pide
+     * páginas de {@link #PAGE_SIZE} a medida que se desplaza.
+     */
+    public SearchRequest searchPictogramsPaged(String searchTerm, SearchTier tier, PagedSearchCallback callback) {
+        return searchPictograms(searchTerm, tier, new PictogramSearchCallback() {
+            @Override
+            public void onSuccess(List<Pictogram> pictograms) {
+                onSuccess(pictograms, true);
+            }
+            
+            @Override
+            public void onSuccess(List<Pictogram> pictograms, boolean complete) {
+                callback.onSuccess(new PictogramPager(pictograms, PAGE_SIZE, complete));
+            }
+            
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+    
+    /**
+     * Resuelve el mejor pictograma de varios términos a la vez (p. ej. los pasos de una
+     * plantilla de rutina). Primero se mira el catálogo local y la caché en un solo recorrido;
+     * los que faltan se buscan como siempre, como mucho BATCH_PARALLELISM a la vez. El callback
+     * se llama una sola vez, en el hilo principal, cuando han terminado todos.
+     */
+    public void searchMany(List<String> terms, BatchSearchCallback callback) {
+        loadCatalog();
+        
+        List<String> uniqueTerms = new ArrayList<>();
+        for (String term : terms) {
+            String trimmed = term != null ? term.trim() : "";
+            if (!trimmed.isEmpty() && !uniqueTerms.contains(trimmed)) {
+                uniqueTerms.add(trimmed);
+            }
+        }
+        
+        try {
+            executorService.execute(() -> {
+                Map<String, Pictogram> resolved = new HashMap<>();
+                List<String> misses = new ArrayList<>();
+                for (String term : uniqueTerms) {
+                    Pictogram local = lookupLocal(term);
+                    if (local != null) {
+                        resolved.put(term, local);
+                    } else {
+                        misses.add(term);
+                    }
+                }
+                System.out.println("ARASAAC: Lote de " + uniqueTerms.size() + " términos, "
+                        + resolved.size() + " resueltos sin red");
+                mainHandler.post(() -> new BatchSearch(uniqueTerms, resolved, misses, callback).start());
+            });
+        } catch (RejectedExecutionException e) {
+            mainHandler.post(() -> new BatchSearch(uniqueTerms, new HashMap<>(), uniqueTerms, callback).start());
+        }
+    }
+    
+    // Mejor resultado sin red: catálogo local o caché todavía utilizable
+    private Pictogram lookupLocal(String term) {
+        List<String> locales = searchLocales;
+        PictogramCatalog localCatalog = catalog;
+        if (localCatalog != null && isPrimaryOnly(locales)) {
+            List<Pictogram> local = localCatalog.search(term, 1);
+            if (!local.isEmpty()) {
+                return local.get(0);
+            }
+        }
+        
+        for (SearchTier tier : SearchTier.values()) {
+            PictogramSearchCache.Entry cached = searchCache.get(cacheKeyFor(term, locales, tier));
+            if (cached != null && searchCache.freshnessOf(cached) != PictogramSearchCache.Freshness.EXPIRED) {
+                List<Pictogram> pictograms = cached.getPictograms();
+                if (!pictograms.isEmpty()) {
+                    return pictograms.get(0);
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Búsquedas pendientes de un lote. Vive en el hilo principal, igual que los callbacks.
+     */
+    private class BatchSearch {
+        private final List<String> terms;
+        private final Map<String, Pictogram> resolved;
+        private final ArrayDeque<String> pending;
+        private final BatchSearchCallback callback;
+        private int running = 0;
+        
+        BatchSearch(List<String> terms, Map<String, Pictogram> resolved, List<String> misses, BatchSearchCallback callback) {
+            this.terms = terms;
+            this.resolved = resolved;
+            this.pending = new ArrayDeque<>(misses);
+            this.callback = callback;
+        }
+        
+        void start() {
+            startNext();
+            if (running == 0) {
+                finish();
+            }
+        }
+        
+        private void startNext() {
+            while (running < BATCH_PARALLELISM && !pending.isEmpty()) {
+                String term = pending.poll();
+                running++;
+                // Solo hace falta el mejor pictograma: basta con bestsearch
+                startSearch(term, SearchTier.BEST, new PictogramSearchCallback() {
+                    @Override
+                    public void onSuccess(List<Pictogram> pictograms) {
+                        if (!pictograms.isEmpty()) {
+                            resolved.put(term, pictograms.get(0));
+                        }
+                        searchFinished();
                     }
-                    reader.close();
-                    
-                    String jsonResponse = response.toString();
-                    System.out.println("JSON Response: " + jsonResponse.substring(0, Math.min(200, jsonResponse.length())));
-                    
-                    List<Pictogram> pictograms = parsePictograms(jsonResponse);
-                    System.out.println("Pictograms found: " + pictograms.size());
-                    callback.onSuccess(pictograms);
                     
-                } else {
-                    callback.onError("Error del servidor: " + responseCode);
+                    @Override
+                    public void onError(String error) {
+                        System.out.println("ARASAAC: Sin pictograma para '" + term + "': " + error);
+                        searchFinished();
+                    }
+                }, false);
+            }
+        }
+        
+        private void searchFinished() {
+            running--;
+            startNext();
+            if (running == 0) {
+                finish();
+            }
+        }
+        
+        private void finish() {
+            Map<String, Pictogram> bestMatches = new LinkedHashMap<>();
+            for (String term : terms) {
+                Pictogram pictogram = resolved.get(term);
+                if (pictogram != null) {
+                    bestMatches.put(term, pictogram);
                 }
-                
-                connection.disconnect();
-                
-            } catch (IOException e) {
-                callback.onError("Error de conexión: " + e.getMessage());
-            } catch (Exception e) {
-                callback.onError("Error inesperado: " + e.getMessage());
             }
-        });
+            callback.onComplete(bestMatches);
+        }
+    }
+    
+    // Métricas de deduplicación: peticiones reales lanzadas y búsquedas que se unieron a una en curso
+    public long getStartedSearchCount() {
+        return startedSearches.get();
+    }
+    
+    public long getCoalescedSearchCount() {
+        return coalescedSearches.get();
+    }
+    
+    // Latencias y errores por endpoint; vacío si el transporte no los mide
+    public Map<String, ResilientTransport.EndpointStats> getEndpointStats() {
+        if (transport instanceof ResilientTransport) {
+            return ((ResilientTransport) transport).getEndpointStats();
+        }
+        return new HashMap<>();
     }
     
-    private List<Pictogram> parsePictograms(String jsonResponse) {
-        List<Pictogram> pictograms = new ArrayList<>();
+    /**
+     * Pide el término al servidor y guarda el resultado en la caché. Con un solo idioma, si hay
+     * una entrada previa la petición es condicional y un 304 la da por vigente sin descargar nada.
+     */
+    private List<Pictogram> fetchPictograms(SearchFlight flight, PictogramSearchCache.Entry cached) throws IOException {
+        List<Pictogram> pictograms = fetchTier(flight, flight.tier, flight.cacheKey, cached);
+        if (pictograms.isEmpty() && flight.tier == SearchTier.BEST) {
+            // bestsearch no tiene coincidencia exacta: se pasa a la búsqueda completa
+            System.out.println("ARASAAC: Sin coincidencia exacta para '" + flight.term + "', búsqueda completa");
+            pictograms = fetchTier(flight, SearchTier.FULL, flight.fullCacheKey, searchCache.get(flight.fullCacheKey));
+        }
+        return pictograms;
+    }
+    
+    private List<Pictogram> fetchTier(SearchFlight flight, SearchTier tier, String cacheKey,
+                                      PictogramSearchCache.Entry cached) throws IOException {
+        if (flight.locales.size() > 1) {
+            return fetchAllLocales(flight, tier, cacheKey);
+        }
+        return fetchLocale(flight, flight.locales.get(0), tier, cacheKey, cached);
+    }
+    
+    private List<Pictogram> fetchLocale(SearchFlight flight, String locale, SearchTier tier, String cacheKey,
+                                        PictogramSearchCache.Entry cached) throws IOException {
+        String encodedTerm = URLEncoder.encode(flight.term, "UTF-8");
+        String urlString = BASE_URL + "/" + locale + tier.path + encodedTerm;
+        
+        // Debug: mostrar URL
+        System.out.println("ARASAAC URL: " + urlString);
         
+        ArasaacTransport.Call call = transport.newCall(urlString,
+                cached != null ? cached.getEtag() : null,
+                cached != null ? cached.getLastModified() : null,
+                SEARCH_READ_TIMEOUT_MS);
+        flight.calls.add(call);
+        long start = System.currentTimeMillis();
         try {
-            JSONArray jsonArray = new JSONArray(jsonResponse);
-            
-            // Limitar a 12 resultados para no sobrecargar la interfaz
-            int maxResults = Math.min(jsonArray.length(), 12);
+            if (flight.cancelled) {
+                throw new IOException("Búsqueda cancelada");
+            }
             
-            for (int i = 0; i < maxResults; i++) {
-                JSONObject pictogramJson = jsonArray.getJSONObject(i);
+            try (ArasaacTransport.Response response = call.execute()) {
+                System.out.println("Response Code: " + response.getCode());
                 
-                int id = pictogramJson.getInt("_id");
+                if (response.isNotModified() && cached != null) {
+                    recordTier(tier, start, 0, false);
+                    searchCache.touch(cacheKey);
+                    return cached.getPictograms();
+                }
+                if (tier == SearchTier.BEST && response.getCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                    // bestsearch responde 404 cuando no hay coincidencia exacta
+                    recordTier(tier, start, 0, true);
+                    return new ArrayList<>();
+                }
+                if (response.getCode() != HttpURLConnection.HTTP_OK) {
+                    throw new ServerException(response.getCode());
+                }
                 
-                // Obtener keywords
-                List<String> keywords = new ArrayList<>();
-                if (pictogramJson.has("keywords")) {
-                    JSONArray keywordsArray = pictogramJson.getJSONArray("keywords");
-                    for (int j = 0; j < keywordsArray.length(); j++) {
-                        JSONObject keywordObj = keywordsArray.getJSONObject(j);
-                        if (keywordObj.has("keyword")) {
-                            keywords.add(keywordObj.getString("keyword"));
-                        }
+                // Lectura en streaming: se corta en cuanto hay MAX_RESULTS pictogramas
+                CountingInputStream body = new CountingInputStream(response.getBody());
+                Reader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                List<Pictogram> pictograms = PictogramResponseParser.parse(reader, MAX_RESULTS);
+                System.out.println("Pictograms found: " + pictograms.size());
+                recordTier(tier, start, body.getCount(), pictograms.isEmpty());
+                
+                // Solo se guardan validadores si la entrada corresponde a esta única respuesta.
+                // Un bestsearch vacío no se guarda: la próxima vez debe pasar a la búsqueda completa
+                if (flight.locales.size() == 1 && !(tier == SearchTier.BEST && pictograms.isEmpty())) {
+                    searchCache.put(cacheKey, pictograms, response.getEtag(), response.getLastModified());
+                }
+                return pictograms;
+            }
+        } finally {
+            flight.calls.remove(call);
+        }
+    }
+    
+    // Un idioma de la búsqueda múltiple: el español sale del catálogo local si lo tiene
+    private List<Pictogram> searchLocale(SearchFlight flight, String locale, SearchTier tier) throws IOException {
+        PictogramCatalog localCatalog = catalog;
+        if (PRIMARY_LOCALE.equals(locale) && localCatalog != null) {
+            List<Pictogram> local = localCatalog.search(flight.term, MAX_RESULTS);
+            if (!local.isEmpty()) {
+                return local;
+            }
+        }
+        return fetchLocale(flight, locale, tier, null, null);
+    }
+    
+    /**
+     * Busca en todos los idiomas a la vez y junta los resultados sin repetir ids, en el orden de
+     * los idiomas configurados. Pasado SEARCH_LATENCY_BUDGET_MS se responde con lo que haya
+     * llegado y se cancelan los idiomas que faltan; si aún no ha llegado ninguno, se espera al
+     * primero.
+     */
+    private List<Pictogram> fetchAllLocales(SearchFlight flight, SearchTier tier, String cacheKey) throws IOException {
+        CompletionService<List<Pictogram>> completion = new ExecutorCompletionService<>(localeExecutor);
+        Map<Future<List<Pictogram>>, String> localeOf = new HashMap<>();
+        for (String locale : flight.locales) {
+            try {
+                localeOf.put(completion.submit(() -> searchLocale(flight, locale, tier)), locale);
+            } catch (RejectedExecutionException e) {
+                System.out.println("ARASAAC: Sin hueco para buscar en '" + locale + "'");
+            }
+        }
+        if (localeOf.isEmpty()) {
+            throw new IOException("Demasiadas búsquedas en curso");
+        }
+        
+        Map<String, List<Pictogram>> arrived = new HashMap<>();
+        IOException firstError = null;
+        long deadline = System.currentTimeMillis() + SEARCH_LATENCY_BUDGET_MS;
+        int pending = localeOf.size();
+        try {
+            while (pending > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                Future<List<Pictogram>> done;
+                if (remaining > 0) {
+                    done = completion.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        continue;
+                    }
+                } else if (arrived.isEmpty()) {
+                    done = completion.poll(SEARCH_READ_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        break;
                     }
+                } else {
+                    break;
                 }
+                pending--;
                 
-                // Si no hay keywords, usar un placeholder
-                if (keywords.isEmpty()) {
-                    keywords.add("Pictograma " + id);
+                String locale = localeOf.get(done);
+                try {
+                    arrived.put(locale, done.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    IOException error = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                    System.out.println("ARASAAC: Falló la búsqueda en '" + locale + "': " + error.getMessage());
+                    if (firstError == null) {
+                        firstError = error;
+                    }
                 }
-                
-                Pictogram pictogram = new Pictogram(id, keywords);
-                pictograms.add(pictogram);
             }
-            
-        } catch (JSONException e) {
-            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Búsqueda interrumpida");
+        } finally {
+            // Los idiomas que no han llegado a tiempo se cortan
+            for (Future<List<Pictogram>> future : localeOf.keySet()) {
+                future.cancel(false);
+            }
+            flight.cancelCalls();
         }
         
-        return pictograms;
+        if (arrived.isEmpty()) {
+            throw firstError != null ? firstError : new IOException("Sin respuesta de ARASAAC");
+        }
+        
+        List<Pictogram> merged = new ArrayList<>();
+        Set<Integer> ids = new HashSet<>();
+        for (String locale : flight.locales) {
+            List<Pictogram> results = arrived.get(locale);
+            if (results == null) {
+                continue;
+            }
+            for (Pictogram pictogram : results) {
+                if (merged.size() < MAX_RESULTS && ids.add(pictogram.getId())) {
+                    merged.add(pictogram);
+                }
+            }
+        }
+        
+        // Un resultado parcial no se guarda (la próxima vez se vuelve a preguntar a todos) y se
+        // entrega marcado como incompleto
+        flight.partial = arrived.size() < flight.locales.size();
+        if (!flight.partial) {
+            if (!(tier == SearchTier.BEST && merged.isEmpty())) {
+                searchCache.put(cacheKey, merged);
+            }
+        } else {
+            System.out.println("ARASAAC: Respuesta parcial para '" + cacheKey + "' ("
+                    + arrived.keySet() + " de " + flight.locales + ")");
+        }
+        return merged;
     }
     
-    public void loadPictogramImage(Pictogram pictogram, ImageView imageView) {
-        if (pictogram != null && imageView != null) {
-            Glide.with(imageView.getContext())
-                    .load(pictogram.getImageUrl())
-                    .diskCacheStrategy(DiskCacheStrategy.ALL)
-                    .placeholder(R.drawable.ic_image_placeholder)
-                    .error(R.drawable.ic_image_error)
-                    .into(imageView);
+    // --- Idiomas de búsqueda ---
+    
+    public List<String> getSearchLocales() {
+        return searchLocales;
+    }
+    
+    /**
+     * Cambia los idiomas en los que se busca (códigos ISO de ARASAAC, p. ej. "es", "en", "ca").
+     * Los no soportados se ignoran y, si no queda ninguno, se busca solo en español.
+     */
+    public void setSearchLocales(List<String> locales) {
+        List<String> sanitized = sanitizeLocales(locales);
+        searchLocales = sanitized;
+        prefs.edit().putString(KEY_SEARCH_LOCALES, TextUtils.join(",", sanitized)).apply();
+    }
+    
+    private List<String> loadSearchLocales() {
+        String stored = prefs.getString(KEY_SEARCH_LOCALES, null);
+        if (stored != null) {
+            return sanitizeLocales(Arrays.asList(stored.split(",")));
+        }
+        // Por defecto solo español: así se usan el catálogo local y la revalidación con ETag.
+        // Los demás idiomas se añaden a propósito con setSearchLocales
+        return sanitizeLocales(Collections.singletonList(PRIMARY_LOCALE));
+    }
+    
+    private static List<String> sanitizeLocales(List<String> locales) {
+        List<String> sanitized = new ArrayList<>();
+        if (locales != null) {
+            for (String locale : locales) {
+                String code = locale != null ? locale.trim().toLowerCase(Locale.ROOT) : "";
+                if (SUPPORTED_LOCALES.contains(code) && !sanitized.contains(code)) {
+                    sanitized.add(code);
+                }
+            }
         }
+        if (sanitized.isEmpty()) {
+            sanitized.add(PRIMARY_LOCALE);
+        }
+        return Collections.unmodifiableList(sanitized);
+    }
+    
+    private static boolean isPrimaryOnly(List<String> locales) {
+        return locales.size() == 1 && PRIMARY_LOCALE.equals(locales.get(0));
+    }
+    
+    // Las búsquedas solo en español conservan la clave de siempre (y la caché ya guardada)
+    private static String cacheKeyFor(String searchTerm, List<String> locales, SearchTier tier) {
+        String key = PictogramSearchCache.normalize(searchTerm);
+        if (!isPrimaryOnly(locales)) {
+            key += "|" + TextUtils.join(",", locales);
+        }
+        return tier == SearchTier.BEST ? key + "#best" : key;
+    }
+    
+    // --- Estadísticas por nivel ---
+    
+    public Map<SearchTier, TierStats> getTierStats() {
+        return new EnumMap<>(tierStats);
+    }
+    
+    // Pool acotado de las búsquedas, compartido por todas las pantallas (para las pruebas)
+    ExecutorService getSearchExecutor() {
+        return executorService;
+    }
+    
+    private void recordTier(SearchTier tier, long startMillis, long bytes, boolean empty) {
+        tierStats.get(tier).record(System.currentTimeMillis() - startMillis, bytes, empty);
     }
     
-    public void shutdown() {
-        if (executorService != null) {
-            executorService.shutdown();
+    private static class CountingInputStream extends FilterInputStream {
+        private long count = 0;
+        
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+        
+        long getCount() {
+            return count;
+        }
+    }
+    
+    // Se llama en cuanto hay resultados, antes de que la rejilla enlace sus celdas
+    private void prefetchFirstPage(List<SearchRequest> requests, List<Pictogram> pictograms) {
+        if (pictograms.isEmpty()) {
+            return;
+        }
+        List<Pictogram> copy = new ArrayList<>(pictograms);
+        mainHandler.post(() -> {
+            for (SearchRequest request : requests) {
+                if (!request.isCancelled() && request.prefetchImages) {
+                    prefetcher.prefetch(copy, PAGE_SIZE);
+                    return;
+                }
+            }
+        });
+    }
+    
+    // Respuesta HTTP distinta de 200: no es un fallo de red, así que no se usa la caché
+    private static class ServerException extends IOException {
+        private final int responseCode;
+        
+        ServerException(int responseCode) {
+            super("HTTP " + responseCode);
+            this.responseCode = responseCode;
+        }
+        
+        int getResponseCode() {
+            return responseCode;
+        }
+    }
+    
+    public void loadPictogramImage(Pictogram pictogram, ImageView imageView) {
+        if (pictogram != null && imageView != null) {
+            PictogramImageLoader.load(imageView, pictogram.getId(),
+                    R.drawable.ic_image_placeholder, R.drawable.ic_image_error);
         }
     }
 }
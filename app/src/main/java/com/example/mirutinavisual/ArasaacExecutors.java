@@ -0,0 +1,45 @@
+package com.example.mirutinavisual;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool de hilos acotado para las peticiones a ARASAAC.
+ * El número de hilos depende de los núcleos del dispositivo, la cola tiene un tamaño máximo y
+ * los hilos ociosos se liberan solos, así que el pool no crece aunque se use durante horas.
+ */
+class ArasaacExecutors {
+
+    static final String THREAD_PREFIX = "arasaac-";
+    static final int MIN_THREADS = 2;
+    static final int MAX_THREADS = 4;
+    static final int QUEUE_CAPACITY = 32;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    static int threadCountFor(int availableProcessors) {
+        return Math.max(MIN_THREADS, Math.min(MAX_THREADS, availableProcessors));
+    }
+
+    static ThreadPoolExecutor newBoundedExecutor() {
+        return newBoundedExecutor(threadCountFor(Runtime.getRuntime().availableProcessors()),
+                QUEUE_CAPACITY, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    static ThreadPoolExecutor newBoundedExecutor(int threads, int queueCapacity, long keepAlive, TimeUnit unit) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, THREAD_PREFIX + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        // Si la cola se llena se lanza RejectedExecutionException y quien llama informa del error
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, keepAlive, unit,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.mirutinavisual;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Capa HTTP que usa ArasaacApiService. Permite cambiar la implementación (o simularla en las
+ * pruebas) sin tocar la lógica de búsqueda, caché y catálogo.
+ */
+public interface ArasaacTransport {
+
+    /**
+     * Prepara una petición GET. Si se pasan {@code etag} o {@code lastModified}, la petición es
+     * condicional y el servidor puede responder 304 sin cuerpo.
+     */
+    Call newCall(String url, String etag, String lastModified, int readTimeoutMs);
+
+    interface Call {
+        Response execute() throws IOException;
+
+        // Puede llamarse desde otro hilo; aborta la lectura en curso
+        void cancel();
+    }
+
+    class Response implements Closeable {
+        private final int code;
+        private final InputStream body;
+        private final String etag;
+        private final String lastModified;
+
+        public Response(int code, InputStream body, String etag, String lastModified) {
+            this.code = code;
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public boolean isNotModified() {
+            return code == 304;
+        }
+
+        // Cuerpo ya descomprimido; null si la respuesta no tiene cuerpo (304)
+        public InputStream getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (body != null) {
+                body.close();
+            }
+        }
+    }
+}
@@ -14,11 +14,6 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,9 +21,12 @@ import java.util.Locale;
 
 public class CaregiverModeActivity extends AppCompatActivity implements TextToSpeech.OnInitListener {
 
+    // Filas por delante cuyo pictograma se precarga al desplazarse
+    private static final int PRELOAD_WINDOW = 5;
+
     private TextToSpeech textToSpeech;
     private FirebaseAuth firebaseAuth;
-    private DatabaseReference databaseReference;
+    private ActivityStore activityStore;
     
     private ImageButton backButton;
     private TextView totalActivitiesText, completedActivitiesText, pendingActivitiesText;
@@ -45,7 +43,7 @@ public class CaregiverModeActivity extends AppCompatActivity implements TextToSp
         
         // Inicializar Firebase
         firebaseAuth = FirebaseAuth.getInstance();
-        databaseReference = FirebaseDatabase.getInstance().getReference();
+        activityStore = ActivityStore.getInstance();
         
         // Inicializar Text-to-Speech
         textToSpeech = new TextToSpeech(this, this);
@@ -105,6 +103,8 @@ public class CaregiverModeActivity extends AppCompatActivity implements TextToSp
         
         recentActivitiesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         recentActivitiesRecyclerView.setAdapter(recentActivitiesAdapter);
+        new PictogramListPreloader(recentActivitiesRecyclerView, recentActivitiesAdapter,
+                R.id.pictogramImageView, PRELOAD_WINDOW);
     }
 
     private void setupClickListeners() {
@@ -141,49 +141,41 @@ public class CaregiverModeActivity extends AppCompatActivity implements TextToSp
         
         String userId = firebaseAuth.getCurrentUser().getUid();
         
-        databaseReference.child("activities")
-                .orderByChild("userId")
-                .equalTo(userId)
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(DataSnapshot dataSnapshot) {
-                        int totalActivities = 0;
-                        int completedActivities = 0;
-                        int pendingActivities = 0;
-                        
-                        recentActivitiesList.clear();
-                        
-                        for (DataSnapshot activitySnapshot : dataSnapshot.getChildren()) {
-                            Activity activity = activitySnapshot.getValue(Activity.class);
-                            if (activity != null) {
-                                activity.setId(activitySnapshot.getKey());
-                                
-                                totalActivities++;
-                                if (activity.isCompleted()) {
-                                    completedActivities++;
-                                } else {
-                                    pendingActivities++;
-                                }
-                                
-                                // Agregar a la lista de actividades recientes (máximo 5)
-                                if (recentActivitiesList.size() < 5) {
-                                    recentActivitiesList.add(activity);
-                                }
-                            }
-                        }
-                        
-                        // Actualizar estadísticas en la UI
-                        updateStatisticsUI(totalActivities, completedActivities, pendingActivities);
-                        
-                        // Actualizar lista de actividades recientes
-                        recentActivitiesAdapter.notifyDataSetChanged();
+        ActivityRepository.getInstance().observe(this, userId, new ActivityRepository.Observer() {
+            @Override
+            public void onActivitiesChanged(List<Activity> activities) {
+                int totalActivities = 0;
+                int completedActivities = 0;
+                int pendingActivities = 0;
+                
+                recentActivitiesList.clear();
+                
+                for (Activity activity : activities) {
+                    totalActivities++;
+                    if (activity.isCompleted()) {
+                        completedActivities++;
+                    } else {
+                        pendingActivities++;
                     }
-
-                    @Override
-                    public void onCancelled(DatabaseError databaseError) {
-                        showToast("Error al cargar estadísticas: " + databaseError.getMessage());
+                    
+                    // Agregar a la lista de actividades recientes (máximo 5)
+                    if (recentActivitiesList.size() < 5) {
+                        recentActivitiesList.add(activity);
                     }
-                });
+                }
+                
+                // Actualizar estadísticas en la UI
+                updateStatisticsUI(totalActivities, completedActivities, pendingActivities);
+                
+                // Actualizar lista de actividades recientes
+                recentActivitiesAdapter.notifyDataSetChanged();
+            }
+
+            @Override
+            public void onError(String error) {
+                showToast("Error al cargar estadísticas: " + error);
+            }
+        });
     }
 
     private void updateStatisticsUI(int total, int completed, int pending) {
@@ -247,8 +239,7 @@ public class CaregiverModeActivity extends AppCompatActivity implements TextToSp
         
         builder.setPositiveButton("Eliminar", (dialog, which) -> {
             if (activity.getId() != null) {
-                databaseReference.child("activities").child(activity.getId())
-                        .removeValue()
+                activityStore.removeActivity(ActivityStore.currentUserId(), activity.getId())
                         .addOnSuccessListener(aVoid -> {
                             speakText("Actividad eliminada: " + activity.getName());
                             showToast("Actividad eliminada");
@@ -293,17 +284,53 @@ public class CaregiverModeActivity extends AppCompatActivity implements TextToSp
     private void showCaregiverSettings() {
         androidx.appcompat.app.AlertDialog.Builder builder = new androidx.appcompat.app.AlertDialog.Builder(this);
         builder.setTitle("Configuración del Cuidador");
+        // Cuánto de la rutina ha dejado preparado la precarga nocturna
+        String offlineSummary = RoutinePrefetchJobService.getReadinessSummary(this);
         builder.setMessage("Configuraciones disponibles:\n\n" +
                 "• Horarios de notificación\n" +
                 "• Frecuencia de recordatorios\n" +
                 "• Configuración de voz\n" +
                 "• Backup de datos\n" +
-                "• Modo sin conexión");
+                "• Modo sin conexión" + (offlineSummary != null ? ": " + offlineSummary : ""));
         
         builder.setPositiveButton("Entendido", null);
+        builder.setNeutralButton("Guardar métricas", (dialog, which) -> dumpImageMetrics());
+        builder.setNegativeButton("Pictogramas", (dialog, which) -> showPictogramColorDialog());
         builder.show();
     }
 
+    // Alto contraste, escala de grises o color del tema para todos los pictogramas de la app
+    private void showPictogramColorDialog() {
+        ThemeManager themeManager = new ThemeManager(this);
+        PictogramColorMode[] modes = PictogramColorMode.values();
+        String[] labels = new String[modes.length];
+        for (int i = 0; i < modes.length; i++) {
+            labels[i] = modes[i].getLabel();
+        }
+
+        androidx.appcompat.app.AlertDialog.Builder builder = new androidx.appcompat.app.AlertDialog.Builder(this);
+        builder.setTitle("Color de los pictogramas");
+        builder.setSingleChoiceItems(labels, themeManager.getPictogramColorMode().ordinal(), (dialog, which) -> {
+            themeManager.setPictogramColorMode(modes[which]);
+            recentActivitiesAdapter.notifyDataSetChanged();
+            dialog.dismiss();
+        });
+        builder.setNegativeButton("Cancelar", null);
+        builder.show();
+    }
+
+    // Vuelca las métricas de carga de imágenes de cada pantalla para poder analizarlas
+    private void dumpImageMetrics() {
+        java.io.File dir = getExternalFilesDir(null) != null ? getExternalFilesDir(null) : getFilesDir();
+        java.io.File file = new java.io.File(dir, "image_metrics.txt");
+        try {
+            ImagePipelineMetrics.getInstance().dumpTo(file);
+            showToast("Métricas guardadas en " + file.getAbsolutePath());
+        } catch (java.io.IOException e) {
+            showToast("Error al guardar las métricas: " + e.getMessage());
+        }
+    }
+
     private void showHelpDialog() {
         androidx.appcompat.app.AlertDialog.Builder builder = new androidx.appcompat.app.AlertDialog.Builder(this);
         builder.setTitle("Guía del Modo Cuidador");
@@ -5,9 +5,6 @@ import android.content.Context;
 import android.content.Intent;
 import android.widget.Toast;
 
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-
 public class CompleteActivityReceiver extends BroadcastReceiver {
     
     @Override
@@ -16,9 +13,8 @@ public class CompleteActivityReceiver extends BroadcastReceiver {
         
         if (activityId != null) {
             // Marcar actividad como completada en Firebase
-            DatabaseReference databaseReference = FirebaseDatabase.getInstance().getReference();
-            databaseReference.child("activities").child(activityId)
-                    .child("completed").setValue(true)
+            ActivityStore activityStore = ActivityStore.getInstance();
+            activityStore.setActivityField(ActivityStore.currentUserId(), activityId, "completed", true)
                     .addOnSuccessListener(aVoid -> {
                         Toast.makeText(context, "¡Actividad completada! 🎉", Toast.LENGTH_SHORT).show();
                     })
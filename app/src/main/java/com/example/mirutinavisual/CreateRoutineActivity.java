@@ -27,8 +27,6 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -38,9 +36,15 @@ import java.util.Map;
 
 public class CreateRoutineActivity extends AppCompatActivity implements TextToSpeech.OnInitListener {
 
+    // Paleta de pictogramas frecuentes: tres filas de la rejilla
+    private static final int MAX_FREQUENT_PICTOGRAMS = 9;
+    // Celdas por delante que se precargan: tres filas de la rejilla de pictogramas y dos pasos
+    private static final int PICTOGRAM_PRELOAD_WINDOW = 9;
+    private static final int STEP_PRELOAD_WINDOW = 2;
+    
     private TextToSpeech textToSpeech;
     private FirebaseAuth firebaseAuth;
-    private DatabaseReference databaseReference;
+    private ActivityStore activityStore;
     
     private ImageButton backButton;
     private EditText activityNameEditText, searchPictogramEditText;
@@ -59,6 +63,9 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
     private List<Pictogram> pictogramList;
     private Pictogram selectedPictogram;
     private ArasaacApiService arasaacService;
+    private IncrementalPictogramSearch incrementalSearch;
+    private PictogramGridPaging pictogramPaging;
+    private PictogramUsageTracker usageTracker;
     
     // Variables para modo edición
     private boolean isEditMode = false;
@@ -74,13 +81,14 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
         
         // Inicializar Firebase
         firebaseAuth = FirebaseAuth.getInstance();
-        databaseReference = FirebaseDatabase.getInstance().getReference();
+        activityStore = ActivityStore.getInstance();
         
         // Inicializar Text-to-Speech
         textToSpeech = new TextToSpeech(this, this);
         
         // Inicializar servicio ARASAAC
-        arasaacService = new ArasaacApiService();
+        arasaacService = ArasaacApiService.getInstance(this);
+        usageTracker = PictogramUsageTracker.getInstance(this);
         
         // Inicializar listas
         pictogramList = new ArrayList<>();
@@ -136,6 +144,12 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
         
         pictogramsRecyclerView.setLayoutManager(new GridLayoutManager(this, 3));
         pictogramsRecyclerView.setAdapter(pictogramAdapter);
+        new PictogramListPreloader(pictogramsRecyclerView, pictogramAdapter, R.id.pictogramImageView,
+                PICTOGRAM_PRELOAD_WINDOW);
+        pictogramPaging = new PictogramGridPaging(pictogramsRecyclerView, pictogramList, pictogramAdapter);
+        
+        // Antes de buscar nada, la rejilla muestra los pictogramas más usados
+        showFrequentPictograms();
         
         // Configurar RecyclerView de pasos
         setupStepsRecyclerView();
@@ -159,6 +173,7 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
         
         stepsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         stepsRecyclerView.setAdapter(stepAdapter);
+        new PictogramListPreloader(stepsRecyclerView, stepAdapter, R.id.stepImageView, STEP_PRELOAD_WINDOW);
         stepsRecyclerView.setNestedScrollingEnabled(false);
     }
     
@@ -210,53 +225,74 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
             }
         });
         
-        // Listener para agregar paso
-        addStepButton.setOnClickListener(v -> {
-            speakText("Agregar nuevo paso");
-            addStepDialog.showAddDialog();
-        });
-    }
+        // Búsqueda mientras se escribe
+        incrementalSearch = new IncrementalPictogramSearch(this, arasaacService, usageTracker, new IncrementalPictogramSearch.Listener() {
+            @Override
+            public void onSearchStarted(String term, boolean requestedByUser) {
+                searchButton.setText("Buscando...");
+            }
 
-    private void searchPictograms(String searchTerm) {
-        // Mostrar indicador de carga
-        searchButton.setEnabled(false);
-        searchButton.setText("Buscando...");
-        
-        // Buscar pictogramas usando ARASAAC API
-        arasaacService.searchPictograms(searchTerm, new ArasaacApiService.PictogramSearchCallback() {
             @Override
-            public void onSuccess(List<Pictogram> pictograms) {
-                runOnUiThread(() -> {
-                    pictogramList.clear();
-                    pictogramList.addAll(pictograms);
-                    pictogramAdapter.notifyDataSetChanged();
-                    
-                    searchButton.setEnabled(true);
-                    searchButton.setText("🔍 Buscar");
-                    
-                    if (pictograms.isEmpty()) {
-                        speakText("No se encontraron pictogramas. Intenta con otra palabra");
-                        showToast("No se encontraron resultados");
-                    } else {
-                        speakText("Se encontraron " + pictograms.size() + " pictogramas. Toca uno para seleccionarlo");
-                    }
-                });
+            public void onResults(String term, PictogramPager pager, boolean requestedByUser) {
+                showSearchResults(pager, requestedByUser);
             }
 
             @Override
-            public void onError(String error) {
-                runOnUiThread(() -> {
-                    searchButton.setEnabled(true);
-                    searchButton.setText("🔍 Buscar");
+            public void onError(String term, String error, boolean requestedByUser) {
+                searchButton.setText("🔍 Buscar");
+                if (requestedByUser) {
                     speakText("Error al buscar pictogramas. Verifica tu conexión a internet");
                     showToast("Error: " + error);
-                });
+                }
             }
+
+            @Override
+            public void onSearchCleared() {
+                searchButton.setText("🔍 Buscar");
+                showFrequentPictograms();
+            }
+        });
+        searchPictogramEditText.addTextChangedListener(incrementalSearch);
+        
+        // Listener para agregar paso
+        addStepButton.setOnClickListener(v -> {
+            speakText("Agregar nuevo paso");
+            addStepDialog.showAddDialog();
         });
     }
 
+    private void searchPictograms(String searchTerm) {
+        // Buscar pictogramas usando ARASAAC API (cancela cualquier búsqueda incremental en curso)
+        incrementalSearch.searchNow(searchTerm);
+    }
+    
+    private void showFrequentPictograms() {
+        List<Pictogram> frequent = usageTracker.getFrequentPictograms(MAX_FREQUENT_PICTOGRAMS);
+        pictogramPaging.show(new PictogramPager(frequent, ArasaacApiService.PAGE_SIZE));
+    }
+    
+    private void showSearchResults(PictogramPager pager, boolean requestedByUser) {
+        // Solo se muestra la primera página; el resto se añade al desplazarse
+        pictogramPaging.show(pager);
+        
+        searchButton.setText("🔍 Buscar");
+        
+        // Los resultados mientras se escribe no se anuncian para no interrumpir al usuario
+        if (!requestedByUser) {
+            return;
+        }
+        
+        if (pager.isEmpty()) {
+            speakText("No se encontraron pictogramas. Intenta con otra palabra");
+            showToast("No se encontraron resultados");
+        } else {
+            speakText("Se encontraron " + pager.getTotal() + " pictogramas. Toca uno para seleccionarlo");
+        }
+    }
+
     private void selectPictogram(Pictogram pictogram) {
         selectedPictogram = pictogram;
+        usageTracker.recordSelection(pictogram);
         
         // Mostrar pictograma seleccionado
         arasaacService.loadPictogramImage(pictogram, selectedPictogramImageView);
@@ -377,24 +413,8 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
         
         // *** AGREGAR PASOS PERSONALIZADOS ***
         if (!customStepsList.isEmpty()) {
-            activity.put("isSequence", true);
-            activity.put("totalSteps", customStepsList.size());
-            
             // Convertir pasos a Map para Firebase
-            List<Map<String, Object>> stepsMapList = new ArrayList<>();
-            for (SequenceStep step : customStepsList) {
-                Map<String, Object> stepMap = new HashMap<>();
-                stepMap.put("id", step.getId());
-                stepMap.put("name", step.getName());
-                stepMap.put("description", step.getDescription());
-                stepMap.put("pictogramId", step.getPictogramId());
-                stepMap.put("pictogramKeyword", step.getPictogramKeyword());
-                stepMap.put("stepNumber", step.getStepNumber());
-                stepMap.put("completed", step.isCompleted());
-                stepMap.put("audioText", step.getAudioText());
-                stepsMapList.add(stepMap);
-            }
-            activity.put("steps", stepsMapList);
+            activity.putAll(SequenceSteps.sequenceFields(customStepsList));
             
             System.out.println("GUARDAR: Agregando " + customStepsList.size() + " pasos personalizados a Firebase");
         } else {
@@ -414,8 +434,7 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
             activity.put("updatedAt", System.currentTimeMillis());
             saveActivityButton.setText("Actualizando...");
             
-            databaseReference.child("activities").child(activityId)
-                    .updateChildren(activity)
+            activityStore.updateActivity(ActivityStore.currentUserId(), activityId, activity)
                     .addOnSuccessListener(aVoid -> {
                         speakText("Actividad actualizada exitosamente");
                         showToast("¡Actividad actualizada!");
@@ -464,13 +483,12 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
                     });
         } else {
             // Modo creación - crear nueva actividad
-            activityId = databaseReference.child("activities").push().getKey();
+            activityId = activityStore.newActivityId();
             if (activityId != null) {
                 activity.put("id", activityId);
                 saveActivityButton.setText("Guardando...");
                 
-                databaseReference.child("activities").child(activityId)
-                        .setValue(activity)
+                activityStore.setActivity(ActivityStore.currentUserId(), activityId, activity)
                         .addOnSuccessListener(aVoid -> {
                             System.out.println("GUARDAR: Actividad guardada en Firebase exitosamente");
                             speakText("Actividad guardada exitosamente. Recordatorio programado");
@@ -581,8 +599,7 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
         if (editingActivityId != null) {
             System.out.println("EDIT: Cargando pasos existentes para actividad: " + editingActivityId);
             
-            databaseReference.child("activities").child(editingActivityId)
-                .get()
+            activityStore.readActivity(ActivityStore.currentUserId(), editingActivityId)
                 .addOnSuccessListener(dataSnapshot -> {
                     try {
                         if (dataSnapshot.exists()) {
@@ -765,12 +782,15 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
             if (activityName.toLowerCase().contains("vestir") || 
                 activityName.toLowerCase().contains("ropa")) {
                 createVestirseSequence(activity, pictogram);
+                resolveStepPictograms(activity);
             } else if (activityName.toLowerCase().contains("diente") || 
                        activityName.toLowerCase().contains("cepill")) {
                 createCepillarDientesSequence(activity, pictogram);
+                resolveStepPictograms(activity);
             } else if (activityName.toLowerCase().contains("desayun") || 
                        activityName.toLowerCase().contains("comer")) {
                 createDesayunarSequence(activity, pictogram);
+                resolveStepPictograms(activity);
             } else {
                 // Para otras actividades, crear secuencia simple
                 createSimpleSequence(activity, activityName, pictogram);
@@ -784,11 +804,35 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
         }
     }
     
+    /**
+     * Los pasos de las plantillas empiezan con el pictograma de la actividad; aquí se buscan
+     * todos sus pictogramas de una vez y, cuando llegan, la secuencia con el pictograma de cada
+     * paso se guarda en la actividad, que ya está en Firebase.
+     */
+    private void resolveStepPictograms(Activity activity) {
+        List<String> keywords = new ArrayList<>();
+        for (SequenceStep step : activity.getSteps()) {
+            keywords.add(step.getPictogramKeyword());
+        }
+        
+        // El servicio y el almacén viven más que la pantalla, que se cierra justo después de guardar
+        ActivityStore store = activityStore;
+        String userId = ActivityStore.currentUserId();
+        arasaacService.searchMany(keywords, bestMatches -> {
+            SequenceSteps.applyPictograms(activity.getSteps(), bestMatches);
+            System.out.println("CREAR_SECUENCIA: " + bestMatches.size() + " de " + keywords.size()
+                    + " pasos con pictograma propio");
+            store.updateActivity(userId, activity.getId(), SequenceSteps.sequenceFields(activity.getSteps()))
+                    .addOnFailureListener(e -> System.out.println(
+                            "CREAR_SECUENCIA: Error al guardar los pasos: " + e.getMessage()));
+        });
+    }
+    
     private void createVestirseSequence(Activity activity, Pictogram pictogram) {
         activity.setSequence(true);
         
         SequenceStep step1 = new SequenceStep("step_1", "Ropa interior", 
-            "Ponte la ropa interior", pictogram.getId(), "ropa", 1);
+            "Ponte la ropa interior", pictogram.getId(), "ropa interior", 1);
         
         SequenceStep step2 = new SequenceStep("step_2", "Camiseta", 
             "Ponte la camiseta", pictogram.getId(), "camiseta", 2);
@@ -812,7 +856,7 @@ public class CreateRoutineActivity extends AppCompatActivity implements TextToSp
             "Toma tu cepillo de dientes", pictogram.getId(), "cepillo", 1);
             
         SequenceStep step2 = new SequenceStep("step_2", "Pasta dental", 
-            "Pon pasta dental en el cepillo", pictogram.getId(), "pasta", 2);
+            "Pon pasta dental en el cepillo", pictogram.getId(), "pasta de dientes", 2);
             
         SequenceStep step3 = new SequenceStep("step_3", "Cepillar", 
             "Cepilla tus dientes por 2 minutos", pictogram.getId(), "cepillar", 3);
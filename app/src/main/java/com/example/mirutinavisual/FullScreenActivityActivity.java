@@ -12,16 +12,12 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.bumptech.glide.Glide;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-
 import java.util.Locale;
 
 public class FullScreenActivityActivity extends AppCompatActivity implements TextToSpeech.OnInitListener {
 
     private TextToSpeech textToSpeech;
-    private DatabaseReference databaseReference;
+    private ActivityStore activityStore;
     
     private ImageView activityImageView;
     private TextView activityNameText, instructionText;
@@ -41,7 +37,7 @@ public class FullScreenActivityActivity extends AppCompatActivity implements Tex
         setContentView(R.layout.activity_fullscreen_activity);
         
         // Inicializar Firebase
-        databaseReference = FirebaseDatabase.getInstance().getReference();
+        activityStore = ActivityStore.getInstance();
         
         // Inicializar Text-to-Speech
         textToSpeech = new TextToSpeech(this, this);
@@ -145,16 +141,8 @@ public class FullScreenActivityActivity extends AppCompatActivity implements Tex
         instructionText.setText("¡Es hora de realizar esta actividad!");
         
         // Cargar pictograma
-        if (pictogramId > 0) {
-            String pictogramUrl = "https://api.arasaac.org/api/pictograms/" + pictogramId + "?download=false";
-            Glide.with(this)
-                    .load(pictogramUrl)
-                    .placeholder(R.drawable.ic_image_placeholder)
-                    .error(R.drawable.ic_image_error)
-                    .into(activityImageView);
-        } else {
-            activityImageView.setImageResource(R.drawable.ic_image_placeholder);
-        }
+        PictogramImageLoader.load(activityImageView, pictogramId,
+                R.drawable.ic_image_placeholder, R.drawable.ic_image_error);
         
         // Mensaje de voz automático después de 1 segundo
         activityImageView.postDelayed(() -> {
@@ -164,8 +152,7 @@ public class FullScreenActivityActivity extends AppCompatActivity implements Tex
 
     private void markAsCompleted() {
         if (!activityId.equals("unknown")) {
-            databaseReference.child("activities").child(activityId)
-                    .child("completed").setValue(true)
+            activityStore.setActivityField(ActivityStore.currentUserId(), activityId, "completed", true)
                     .addOnSuccessListener(aVoid -> {
                         showToast("¡Actividad completada! 🎉");
                         goToTodayRoutine();
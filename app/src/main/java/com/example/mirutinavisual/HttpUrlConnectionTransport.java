@@ -0,0 +1,193 @@
+package com.example.mirutinavisual;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Transporte basado en HttpURLConnection.
+ * - Pide las respuestas comprimidas con gzip y las descomprime.
+ * - Envía If-None-Match / If-Modified-Since para revalidar con 304.
+ * - No llama a disconnect() al terminar: cerrar el cuerpo devuelve la conexión al pool de
+ *   keep-alive y la siguiente búsqueda se ahorra el handshake TCP/TLS.
+ * - Si quien lee deja el cuerpo a medias (el parser se detiene al llegar al máximo de
+ *   resultados), al cerrarlo se descarta lo que queda hasta {@link #MAX_DRAIN_BYTES} para que la
+ *   conexión se pueda reutilizar; si queda más, es más barato perderla que seguir descargando.
+ */
+public class HttpUrlConnectionTransport implements ArasaacTransport {
+
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final String USER_AGENT = "MiRutinaVisual/1.0";
+    // Bytes por la red (comprimidos) que se aceptan descargar solo para conservar la conexión
+    static final int MAX_DRAIN_BYTES = 16 * 1024;
+
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong notModifiedResponses = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    @Override
+    public Call newCall(String url, String etag, String lastModified, int readTimeoutMs) {
+        return new UrlConnectionCall(url, etag, lastModified, readTimeoutMs);
+    }
+
+    // Peticiones enviadas al servidor (incluidas las que acaban en 304)
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    public long getNotModifiedResponses() {
+        return notModifiedResponses.get();
+    }
+
+    // Bytes recibidos por la red, antes de descomprimir
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    private class UrlConnectionCall implements Call {
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final int readTimeoutMs;
+        private volatile HttpURLConnection connection;
+        private volatile boolean cancelled = false;
+
+        UrlConnectionCall(String url, String etag, String lastModified, int readTimeoutMs) {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.readTimeoutMs = readTimeoutMs;
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            if (cancelled) {
+                throw new IOException("Petición cancelada");
+            }
+
+            HttpURLConnection urlConnection = (HttpURLConnection) new URL(url).openConnection();
+            connection = urlConnection;
+            try {
+                urlConnection.setRequestMethod("GET");
+                urlConnection.setRequestProperty("User-Agent", USER_AGENT);
+                // Al pedir gzip explícitamente también hay que descomprimir a mano (ver abajo)
+                urlConnection.setRequestProperty("Accept-Encoding", "gzip");
+                urlConnection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+                urlConnection.setReadTimeout(readTimeoutMs);
+                if (etag != null) {
+                    urlConnection.setRequestProperty("If-None-Match", etag);
+                }
+                if (lastModified != null) {
+                    urlConnection.setRequestProperty("If-Modified-Since", lastModified);
+                }
+
+                int code = urlConnection.getResponseCode();
+                roundTrips.incrementAndGet();
+                String responseEtag = urlConnection.getHeaderField("ETag");
+                String responseLastModified = urlConnection.getHeaderField("Last-Modified");
+
+                if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    notModifiedResponses.incrementAndGet();
+                    return new Response(code, null, responseEtag, responseLastModified);
+                }
+                if (code != HttpURLConnection.HTTP_OK) {
+                    // Se vacía el cuerpo de error para poder reutilizar la conexión
+                    drainQuietly(urlConnection.getErrorStream());
+                    return new Response(code, null, responseEtag, responseLastModified);
+                }
+
+                InputStream raw = new CountingInputStream(urlConnection.getInputStream());
+                InputStream body = raw;
+                if ("gzip".equalsIgnoreCase(urlConnection.getContentEncoding())) {
+                    body = new GZIPInputStream(raw);
+                }
+                return new Response(code, new DrainOnCloseInputStream(body, raw), responseEtag, responseLastModified);
+
+            } catch (IOException e) {
+                urlConnection.disconnect();
+                throw e;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            HttpURLConnection active = connection;
+            if (active != null) {
+                // disconnect() desde otro hilo aborta la lectura bloqueada con una IOException
+                active.disconnect();
+            }
+        }
+    }
+
+    private static void drainQuietly(InputStream stream) {
+        if (stream == null) {
+            return;
+        }
+        try (InputStream in = stream) {
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) != -1) {
+                // descartar
+            }
+        } catch (IOException ignored) {
+            // La conexión simplemente no se reutilizará
+        }
+    }
+
+    /**
+     * Al cerrar, vacía lo que queda del cuerpo en la red (sin descomprimirlo) hasta
+     * {@link #MAX_DRAIN_BYTES} antes de cerrarlo.
+     */
+    private static class DrainOnCloseInputStream extends FilterInputStream {
+        private final InputStream raw;
+
+        DrainOnCloseInputStream(InputStream body, InputStream raw) {
+            super(body);
+            this.raw = raw;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                byte[] buffer = new byte[1024];
+                long remaining = MAX_DRAIN_BYTES;
+                int read;
+                while (remaining > 0
+                        && (read = raw.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                    remaining -= read;
+                }
+            } catch (IOException ignored) {
+                // La conexión simplemente no se reutilizará
+            }
+            super.close();
+        }
+    }
+
+    private class CountingInputStream extends FilterInputStream {
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                bytesReceived.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                bytesReceived.addAndGet(read);
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.mirutinavisual;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contadores de las cargas de imágenes de una pantalla: de dónde salió cada imagen, bytes
+ * descargados, tiempo de decodificación y tiempo hasta mostrarla.
+ */
+public class ImageLoadStats {
+
+    public enum Source {
+        MEMORY,
+        DISK,
+        // Paquete local de pictogramas o archivo del dispositivo
+        LOCAL,
+        NETWORK
+    }
+
+    private final AtomicLongArray loadsBySource = new AtomicLongArray(Source.values().length);
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong bytesFetched = new AtomicLong();
+    private final LatencyHistogram timeToFirstPixel = new LatencyHistogram();
+    private final LatencyHistogram decodeTime = new LatencyHistogram();
+
+    /**
+     * @param bytes bytes leídos de la red o del paquete, o -1 si no se conocen
+     * @param decodeMs tiempo desde que llegaron los datos hasta tener la imagen, o -1 si no se conoce
+     */
+    public void recordLoad(Source source, long timeToFirstPixelMs, long bytes, long decodeMs) {
+        loadsBySource.incrementAndGet(source.ordinal());
+        timeToFirstPixel.record(timeToFirstPixelMs);
+        if (bytes > 0) {
+            bytesFetched.addAndGet(bytes);
+        }
+        if (decodeMs >= 0) {
+            decodeTime.record(decodeMs);
+        }
+    }
+
+    public void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    public long getLoads(Source source) {
+        return loadsBySource.get(source.ordinal());
+    }
+
+    public long getTotalLoads() {
+        long total = 0;
+        for (Source source : Source.values()) {
+            total += getLoads(source);
+        }
+        return total;
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getBytesFetched() {
+        return bytesFetched.get();
+    }
+
+    // Proporción de cargas que no necesitaron red (0-1)
+    public double getCacheHitRatio() {
+        long total = getTotalLoads();
+        return total > 0 ? (double) (total - getLoads(Source.NETWORK)) / total : 0;
+    }
+
+    public LatencyHistogram getTimeToFirstPixel() {
+        return timeToFirstPixel;
+    }
+
+    public LatencyHistogram getDecodeTime() {
+        return decodeTime;
+    }
+
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("  cargas=").append(getTotalLoads());
+        for (Source source : Source.values()) {
+            builder.append(' ').append(source.name().toLowerCase()).append('=').append(getLoads(source));
+        }
+        builder.append(" fallos=").append(getFailures())
+                .append(" aciertos_cache=").append(Math.round(getCacheHitRatio() * 100)).append('%')
+                .append(" bytes=").append(getBytesFetched()).append('\n')
+                .append("  primer_pixel ").append(timeToFirstPixel.format()).append('\n')
+                .append("  decodificacion ").append(decodeTime.format()).append('\n');
+        return builder.toString();
+    }
+}
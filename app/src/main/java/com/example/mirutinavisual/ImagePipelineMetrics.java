@@ -0,0 +1,213 @@
+package com.example.mirutinavisual;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Métricas de las cargas de pictogramas, agrupadas por pantalla.
+ * Cada petición de {@link PictogramImageLoader} lleva un listener que anota de dónde salió la
+ * imagen (memoria, disco, paquete local o red) y cuánto tardó en mostrarse. Los cargadores de
+ * pictogramas avisan cuando llegan los datos, con lo que se calculan los bytes leídos y el tiempo
+ * de decodificación. Se puede volcar todo a un archivo de texto con {@link #dumpTo(File)}.
+ */
+public class ImagePipelineMetrics {
+
+    // Peticiones de precarga, que no pertenecen a ninguna pantalla
+    static final String PRELOAD_SCREEN = "Precarga";
+    private static final int MAX_PENDING_FETCHES = 256;
+
+    private static final ImagePipelineMetrics instance = new ImagePipelineMetrics();
+
+    private final ConcurrentHashMap<String, ImageLoadStats> statsByScreen = new ConcurrentHashMap<>();
+    // Datos recibidos que todavía no han llegado al listener de su petición, por modelo
+    private final Map<Object, Fetch> pendingFetches = new ConcurrentHashMap<>();
+
+    private static class Fetch {
+        final long dataReadyAt;
+        final CountingInputStream stream;
+        final long bytes;
+
+        Fetch(long dataReadyAt, CountingInputStream stream, long bytes) {
+            this.dataReadyAt = dataReadyAt;
+            this.stream = stream;
+            this.bytes = bytes;
+        }
+
+        long getBytes() {
+            return stream != null ? stream.count : bytes;
+        }
+    }
+
+    public static ImagePipelineMetrics getInstance() {
+        return instance;
+    }
+
+    public ImageLoadStats getStats(String screen) {
+        return statsByScreen.computeIfAbsent(screen, key -> new ImageLoadStats());
+    }
+
+    /**
+     * Nombre de la pantalla a la que pertenece una vista (la Activity que la contiene).
+     */
+    static String screenOf(Context context) {
+        Context current = context;
+        while (current instanceof ContextWrapper) {
+            if (current instanceof android.app.Activity) {
+                return current.getClass().getSimpleName();
+            }
+            current = ((ContextWrapper) current).getBaseContext();
+        }
+        return context.getClass().getSimpleName();
+    }
+
+    /**
+     * Listener para una petición; el tiempo hasta el primer píxel se cuenta desde aquí.
+     */
+    public <T> RequestListener<T> listenerFor(String screen) {
+        return new MetricsListener<>(getStats(screen), SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Lo llama el cargador de red: devuelve el flujo que hay que entregar a Glide, que cuenta
+     * los bytes que se leen de él.
+     */
+    InputStream onNetworkDataReady(Object model, InputStream data) {
+        CountingInputStream counting = new CountingInputStream(data);
+        putPending(model, new Fetch(SystemClock.elapsedRealtime(), counting, -1));
+        return counting;
+    }
+
+    /**
+     * Lo llama el cargador del paquete local al entregar una imagen.
+     */
+    void onLocalDataReady(Object model, long bytes) {
+        putPending(model, new Fetch(SystemClock.elapsedRealtime(), null, bytes));
+    }
+
+    private void putPending(Object model, Fetch fetch) {
+        // Si alguna petición se canceló antes de llegar al listener, su entrada se queda; se limpia entera
+        if (pendingFetches.size() >= MAX_PENDING_FETCHES) {
+            pendingFetches.clear();
+        }
+        pendingFetches.put(model, fetch);
+    }
+
+    public synchronized void dumpTo(File file) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("Métricas de imágenes - "
+                    + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date()) + "\n");
+            for (Map.Entry<String, ImageLoadStats> entry : new TreeMap<>(statsByScreen).entrySet()) {
+                writer.write(entry.getKey() + "\n");
+                writer.write(entry.getValue().format());
+            }
+        }
+        System.out.println("IMAGE_METRICS: Métricas guardadas en " + file.getAbsolutePath());
+    }
+
+    private static ImageLoadStats.Source sourceOf(DataSource dataSource) {
+        switch (dataSource) {
+            case MEMORY_CACHE:
+                return ImageLoadStats.Source.MEMORY;
+            case DATA_DISK_CACHE:
+            case RESOURCE_DISK_CACHE:
+                return ImageLoadStats.Source.DISK;
+            case LOCAL:
+                return ImageLoadStats.Source.LOCAL;
+            default:
+                return ImageLoadStats.Source.NETWORK;
+        }
+    }
+
+    private class MetricsListener<T> implements RequestListener<T> {
+
+        private final ImageLoadStats stats;
+        private final long startedAt;
+
+        MetricsListener(ImageLoadStats stats, long startedAt) {
+            this.stats = stats;
+            this.startedAt = startedAt;
+        }
+
+        @Override
+        public boolean onResourceReady(@NonNull T resource, @NonNull Object model, Target<T> target,
+                                       @NonNull DataSource dataSource, boolean isFirstResource) {
+            long now = SystemClock.elapsedRealtime();
+            ImageLoadStats.Source source = sourceOf(dataSource);
+            long bytes = -1;
+            long decodeMs = -1;
+            if (source == ImageLoadStats.Source.NETWORK || source == ImageLoadStats.Source.LOCAL) {
+                Fetch fetch = pendingFetches.remove(model);
+                if (fetch != null) {
+                    bytes = fetch.getBytes();
+                    decodeMs = now - fetch.dataReadyAt;
+                }
+            }
+            stats.recordLoad(source, now - startedAt, bytes, decodeMs);
+            return false;
+        }
+
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model, @NonNull Target<T> target,
+                                    boolean isFirstResource) {
+            if (model != null) {
+                pendingFetches.remove(model);
+            }
+            stats.recordFailure();
+            return false;
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        // Sin mark/reset Glide pone su propio buffer delante y cada byte se cuenta una sola vez
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.mirutinavisual;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Búsqueda de pictogramas mientras se escribe.
+ * Espera a que el usuario deje de teclear, cancela la búsqueda anterior si el término ha
+ * cambiado y, cuando el nuevo término amplía uno ya buscado con resultados completos, filtra
+ * esos resultados en local en vez de volver a llamar a ARASAAC. Todo se cancela al destruirse la pantalla o el diálogo.
+ * Los pictogramas del historial de uso que encajan con el término se muestran al instante y
+ * van delante de los resultados de la búsqueda.
+ */
+public class IncrementalPictogramSearch implements TextWatcher, DefaultLifecycleObserver {
+
+    public interface Listener {
+        void onSearchStarted(String term, boolean requestedByUser);
+        void onResults(String term, PictogramPager pager, boolean requestedByUser);
+        void onError(String term, String error, boolean requestedByUser);
+        // El término es demasiado corto para buscar (p. ej. se ha borrado el texto)
+        void onSearchCleared();
+    }
+
+    private static final long DEBOUNCE_MS = 350;
+    public static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_HISTORY_SUGGESTIONS = 6;
+
+    private final ArasaacApiService arasaacService;
+    private final PictogramUsageTracker usageTracker;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ArasaacApiService.SearchRequest currentRequest;
+    private Runnable pendingSearch;
+
+    // Últimos resultados de una búsqueda real (no filtrados en local); null si estaban incompletos
+    private SearchBaseResults base;
+
+    public IncrementalPictogramSearch(LifecycleOwner owner, ArasaacApiService arasaacService,
+                                      PictogramUsageTracker usageTracker, Listener listener) {
+        this.arasaacService = arasaacService;
+        this.usageTracker = usageTracker;
+        this.listener = listener;
+        owner.getLifecycle().addObserver(this);
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+        release();
+    }
+
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+    }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+        cancelPending();
+
+        String term = s.toString().trim();
+        String normalized = PictogramSearchCache.normalize(term);
+        if (normalized.length() < MIN_TERM_LENGTH) {
+            cancelCurrent();
+            listener.onSearchCleared();
+            return;
+        }
+
+        // Si el término amplía el de la última búsqueda, basta con filtrar lo que ya tenemos
+        if (base != null) {
+            List<Pictogram> narrowed = base.narrow(normalized);
+            if (narrowed != null && !narrowed.isEmpty()) {
+                cancelCurrent();
+                listener.onResults(term, withHistory(term, narrowed), false);
+                return;
+            }
+        }
+
+        // Mientras llega la búsqueda, lo que ya se ha usado antes aparece sin esperar a la red
+        List<Pictogram> suggestions = usageTracker.suggest(term, MAX_HISTORY_SUGGESTIONS);
+        if (!suggestions.isEmpty()) {
+            listener.onResults(term, new PictogramPager(suggestions, ArasaacApiService.PAGE_SIZE), false);
+        }
+
+        pendingSearch = () -> {
+            pendingSearch = null;
+            startSearch(term, false);
+        };
+        mainHandler.postDelayed(pendingSearch, DEBOUNCE_MS);
+    }
+
+    /**
+     * Búsqueda explícita (botón buscar): sin espera, siempre contra el servicio y con todas las
+     * opciones, no solo las coincidencias exactas.
+     */
+    public void searchNow(String term) {
+        cancelPending();
+        startSearch(term.trim(), true);
+    }
+
+    /**
+     * Cancela todo lo pendiente. Se llama sola al destruirse la pantalla o el diálogo.
+     */
+    public void release() {
+        cancelPending();
+        cancelCurrent();
+    }
+
+    private void startSearch(String term, boolean requestedByUser) {
+        cancelCurrent();
+        listener.onSearchStarted(term, requestedByUser);
+
+        String normalized = PictogramSearchCache.normalize(term);
+        // El servicio entrega los callbacks en el hilo principal y nunca los de una búsqueda cancelada
+        // Mientras se escribe basta con las coincidencias exactas (bestsearch); el botón buscar pide
+        // la búsqueda completa con todas las opciones
+        ArasaacApiService.SearchTier tier = requestedByUser
+                ? ArasaacApiService.SearchTier.FULL : ArasaacApiService.SearchTier.BEST;
+        currentRequest = arasaacService.searchPictogramsPaged(term, tier, new ArasaacApiService.PagedSearchCallback() {
+            @Override
+            public void onSuccess(PictogramPager pager) {
+                currentRequest = null;
+                // Los resultados de bestsearch son solo las coincidencias exactas y los de una
+                // búsqueda en varios idiomas cortada por tiempo no los tienen todos: no sirven de base
+                base = SearchBaseResults.from(normalized, pager.getAllResults(),
+                        tier == ArasaacApiService.SearchTier.FULL && pager.isComplete(),
+                        ArasaacApiService.MAX_RESULTS);
+                listener.onResults(term, withHistory(term, pager.getAllResults()), requestedByUser);
+            }
+
+            @Override
+            public void onError(String error) {
+                currentRequest = null;
+                listener.onError(term, error, requestedByUser);
+            }
+        });
+    }
+
+    // Sugerencias del historial primero y, detrás, los resultados que no estén ya entre ellas
+    private PictogramPager withHistory(String term, List<Pictogram> results) {
+        List<Pictogram> merged = new ArrayList<>(usageTracker.suggest(term, MAX_HISTORY_SUGGESTIONS));
+        Set<Integer> ids = new HashSet<>();
+        for (Pictogram pictogram : merged) {
+            ids.add(pictogram.getId());
+        }
+        for (Pictogram pictogram : results) {
+            if (ids.add(pictogram.getId())) {
+                merged.add(pictogram);
+            }
+        }
+        return new PictogramPager(merged, ArasaacApiService.PAGE_SIZE);
+    }
+
+    private void cancelPending() {
+        if (pendingSearch != null) {
+            mainHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+    }
+
+    private void cancelCurrent() {
+        if (currentRequest != null) {
+            currentRequest.cancel();
+            currentRequest = null;
+        }
+    }
+}
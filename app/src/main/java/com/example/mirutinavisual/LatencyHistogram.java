@@ -0,0 +1,90 @@
+package com.example.mirutinavisual;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de tiempos con cubetas de potencias de dos (0-1 ms, 1-2 ms, 2-4 ms... hasta ~32 s).
+ * Registrar un valor es un incremento atómico, sin bloqueos ni memoria nueva, así se puede
+ * llamar en cada carga de imagen.
+ */
+public class LatencyHistogram {
+
+    static final int BUCKETS = 16;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumMs = new AtomicLong();
+
+    public void record(long valueMs) {
+        counts.incrementAndGet(bucketFor(valueMs));
+        total.incrementAndGet();
+        sumMs.addAndGet(Math.max(0, valueMs));
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getAverageMs() {
+        long count = total.get();
+        return count > 0 ? sumMs.get() / count : 0;
+    }
+
+    /**
+     * Límite superior de la cubeta donde cae el percentil pedido (0-100), o 0 si no hay datos.
+     */
+    public long getPercentileMs(int percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long threshold = Math.max(1, (count * percentile + 99) / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= threshold) {
+                return upperBoundMs(i);
+            }
+        }
+        return upperBoundMs(BUCKETS - 1);
+    }
+
+    public long getBucketCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    static int bucketFor(long valueMs) {
+        if (valueMs < 1) {
+            return 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(valueMs);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    static long upperBoundMs(int bucket) {
+        return 1L << bucket;
+    }
+
+    // p. ej. "n=12 media=85ms p50=64ms p95=256ms [<1:0 <2:1 ...]"
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("n=").append(getCount())
+                .append(" media=").append(getAverageMs()).append("ms")
+                .append(" p50=").append(getPercentileMs(50)).append("ms")
+                .append(" p95=").append(getPercentileMs(95)).append("ms [");
+        boolean first = true;
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount == 0) {
+                continue;
+            }
+            if (!first) {
+                builder.append(' ');
+            }
+            builder.append('<').append(upperBoundMs(i)).append(':').append(bucketCount);
+            first = false;
+        }
+        return builder.append(']').toString();
+    }
+}
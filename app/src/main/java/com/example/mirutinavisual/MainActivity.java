@@ -61,6 +61,15 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
         // Cargar datos del usuario
         loadUserData();
         
+        // Dejar preparados por la noche los pictogramas de la rutina para usarlos sin conexión
+        RoutinePrefetchJobService.schedule(this);
+        
+        // La primera vez que entra cada usuario se pasan sus actividades a su propio subárbol
+        if (firebaseAuth.getCurrentUser() != null) {
+            ActivityMigration.getInstance().ensureMigrated(userId, migrated ->
+                    System.out.println("MAIN: Actividades " + (migrated ? "en el subárbol del usuario" : "en el nodo global")));
+        }
+        
         ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.main), (v, insets) -> {
             Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
             v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
@@ -204,6 +213,9 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
             welcomeText.setText("¡Hola!");
             userNameText.setText("Configura tu perfil");
         }
+        
+        // Avatar: la misma miniatura ya guardada que muestra el perfil
+        ProfileAvatarManager.getInstance(this).loadInto(sharedPreferences, profileImage, R.drawable.ic_person);
     }
 
     @Override
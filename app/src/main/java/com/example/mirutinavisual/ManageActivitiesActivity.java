@@ -15,22 +15,19 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
 public class ManageActivitiesActivity extends AppCompatActivity implements TextToSpeech.OnInitListener {
 
+    // Filas por delante cuyo pictograma se precarga; la lista de gestión puede ser larga
+    private static final int PRELOAD_WINDOW = 8;
+
     private TextToSpeech textToSpeech;
     private FirebaseAuth firebaseAuth;
-    private DatabaseReference databaseReference;
+    private ActivityStore activityStore;
     
     private ImageButton backButton;
     private LinearLayout emptyStateText;
@@ -50,7 +47,7 @@ public class ManageActivitiesActivity extends AppCompatActivity implements TextT
             
             // Inicializar Firebase
             firebaseAuth = FirebaseAuth.getInstance();
-            databaseReference = FirebaseDatabase.getInstance().getReference();
+            activityStore = ActivityStore.getInstance();
             
             // Inicializar Text-to-Speech
             textToSpeech = new TextToSpeech(this, this);
@@ -132,6 +129,7 @@ public class ManageActivitiesActivity extends AppCompatActivity implements TextT
             });
             
             activitiesRecyclerView.setAdapter(activityAdapter);
+            new PictogramListPreloader(activitiesRecyclerView, activityAdapter, R.id.pictogramImageView, PRELOAD_WINDOW);
             
         } catch (Exception e) {
             showToast("Error RecyclerView: " + e.getMessage());
@@ -177,63 +175,49 @@ public class ManageActivitiesActivity extends AppCompatActivity implements TextT
 
             String userId = firebaseAuth.getCurrentUser().getUid();
             
-            databaseReference.child("activities")
-                    .orderByChild("userId")
-                    .equalTo(userId)
-                    .addValueEventListener(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(DataSnapshot dataSnapshot) {
-                            try {
-                                activitiesList.clear();
-                                
-                                for (DataSnapshot activitySnapshot : dataSnapshot.getChildren()) {
-                                    Activity activity = activitySnapshot.getValue(Activity.class);
-                                    if (activity != null) {
-                                        activity.setId(activitySnapshot.getKey());
-                                        activitiesList.add(activity);
-                                    }
-                                }
-                                
-                                // Ordenar por hora
-                                Collections.sort(activitiesList, (a1, a2) -> a1.getTime().compareTo(a2.getTime()));
-                                
-                                // Actualizar UI
-                                if (activityAdapter != null) {
-                                    activityAdapter.notifyDataSetChanged();
-                                }
-                                
-                                if (loadingProgressBar != null) {
-                                    loadingProgressBar.setVisibility(View.GONE);
-                                }
-                                
-                                if (activitiesList.isEmpty()) {
-                                    if (emptyStateText != null) {
-                                        emptyStateText.setVisibility(View.VISIBLE);
-                                    }
-                                    speakText("No hay rutinas creadas");
-                                } else {
-                                    if (emptyStateText != null) {
-                                        emptyStateText.setVisibility(View.GONE);
-                                    }
-                                    speakText("Se cargaron " + activitiesList.size() + " rutinas");
-                                }
-                                
-                            } catch (Exception e) {
-                                showToast("Error al mostrar rutinas: " + e.getMessage());
-                            }
+            // Lista compartida y ya ordenada por hora: solo se repinta la fila que cambia y se deja de
+            // observar al cerrar la pantalla
+            ActivityRepository.getInstance().observe(this, userId,
+                    new ActivityRepository.AdapterObserver(activitiesList, activityAdapter) {
+                @Override
+                protected void onListUpdated(boolean fullReload) {
+                    try {
+                        if (loadingProgressBar != null) {
+                            loadingProgressBar.setVisibility(View.GONE);
                         }
-
-                        @Override
-                        public void onCancelled(DatabaseError databaseError) {
-                            if (loadingProgressBar != null) {
-                                loadingProgressBar.setVisibility(View.GONE);
-                            }
+                        
+                        if (activitiesList.isEmpty()) {
                             if (emptyStateText != null) {
                                 emptyStateText.setVisibility(View.VISIBLE);
                             }
-                            showToast("Error al cargar rutinas: " + databaseError.getMessage());
+                            if (fullReload) {
+                                speakText("No hay rutinas creadas");
+                            }
+                        } else {
+                            if (emptyStateText != null) {
+                                emptyStateText.setVisibility(View.GONE);
+                            }
+                            if (fullReload) {
+                                speakText("Se cargaron " + activitiesList.size() + " rutinas");
+                            }
                         }
-                    });
+                        
+                    } catch (Exception e) {
+                        showToast("Error al mostrar rutinas: " + e.getMessage());
+                    }
+                }
+
+                @Override
+                public void onError(String error) {
+                    if (loadingProgressBar != null) {
+                        loadingProgressBar.setVisibility(View.GONE);
+                    }
+                    if (emptyStateText != null) {
+                        emptyStateText.setVisibility(View.VISIBLE);
+                    }
+                    showToast("Error al cargar rutinas: " + error);
+                }
+            });
                     
         } catch (Exception e) {
             showToast("Error: " + e.getMessage());
@@ -270,8 +254,7 @@ public class ManageActivitiesActivity extends AppCompatActivity implements TextT
     private void deleteActivity(Activity activity) {
         if (activity.getId() == null) return;
         
-        databaseReference.child("activities").child(activity.getId())
-                .removeValue()
+        activityStore.removeActivity(ActivityStore.currentUserId(), activity.getId())
                 .addOnSuccessListener(aVoid -> {
                     speakText("Rutina eliminada: " + activity.getName());
                     showToast("Rutina eliminada correctamente");
@@ -291,17 +274,12 @@ public class ManageActivitiesActivity extends AppCompatActivity implements TextT
         
         boolean newStatus = !activity.isCompleted();
         
-        databaseReference.child("activities").child(activity.getId())
-                .child("completed").setValue(newStatus)
+        // La fila se actualiza sola cuando el repositorio recibe el cambio (onActivityChanged)
+        activityStore.setActivityField(ActivityStore.currentUserId(), activity.getId(), "completed", newStatus)
                 .addOnSuccessListener(aVoid -> {
-                    activity.setCompleted(newStatus);
                     String statusText = newStatus ? "completada" : "marcada como pendiente";
                     speakText("Rutina " + statusText + ": " + activity.getName());
                     showToast("Estado actualizado");
-                    
-                    if (activityAdapter != null) {
-                        activityAdapter.notifyDataSetChanged();
-                    }
                 })
                 .addOnFailureListener(e -> {
                     speakText("Error al cambiar estado");
@@ -13,11 +13,10 @@ import androidx.annotation.NonNull;
 import androidx.cardview.widget.CardView;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
-
 import java.util.List;
 
-public class ManageActivityAdapter extends RecyclerView.Adapter<ManageActivityAdapter.ManageActivityViewHolder> {
+public class ManageActivityAdapter extends RecyclerView.Adapter<ManageActivityAdapter.ManageActivityViewHolder>
+        implements PictogramListPreloader.PictogramIds {
 
     private List<Activity> activities;
     private OnActivityActionListener listener;
@@ -51,11 +50,8 @@ public class ManageActivityAdapter extends RecyclerView.Adapter<ManageActivityAd
         holder.activityTimeText.setText(activity.getTime());
         
         // Cargar pictograma
-        Glide.with(holder.itemView.getContext())
-                .load(activity.getPictogramUrl())
-                .placeholder(R.drawable.ic_image_placeholder)
-                .error(R.drawable.ic_image_error)
-                .into(holder.pictogramImageView);
+        PictogramImageLoader.load(holder.pictogramImageView, activity.getPictogramId(),
+                R.drawable.ic_image_placeholder, R.drawable.ic_image_error);
         
         // Configurar switch de estado
         holder.statusSwitch.setChecked(activity.isCompleted());
@@ -107,6 +103,11 @@ public class ManageActivityAdapter extends RecyclerView.Adapter<ManageActivityAd
         });
     }
 
+    @Override
+    public int getPictogramIdAt(int position) {
+        return activities.get(position).getPictogramId();
+    }
+
     @Override
     public int getItemCount() {
         return activities.size();
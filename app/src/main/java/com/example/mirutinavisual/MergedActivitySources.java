@@ -0,0 +1,98 @@
+package com.example.mirutinavisual;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Actividades de un usuario leídas de varias consultas a la vez (en la fase DUAL, el nodo global
+ * y su subárbol) y unidas por id. Si una actividad está en varias se muestra la de la consulta de
+ * mayor prioridad, la de índice más bajo; las demás solo cubren lo que a esa le falte.
+ * La primera consulta es la copia completa: si borra una actividad, deja de mostrarse aunque las
+ * otras aún la tengan, hasta que también la borren o la primera la vuelva a tener.
+ */
+class MergedActivitySources {
+
+    private final List<Map<String, Activity>> sources = new ArrayList<>();
+    // Borradas de la primera consulta que alguna otra todavía tiene
+    private final Set<String> removedFromFirst = new HashSet<>();
+
+    MergedActivitySources(int sourceCount) {
+        for (int i = 0; i < sourceCount; i++) {
+            sources.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Guarda la versión de una consulta. Devuelve true si cambia la que se muestra.
+     */
+    boolean put(int source, Activity activity) {
+        String id = activity.getId();
+        sources.get(source).put(id, activity);
+        if (source == 0) {
+            removedFromFirst.remove(id);
+            return true;
+        }
+        return !removedFromFirst.contains(id) && !inHigherSource(source, id);
+    }
+
+    /**
+     * Quita la versión de una consulta. Devuelve true si cambia la que se muestra: pasa a ser la
+     * de otra consulta o, si {@link #get} da null, desaparece.
+     */
+    boolean remove(int source, String id) {
+        if (sources.get(source).remove(id) == null) {
+            return false;
+        }
+        if (source == 0) {
+            if (inLowerSource(0, id)) {
+                removedFromFirst.add(id);
+            }
+            return true;
+        }
+        if (removedFromFirst.contains(id)) {
+            if (!inLowerSource(0, id)) {
+                removedFromFirst.remove(id);
+            }
+            return false;
+        }
+        return !inHigherSource(source, id);
+    }
+
+    /**
+     * La versión que se muestra, o null si no hay ninguna.
+     */
+    Activity get(String id) {
+        if (removedFromFirst.contains(id)) {
+            return null;
+        }
+        for (Map<String, Activity> activities : sources) {
+            Activity activity = activities.get(id);
+            if (activity != null) {
+                return activity;
+            }
+        }
+        return null;
+    }
+
+    private boolean inHigherSource(int source, String id) {
+        for (int i = 0; i < source; i++) {
+            if (sources.get(i).containsKey(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean inLowerSource(int source, String id) {
+        for (int i = source + 1; i < sources.size(); i++) {
+            if (sources.get(i).containsKey(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
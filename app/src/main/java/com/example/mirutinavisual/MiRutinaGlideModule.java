@@ -0,0 +1,33 @@
+package com.example.mirutinavisual;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.module.AppGlideModule;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Configuración de Glide de la app: registra el cargador de pictogramas por id y el del paquete
+ * local de pictogramas.
+ */
+@GlideModule
+public class MiRutinaGlideModule extends AppGlideModule {
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.prepend(PictogramRef.class, InputStream.class, new PictogramModelLoader.Factory());
+        // Lo último que se antepone se prueba primero: el paquete local va antes que la red
+        registry.prepend(PictogramRef.class, ByteBuffer.class, new PackedPictogramLoader.Factory(context));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
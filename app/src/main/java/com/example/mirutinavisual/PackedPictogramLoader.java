@@ -0,0 +1,105 @@
+package com.example.mirutinavisual;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Sirve a Glide los pictogramas que están en el paquete local, como vistas del archivo mapeado.
+ * Si el pictograma no está en el paquete con ese tamaño o uno mayor no lo maneja y Glide pasa a
+ * {@link PictogramModelLoader}.
+ * Los datos llegan como LOCAL: Glide no copia los bytes originales a su caché de datos, pero con
+ * DiskCacheStrategy.ALL sí guarda en disco las versiones ya transformadas (recorte, tamaño, color).
+ */
+public class PackedPictogramLoader implements ModelLoader<PictogramRef, ByteBuffer> {
+
+    private final PictogramPackManager packManager;
+
+    PackedPictogramLoader(PictogramPackManager packManager) {
+        this.packManager = packManager;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<ByteBuffer> buildLoadData(@NonNull PictogramRef model, int width, int height,
+                                              @NonNull Options options) {
+        return new LoadData<>(new ObjectKey(model.getCacheKey()), new PackFetcher(model));
+    }
+
+    @Override
+    public boolean handles(@NonNull PictogramRef model) {
+        return packManager.contains(model);
+    }
+
+    private class PackFetcher implements DataFetcher<ByteBuffer> {
+
+        private final PictogramRef ref;
+
+        PackFetcher(PictogramRef ref) {
+            this.ref = ref;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super ByteBuffer> callback) {
+            ByteBuffer image = packManager.find(ref);
+            if (image != null) {
+                ImagePipelineMetrics.getInstance().onLocalDataReady(ref, image.remaining());
+                callback.onDataReady(image);
+            } else {
+                callback.onLoadFailed(new IOException("No está en el paquete: " + ref));
+            }
+        }
+
+        @Override
+        public void cleanup() {
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @NonNull
+        @Override
+        public Class<ByteBuffer> getDataClass() {
+            return ByteBuffer.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.LOCAL;
+        }
+    }
+
+    public static class Factory implements ModelLoaderFactory<PictogramRef, ByteBuffer> {
+
+        private final Context appContext;
+
+        public Factory(Context context) {
+            this.appContext = context.getApplicationContext();
+        }
+
+        @NonNull
+        @Override
+        public ModelLoader<PictogramRef, ByteBuffer> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new PackedPictogramLoader(PictogramPackManager.getInstance(appContext));
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
@@ -14,7 +14,7 @@ public class Pictogram {
     public Pictogram(int id, List<String> keywords) {
         this.id = id;
         this.keywords = keywords;
-        this.imageUrl = "https://api.arasaac.org/api/pictograms/" + id + "?download=false";
+        this.imageUrl = PictogramRef.of(id).getUrl();
     }
 
     // Getters y Setters
@@ -24,7 +24,7 @@ public class Pictogram {
 
     public void setId(int id) {
         this.id = id;
-        this.imageUrl = "https://api.arasaac.org/api/pictograms/" + id + "?download=false";
+        this.imageUrl = PictogramRef.of(id).getUrl();
     }
 
     public List<String> getKeywords() {
@@ -44,7 +44,7 @@ public class Pictogram {
     }
 
     public String getDownloadUrl() {
-        return "https://api.arasaac.org/api/pictograms/" + id + "?download=true";
+        return new PictogramRef(id, PictogramResolution.LARGE, PictogramRef.Variant.COLOR).getUrl();
     }
 
     @Override
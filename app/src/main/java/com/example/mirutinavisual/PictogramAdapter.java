@@ -12,11 +12,11 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.List;
 
-public class PictogramAdapter extends RecyclerView.Adapter<PictogramAdapter.PictogramViewHolder> {
+public class PictogramAdapter extends RecyclerView.Adapter<PictogramAdapter.PictogramViewHolder>
+        implements PictogramListPreloader.PictogramIds {
 
     private List<Pictogram> pictograms;
     private OnPictogramClickListener listener;
-    private ArasaacApiService arasaacService;
     private int selectedPosition = -1;
 
     public interface OnPictogramClickListener {
@@ -26,7 +26,6 @@ public class PictogramAdapter extends RecyclerView.Adapter<PictogramAdapter.Pict
     public PictogramAdapter(List<Pictogram> pictograms, OnPictogramClickListener listener) {
         this.pictograms = pictograms;
         this.listener = listener;
-        this.arasaacService = new ArasaacApiService();
     }
 
     @NonNull
@@ -42,7 +41,8 @@ public class PictogramAdapter extends RecyclerView.Adapter<PictogramAdapter.Pict
         Pictogram pictogram = pictograms.get(position);
         
         // Cargar imagen del pictograma
-        arasaacService.loadPictogramImage(pictogram, holder.pictogramImageView);
+        ArasaacApiService.getInstance(holder.itemView.getContext())
+                .loadPictogramImage(pictogram, holder.pictogramImageView);
         
         // Mostrar primera keyword como texto
         if (!pictogram.getKeywords().isEmpty()) {
@@ -80,6 +80,11 @@ public class PictogramAdapter extends RecyclerView.Adapter<PictogramAdapter.Pict
         });
     }
 
+    @Override
+    public int getPictogramIdAt(int position) {
+        return pictograms.get(position).getId();
+    }
+
     @Override
     public int getItemCount() {
         return pictograms.size();
@@ -0,0 +1,269 @@
+package com.example.mirutinavisual;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice local del catálogo de pictogramas de ARASAAC en español.
+ * Es una tabla ordenada de términos normalizados (palabras clave completas y cada una de sus
+ * palabras) con la lista de pictogramas de cada término, de modo que las búsquedas por prefijo
+ * o por palabra completa se resuelven con una búsqueda binaria y sin red.
+ */
+public class PictogramCatalog {
+
+    private static final int FILE_MAGIC = 0x4D52564B; // "MRVK"
+    // 2: se guardan todas las palabras clave de cada pictograma, no solo la primera
+    private static final int FILE_VERSION = 2;
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    // Pictogramas ordenados por id; las listas de términos guardan posiciones en estos arrays.
+    // Cada resultado lleva todas sus palabras clave para poder filtrarlo después en local
+    private final int[] ids;
+    private final String[][] keywords;
+
+    // Términos ordenados y, para cada uno, las posiciones de sus pictogramas
+    private final String[] terms;
+    private final int[][] postings;
+
+    private PictogramCatalog(int[] ids, String[][] keywords, String[] terms, int[][] postings) {
+        this.ids = ids;
+        this.keywords = keywords;
+        this.terms = terms;
+        this.postings = postings;
+    }
+
+    /**
+     * Construye el índice leyendo en streaming la respuesta de /pictograms/all/es.
+     * Solo se leen "_id" y "keywords[].keyword"; el resto de campos se salta.
+     */
+    public static PictogramCatalog parse(Reader source) throws IOException {
+        TreeMap<Integer, List<String>> keywordsById = new TreeMap<>();
+
+        JsonReader reader = new JsonReader(source);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            List<String> keywords = new ArrayList<>();
+            int id = PictogramResponseParser.readPictogram(reader, keywords);
+            if (id > 0 && !keywords.isEmpty()) {
+                keywordsById.put(id, keywords);
+            }
+        }
+        reader.endArray();
+
+        return build(keywordsById);
+    }
+
+    private static PictogramCatalog build(TreeMap<Integer, List<String>> keywordsById) {
+        int count = keywordsById.size();
+        int[] ids = new int[count];
+        String[][] keywords = new String[count][];
+        TreeMap<String, Set<Integer>> index = new TreeMap<>();
+
+        int position = 0;
+        for (Map.Entry<Integer, List<String>> entry : keywordsById.entrySet()) {
+            ids[position] = entry.getKey();
+            keywords[position] = entry.getValue().toArray(new String[0]);
+
+            for (String keyword : entry.getValue()) {
+                String normalized = PictogramSearchCache.normalize(keyword);
+                addPosting(index, normalized, position);
+
+                // Cada palabra de una clave compuesta también es un término ("cepillar los dientes")
+                if (normalized.indexOf(' ') >= 0) {
+                    for (String token : normalized.split(" ")) {
+                        addPosting(index, token, position);
+                    }
+                }
+            }
+            position++;
+        }
+
+        String[] terms = new String[index.size()];
+        int[][] postings = new int[index.size()][];
+        int i = 0;
+        for (Map.Entry<String, Set<Integer>> entry : index.entrySet()) {
+            terms[i] = entry.getKey();
+            postings[i] = toSortedArray(entry.getValue());
+            i++;
+        }
+
+        return new PictogramCatalog(ids, keywords, terms, postings);
+    }
+
+    private static void addPosting(TreeMap<String, Set<Integer>> index, String term, int position) {
+        if (term.length() < MIN_TOKEN_LENGTH) {
+            return;
+        }
+        Set<Integer> positions = index.get(term);
+        if (positions == null) {
+            positions = new LinkedHashSet<>();
+            index.put(term, positions);
+        }
+        positions.add(position);
+    }
+
+    private static int[] toSortedArray(Set<Integer> values) {
+        int[] array = new int[values.size()];
+        int i = 0;
+        for (int value : values) {
+            array[i++] = value;
+        }
+        Arrays.sort(array);
+        return array;
+    }
+
+    /**
+     * Busca pictogramas cuyo término coincida exactamente con la consulta (primero) o empiece
+     * por ella. Devuelve una lista vacía si no hay coincidencias.
+     */
+    public List<Pictogram> search(String query, int maxResults) {
+        String normalized = PictogramSearchCache.normalize(query);
+        if (normalized.isEmpty() || maxResults <= 0) {
+            return Collections.emptyList();
+        }
+
+        LinkedHashSet<Integer> matches = new LinkedHashSet<>();
+        int first = lowerBound(normalized);
+
+        // Coincidencia exacta (clave completa o palabra completa)
+        if (first < terms.length && terms[first].equals(normalized)) {
+            for (int position : postings[first]) {
+                matches.add(position);
+            }
+        }
+
+        // Coincidencias por prefijo, en orden alfabético de término
+        for (int i = first; i < terms.length && matches.size() < maxResults; i++) {
+            if (!terms[i].startsWith(normalized)) {
+                break;
+            }
+            for (int position : postings[i]) {
+                matches.add(position);
+            }
+        }
+
+        List<Pictogram> result = new ArrayList<>(Math.min(matches.size(), maxResults));
+        for (int position : matches) {
+            if (result.size() >= maxResults) {
+                break;
+            }
+            result.add(new Pictogram(ids[position], new ArrayList<>(Arrays.asList(keywords[position]))));
+        }
+        return result;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int getPictogramCount() {
+        return ids.length;
+    }
+
+    public int getTermCount() {
+        return terms.length;
+    }
+
+    // Formato binario compacto: se carga mucho más rápido que volver a procesar el JSON
+    public void writeTo(File file) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+
+            out.writeInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                out.writeInt(ids[i]);
+                out.writeInt(keywords[i].length);
+                for (String keyword : keywords[i]) {
+                    out.writeUTF(keyword);
+                }
+            }
+
+            out.writeInt(terms.length);
+            for (int i = 0; i < terms.length; i++) {
+                out.writeUTF(terms[i]);
+                out.writeInt(postings[i].length);
+                for (int position : postings[i]) {
+                    out.writeInt(position);
+                }
+            }
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            throw new IOException("No se pudo guardar el catálogo en " + file);
+        }
+    }
+
+    public static PictogramCatalog readFrom(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Formato de catálogo desconocido");
+            }
+
+            // Cada elemento ocupa al menos un byte: un tamaño mayor que el archivo es que está dañado
+            long maxCount = file.length();
+            int count = readCount(in, maxCount);
+            int[] ids = new int[count];
+            String[][] keywords = new String[count][];
+            for (int i = 0; i < count; i++) {
+                ids[i] = in.readInt();
+                keywords[i] = new String[readCount(in, maxCount)];
+                for (int j = 0; j < keywords[i].length; j++) {
+                    keywords[i][j] = in.readUTF();
+                }
+            }
+
+            int termCount = readCount(in, maxCount);
+            String[] terms = new String[termCount];
+            int[][] postings = new int[termCount][];
+            for (int i = 0; i < termCount; i++) {
+                terms[i] = in.readUTF();
+                int[] positions = new int[readCount(in, maxCount)];
+                for (int j = 0; j < positions.length; j++) {
+                    positions[j] = in.readInt();
+                }
+                postings[i] = positions;
+            }
+
+            return new PictogramCatalog(ids, keywords, terms, postings);
+        }
+    }
+
+    private static int readCount(DataInputStream in, long maxCount) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > maxCount) {
+            throw new IOException("Catálogo dañado");
+        }
+        return count;
+    }
+}
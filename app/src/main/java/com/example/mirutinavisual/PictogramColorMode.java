@@ -0,0 +1,96 @@
+package com.example.mirutinavisual;
+
+/**
+ * Cómo se colorean los pictogramas: tal cual, con más contraste, en escala de grises o
+ * teñidos con el color del tema.
+ * Cada modo es una matriz de color 4x5 con el formato de android.graphics.ColorMatrix
+ * (valores de canal entre 0 y 255), que aplica {@link PictogramColorTransformation}.
+ */
+public enum PictogramColorMode {
+    NORMAL("Originales"),
+    HIGH_CONTRAST("Alto contraste"),
+    GRAYSCALE("Escala de grises"),
+    TINT("Color del tema");
+
+    // Cuánto se separan los tonos del gris medio en alto contraste
+    static final float CONTRAST_FACTOR = 2f;
+
+    // Pesos de luminancia, los mismos que usa ThemeManager.getContrastColor
+    private static final float LUMA_R = 0.299f;
+    private static final float LUMA_G = 0.587f;
+    private static final float LUMA_B = 0.114f;
+
+    private final String label;
+
+    PictogramColorMode(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Matriz de color del modo. {@code tintColor} (ARGB) solo se usa en {@link #TINT}.
+     */
+    float[] colorMatrix(int tintColor) {
+        switch (this) {
+            case HIGH_CONTRAST: {
+                float k = CONTRAST_FACTOR;
+                float offset = 128f * (1f - k);
+                return new float[] {
+                        k, 0, 0, 0, offset,
+                        0, k, 0, 0, offset,
+                        0, 0, k, 0, offset,
+                        0, 0, 0, 1, 0
+                };
+            }
+            case GRAYSCALE:
+                return new float[] {
+                        LUMA_R, LUMA_G, LUMA_B, 0, 0,
+                        LUMA_R, LUMA_G, LUMA_B, 0, 0,
+                        LUMA_R, LUMA_G, LUMA_B, 0, 0,
+                        0, 0, 0, 1, 0
+                };
+            case TINT: {
+                // Duotono: el negro pasa a ser el color del tema y el blanco se queda blanco
+                float[] matrix = new float[20];
+                fillTintRow(matrix, 0, tintColor >> 16 & 0xFF);
+                fillTintRow(matrix, 1, tintColor >> 8 & 0xFF);
+                fillTintRow(matrix, 2, tintColor & 0xFF);
+                matrix[18] = 1;
+                return matrix;
+            }
+            default:
+                return new float[] {
+                        1, 0, 0, 0, 0,
+                        0, 1, 0, 0, 0,
+                        0, 0, 1, 0, 0,
+                        0, 0, 0, 1, 0
+                };
+        }
+    }
+
+    // Canal = tinte + luminancia * (255 - tinte), con la luminancia entre 0 y 1
+    private static void fillTintRow(float[] matrix, int row, int channel) {
+        float range = (255 - channel) / 255f;
+        matrix[row * 5] = LUMA_R * range;
+        matrix[row * 5 + 1] = LUMA_G * range;
+        matrix[row * 5 + 2] = LUMA_B * range;
+        matrix[row * 5 + 4] = channel;
+    }
+
+    /**
+     * Modo guardado por nombre; si no se reconoce, {@link #NORMAL}.
+     */
+    static PictogramColorMode fromName(String name) {
+        if (name != null) {
+            for (PictogramColorMode mode : values()) {
+                if (mode.name().equals(name)) {
+                    return mode;
+                }
+            }
+        }
+        return NORMAL;
+    }
+}
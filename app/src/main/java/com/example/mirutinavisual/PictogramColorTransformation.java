@@ -0,0 +1,88 @@
+package com.example.mirutinavisual;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Paint;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.resource.bitmap.BitmapTransformation;
+
+import java.security.MessageDigest;
+
+/**
+ * Transformación de Glide que recolorea un pictograma según un {@link PictogramColorMode}.
+ * El filtro se aplica una sola vez al decodificar; como el modo y el color forman parte de la
+ * clave, Glide guarda la variante ya transformada en su caché de disco y en memoria, y las
+ * siguientes veces se sirve igual de rápido que un pictograma sin transformar.
+ */
+public class PictogramColorTransformation extends BitmapTransformation {
+
+    private static final String ID = "com.example.mirutinavisual.PictogramColorTransformation";
+
+    private final PictogramColorMode mode;
+    private final int tintColor;
+
+    public PictogramColorTransformation(PictogramColorMode mode, int tintColor) {
+        this.mode = mode;
+        // El color solo cuenta al teñir: cambiar el tema no invalida las variantes en gris o contraste
+        this.tintColor = mode == PictogramColorMode.TINT ? tintColor : 0;
+    }
+
+    /**
+     * Transformación que pide la configuración de {@link ThemeManager}, o null si los
+     * pictogramas se muestran tal cual.
+     */
+    @Nullable
+    public static PictogramColorTransformation forTheme(Context context) {
+        ThemeManager themeManager = new ThemeManager(context);
+        PictogramColorMode mode = themeManager.getPictogramColorMode();
+        if (mode == PictogramColorMode.NORMAL) {
+            return null;
+        }
+        return new PictogramColorTransformation(mode, themeManager.getPrimaryColor());
+    }
+
+    @Override
+    protected Bitmap transform(@NonNull BitmapPool pool, @NonNull Bitmap toTransform, int outWidth, int outHeight) {
+        Bitmap.Config config = toTransform.getConfig() != null ? toTransform.getConfig() : Bitmap.Config.ARGB_8888;
+        Bitmap result = pool.get(toTransform.getWidth(), toTransform.getHeight(), config);
+        result.setHasAlpha(toTransform.hasAlpha());
+
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        paint.setColorFilter(new ColorMatrixColorFilter(mode.colorMatrix(tintColor)));
+        Canvas canvas = new Canvas(result);
+        canvas.drawBitmap(toTransform, 0, 0, paint);
+        canvas.setBitmap(null);
+        return result;
+    }
+
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+        messageDigest.update((ID + "/" + mode.name() + "/" + tintColor).getBytes(CHARSET));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PictogramColorTransformation)) {
+            return false;
+        }
+        PictogramColorTransformation other = (PictogramColorTransformation) o;
+        return mode == other.mode && tintColor == other.tintColor;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * ID.hashCode() + mode.hashCode()) + tintColor;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "PictogramColorTransformation(" + mode + ", " + Integer.toHexString(tintColor) + ")";
+    }
+}
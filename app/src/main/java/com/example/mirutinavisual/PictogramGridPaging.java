@@ -0,0 +1,66 @@
+package com.example.mirutinavisual;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
+
+/**
+ * Conecta un PictogramPager con la rejilla de resultados: muestra la primera página y añade la
+ * siguiente cuando la última fila visible está cerca del final.
+ */
+public class PictogramGridPaging extends RecyclerView.OnScrollListener {
+
+    // Con 3 columnas equivale a empezar a cargar cuando falta una fila
+    private static final int LOAD_AHEAD_ITEMS = 3;
+
+    private final RecyclerView recyclerView;
+    private final List<Pictogram> shownPictograms;
+    private final RecyclerView.Adapter<?> adapter;
+    private PictogramPager pager;
+
+    public PictogramGridPaging(RecyclerView recyclerView, List<Pictogram> shownPictograms, RecyclerView.Adapter<?> adapter) {
+        this.recyclerView = recyclerView;
+        this.shownPictograms = shownPictograms;
+        this.adapter = adapter;
+        recyclerView.addOnScrollListener(this);
+    }
+
+    public void show(PictogramPager newPager) {
+        pager = newPager;
+        shownPictograms.clear();
+        shownPictograms.addAll(newPager.nextPage());
+        adapter.notifyDataSetChanged();
+        recyclerView.scrollToPosition(0);
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy <= 0 || pager == null || !pager.hasMore()) {
+            return;
+        }
+
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof GridLayoutManager)) {
+            return;
+        }
+
+        int lastVisible = ((GridLayoutManager) layoutManager).findLastVisibleItemPosition();
+        if (lastVisible >= adapter.getItemCount() - LOAD_AHEAD_ITEMS) {
+            // No se modifica el adapter dentro del callback de scroll
+            recyclerView.post(this::loadNextPage);
+        }
+    }
+
+    private void loadNextPage() {
+        if (pager == null || !pager.hasMore()) {
+            return;
+        }
+        int start = shownPictograms.size();
+        List<Pictogram> page = pager.nextPage();
+        shownPictograms.addAll(page);
+        adapter.notifyItemRangeInserted(start, page.size());
+        System.out.println("PAGING: Página cargada, " + pager.getLoadedCount() + " de " + pager.getTotal());
+    }
+}
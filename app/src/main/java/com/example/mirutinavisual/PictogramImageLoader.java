@@ -0,0 +1,133 @@
+package com.example.mirutinavisual;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.util.DisplayMetrics;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.ImageView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.resource.bitmap.BitmapTransformation;
+import com.bumptech.glide.load.resource.bitmap.CenterCrop;
+import com.bumptech.glide.load.resource.bitmap.CenterInside;
+import com.bumptech.glide.load.resource.bitmap.FitCenter;
+
+/**
+ * Punto único para cargar imágenes de pictogramas.
+ * Calcula el tamaño de la vista destino a partir de sus LayoutParams (o de su contenedor si
+ * ocupa todo el padre), pide a ARASAAC la resolución más pequeña que lo cubre y fija ese tamaño
+ * en Glide con override, así las miniaturas llegan pequeñas y solo las vistas grandes descargan
+ * la imagen de 2500 px. El modelo es un {@link PictogramRef}, con su clave de caché canónica, y
+ * con el tamaño fijo la misma vista produce siempre la misma clave aunque no se haya medido.
+ * Si el tema pide otro color para los pictogramas se añade {@link PictogramColorTransformation}
+ * detrás del recorte de la vista, y la variante coloreada queda en caché como cualquier otra.
+ */
+public final class PictogramImageLoader {
+
+    private PictogramImageLoader() {
+    }
+
+    public static void load(ImageView imageView, int pictogramId, int placeholderRes, int errorRes) {
+        if (imageView == null) {
+            return;
+        }
+        if (pictogramId <= 0) {
+            imageView.setImageResource(placeholderRes);
+            return;
+        }
+        request(imageView, pictogramId)
+                .placeholder(placeholderRes)
+                .error(errorRes)
+                .into(imageView);
+    }
+
+    /**
+     * Petición ya dimensionada y recortada para la vista, por si hay que añadir algo más (p. ej. placeholder).
+     */
+    public static RequestBuilder<Drawable> request(ImageView imageView, int pictogramId) {
+        return request(imageView, pictogramId, cropFor(imageView.getScaleType()));
+    }
+
+    /**
+     * Igual, pero con otro recorte en lugar del del scaleType (p. ej. {@code new CircleCrop()}).
+     * No hay que añadir transformaciones después: sustituirían a la de color.
+     */
+    public static RequestBuilder<Drawable> request(ImageView imageView, int pictogramId, BitmapTransformation crop) {
+        Context context = imageView.getContext();
+        return request(Glide.with(imageView), pictogramId, targetSizePx(imageView),
+                ImagePipelineMetrics.screenOf(context), crop, PictogramColorTransformation.forTheme(context));
+    }
+
+    /**
+     * Misma petición para un tamaño y recorte conocidos; la usa la precarga para que coincida con la de la celda.
+     */
+    static RequestBuilder<Drawable> request(RequestManager glide, Context context, int pictogramId, int targetSizePx,
+                                            BitmapTransformation crop) {
+        return request(glide, pictogramId, targetSizePx, ImagePipelineMetrics.PRELOAD_SCREEN, crop,
+                PictogramColorTransformation.forTheme(context));
+    }
+
+    // Cada petición se anota en las métricas de la pantalla indicada
+    private static RequestBuilder<Drawable> request(RequestManager glide, int pictogramId, int targetSizePx,
+                                                    String screen, BitmapTransformation crop,
+                                                    PictogramColorTransformation color) {
+        PictogramResolution resolution = PictogramResolution.forTargetSize(targetSizePx);
+        RequestBuilder<Drawable> request = glide.load(new PictogramRef(pictogramId, resolution, PictogramRef.Variant.COLOR))
+                .diskCacheStrategy(DiskCacheStrategy.ALL)
+                .override(Math.min(targetSizePx, resolution.getSizePx()))
+                .addListener(ImagePipelineMetrics.getInstance().<Drawable>listenerFor(screen));
+        if (color == null) {
+            // Como lo haría into(ImageView), así la precarga y la celda comparten clave
+            return crop != null ? request.optionalTransform(crop) : request;
+        }
+        return crop != null ? request.transform(crop, color) : request.transform(color);
+    }
+
+    // Recorte que aplica Glide al cargar en un ImageView con ese scaleType; null si no recorta
+    static BitmapTransformation cropFor(ImageView.ScaleType scaleType) {
+        switch (scaleType) {
+            case CENTER_CROP:
+                return new CenterCrop();
+            case CENTER_INSIDE:
+            case FIT_XY:
+                return new CenterInside();
+            case FIT_CENTER:
+            case FIT_START:
+            case FIT_END:
+                return new FitCenter();
+            default:
+                return null;
+        }
+    }
+
+    static int dpToPx(Context context, int dp) {
+        return (int) (dp * context.getResources().getDisplayMetrics().density + 0.5f);
+    }
+
+    // Lado mayor de la vista; si ocupa todo su padre se mira el contenedor y, en último caso, la pantalla
+    static int targetSizePx(ImageView imageView) {
+        View current = imageView;
+        while (current != null) {
+            ViewGroup.LayoutParams params = current.getLayoutParams();
+            if (params == null) {
+                break;
+            }
+            if (params.width > 0 || params.height > 0) {
+                return Math.max(params.width, params.height);
+            }
+            if (params.width != ViewGroup.LayoutParams.MATCH_PARENT
+                    || params.height != ViewGroup.LayoutParams.MATCH_PARENT) {
+                break;
+            }
+            ViewParent parent = current.getParent();
+            current = parent instanceof View ? (View) parent : null;
+        }
+        DisplayMetrics metrics = imageView.getResources().getDisplayMetrics();
+        return Math.min(metrics.widthPixels, metrics.heightPixels);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.mirutinavisual;
+
+import android.view.View;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Precarga los pictogramas de las siguientes filas de una lista en el sentido del scroll, para
+ * que al desplazarse rápido las celdas no aparezcan vacías.
+ * El tamaño se toma de la imagen de una fila ya enlazada y la petición es la misma que hace
+ * {@link PictogramImageLoader} (resolución, override, recorte según el scaleType y color), así la
+ * celda encuentra la imagen en la caché de memoria. Cada lista elige su ventana de precarga.
+ */
+public class PictogramListPreloader implements ListPreloader.PreloadModelProvider<Integer> {
+
+    /**
+     * Lo implementan los adaptadores: id del pictograma de cada posición (0 si no tiene).
+     */
+    public interface PictogramIds {
+        int getPictogramIdAt(int position);
+    }
+
+    private final RecyclerView recyclerView;
+    private final PictogramIds pictogramIds;
+    private final int imageViewId;
+    private final RequestManager glide;
+    private RecyclerViewPreloader<Integer> scrollListener;
+
+    // Se calculan con la primera fila que haya en pantalla
+    private int imageSizePx;
+    private ImageView.ScaleType scaleType;
+
+    public PictogramListPreloader(RecyclerView recyclerView, PictogramIds pictogramIds, int imageViewId,
+                                  int maxPreload) {
+        this.recyclerView = recyclerView;
+        this.pictogramIds = pictogramIds;
+        this.imageViewId = imageViewId;
+        this.glide = Glide.with(recyclerView);
+        setWindow(maxPreload);
+    }
+
+    /**
+     * Cambia cuántas filas por delante se precargan.
+     */
+    public void setWindow(int maxPreload) {
+        if (scrollListener != null) {
+            recyclerView.removeOnScrollListener(scrollListener);
+            scrollListener = null;
+        }
+        if (maxPreload > 0) {
+            // El tamaño real va en el override de la petición; este solo lo pide la API
+            scrollListener = new RecyclerViewPreloader<>(glide, this, new FixedPreloadSizeProvider<>(1, 1), maxPreload);
+            recyclerView.addOnScrollListener(scrollListener);
+        }
+    }
+
+    @NonNull
+    @Override
+    public List<Integer> getPreloadItems(int position) {
+        if (position < 0 || position >= recyclerView.getAdapter().getItemCount()) {
+            return Collections.emptyList();
+        }
+        int pictogramId = pictogramIds.getPictogramIdAt(position);
+        return pictogramId > 0 ? Collections.singletonList(pictogramId) : Collections.emptyList();
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Integer pictogramId) {
+        if (imageSizePx <= 0 && !measureItemImage()) {
+            return null;
+        }
+        // Mismo recorte que aplica Glide al cargar en un ImageView con ese scaleType
+        return PictogramImageLoader.request(glide, recyclerView.getContext(), pictogramId, imageSizePx,
+                PictogramImageLoader.cropFor(scaleType));
+    }
+
+    private boolean measureItemImage() {
+        if (recyclerView.getChildCount() == 0) {
+            return false;
+        }
+        View child = recyclerView.getChildAt(0);
+        ImageView imageView = child.findViewById(imageViewId);
+        if (imageView == null) {
+            return false;
+        }
+        imageSizePx = PictogramImageLoader.targetSizePx(imageView);
+        scaleType = imageView.getScaleType();
+        return true;
+    }
+}
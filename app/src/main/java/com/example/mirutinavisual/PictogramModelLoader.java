@@ -0,0 +1,110 @@
+package com.example.mirutinavisual;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.io.InputStream;
+
+/**
+ * Enseña a Glide a cargar un {@link PictogramRef}.
+ * La descarga la hace el cargador de URLs de Glide, pero la clave de caché es la de la
+ * referencia y no la URL, así un cambio en cómo se escribe la URL no invalida lo ya guardado.
+ * La descarga informa a {@link ImagePipelineMetrics} de los bytes recibidos.
+ */
+public class PictogramModelLoader implements ModelLoader<PictogramRef, InputStream> {
+
+    private final ModelLoader<GlideUrl, InputStream> urlLoader;
+
+    PictogramModelLoader(ModelLoader<GlideUrl, InputStream> urlLoader) {
+        this.urlLoader = urlLoader;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull PictogramRef model, int width, int height,
+                                               @NonNull Options options) {
+        LoadData<InputStream> urlData = urlLoader.buildLoadData(new GlideUrl(model.getUrl()), width, height, options);
+        if (urlData == null) {
+            return null;
+        }
+        return new LoadData<>(new ObjectKey(model.getCacheKey()), new MeasuredFetcher(model, urlData.fetcher));
+    }
+
+    @Override
+    public boolean handles(@NonNull PictogramRef model) {
+        return model.getId() > 0;
+    }
+
+    // Descarga de la red que avisa a las métricas cuando llegan los datos y cuenta los bytes
+    private static class MeasuredFetcher implements DataFetcher<InputStream> {
+
+        private final PictogramRef model;
+        private final DataFetcher<InputStream> delegate;
+
+        MeasuredFetcher(PictogramRef model, DataFetcher<InputStream> delegate) {
+            this.model = model;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super InputStream> callback) {
+            delegate.loadData(priority, new DataCallback<InputStream>() {
+                @Override
+                public void onDataReady(@Nullable InputStream data) {
+                    callback.onDataReady(data != null
+                            ? ImagePipelineMetrics.getInstance().onNetworkDataReady(model, data) : null);
+                }
+
+                @Override
+                public void onLoadFailed(@NonNull Exception e) {
+                    callback.onLoadFailed(e);
+                }
+            });
+        }
+
+        @Override
+        public void cleanup() {
+            delegate.cleanup();
+        }
+
+        @Override
+        public void cancel() {
+            delegate.cancel();
+        }
+
+        @NonNull
+        @Override
+        public Class<InputStream> getDataClass() {
+            return delegate.getDataClass();
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return delegate.getDataSource();
+        }
+    }
+
+    public static class Factory implements ModelLoaderFactory<PictogramRef, InputStream> {
+
+        @NonNull
+        @Override
+        public ModelLoader<PictogramRef, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new PictogramModelLoader(multiFactory.build(GlideUrl.class, InputStream.class));
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.mirutinavisual;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Paquete de pictogramas en un único archivo, leído con memoria mapeada: cada imagen es una
+ * vista del buffer, sin abrir un archivo por imagen ni copiar bytes.
+ *
+ * Formato (big endian):
+ * <pre>
+ * "MRVP" | versión de formato (int) | versión del paquete (int) | número de entradas (int)
+ * entradas × (id int, tamaño px int, offset long, longitud int), ordenadas por id y tamaño
+ * datos PNG
+ * </pre>
+ * Los offsets cuentan desde el principio del archivo. Ver {@link PictogramPackWriter}.
+ */
+public class PictogramPack {
+
+    static final int MAGIC = 0x4D525650; // "MRVP"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 20;
+
+    private final ByteBuffer buffer;
+    private final int packVersion;
+    private final int[] ids;
+    private final int[] sizes;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    private PictogramPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("No es un paquete de pictogramas");
+        }
+        int formatVersion = buffer.getInt(4);
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Formato de paquete no soportado: " + formatVersion);
+        }
+        packVersion = buffer.getInt(8);
+        int count = buffer.getInt(12);
+        if (count < 0 || HEADER_BYTES + (long) count * ENTRY_BYTES > buffer.limit()) {
+            throw new IOException("Índice del paquete dañado");
+        }
+
+        ids = new int[count];
+        sizes = new int[count];
+        offsets = new long[count];
+        lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            int position = HEADER_BYTES + i * ENTRY_BYTES;
+            ids[i] = buffer.getInt(position);
+            sizes[i] = buffer.getInt(position + 4);
+            offsets[i] = buffer.getLong(position + 8);
+            lengths[i] = buffer.getInt(position + 16);
+            if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > buffer.limit()) {
+                throw new IOException("Entrada fuera del paquete: " + ids[i]);
+            }
+        }
+    }
+
+    public static PictogramPack open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // El mapeo sigue siendo válido después de cerrar el canal
+            return new PictogramPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static PictogramPack open(FileChannel channel, long start, long length) throws IOException {
+        return new PictogramPack(channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+    }
+
+    public static PictogramPack wrap(ByteBuffer buffer) throws IOException {
+        return new PictogramPack(buffer);
+    }
+
+    public int getPackVersion() {
+        return packVersion;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(int id) {
+        return firstIndexOf(id) >= 0;
+    }
+
+    /**
+     * Si hay una imagen del pictograma de ese tamaño o mayor, la que devolvería {@link #find}.
+     */
+    public boolean contains(int id, int sizePx) {
+        return indexOf(id, sizePx) >= 0;
+    }
+
+    /**
+     * Imagen del pictograma con el tamaño pedido o, si no está, la más pequeña que sea mayor.
+     * Una más pequeña se vería borrosa, así que entonces devuelve null y se pide a la red.
+     * Devuelve una vista de solo lectura.
+     */
+    public ByteBuffer find(int id, int sizePx) {
+        int index = indexOf(id, sizePx);
+        return index >= 0 ? slice(index) : null;
+    }
+
+    /**
+     * Solo la imagen con ese tamaño exacto, o null.
+     */
+    public ByteBuffer findExact(int id, int sizePx) {
+        int first = firstIndexOf(id);
+        if (first < 0) {
+            return null;
+        }
+        for (int i = first; i < ids.length && ids[i] == id; i++) {
+            if (sizes[i] == sizePx) {
+                return slice(i);
+            }
+        }
+        return null;
+    }
+
+    // Los tamaños de cada id están ordenados de menor a mayor
+    private int indexOf(int id, int sizePx) {
+        int first = firstIndexOf(id);
+        if (first < 0) {
+            return -1;
+        }
+        for (int i = first; i < ids.length && ids[i] == id; i++) {
+            if (sizes[i] >= sizePx) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ByteBuffer slice(int index) {
+        // Se usa Buffer para no depender de las sobrecargas covariantes que no existen en API 26
+        ByteBuffer view = buffer.asReadOnlyBuffer();
+        ((Buffer) view).position((int) offsets[index]);
+        ((Buffer) view).limit((int) (offsets[index] + lengths[index]));
+        return view.slice();
+    }
+
+    private int firstIndexOf(int id) {
+        int low = 0;
+        int high = ids.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ids[mid] < id) {
+                low = mid + 1;
+            } else {
+                if (ids[mid] == id) {
+                    found = mid;
+                }
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.mirutinavisual;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Escribe un paquete con el formato de {@link PictogramPack} directamente en el archivo, imagen a
+ * imagen: en memoria solo queda el índice. Reserva al principio sitio para {@code capacity}
+ * entradas y escribe la cabecera y el índice al cerrar; los huecos de entradas no usadas no se
+ * leen nunca porque los offsets son absolutos.
+ * A diferencia de {@link PictogramPackWriter}, que guarda todas las imágenes en memoria, sirve
+ * para paquetes de cualquier tamaño.
+ */
+public class PictogramPackFileWriter implements Closeable {
+
+    private static final class IndexEntry {
+        final int id;
+        final int sizePx;
+        final long offset;
+        final int length;
+
+        IndexEntry(int id, int sizePx, long offset, int length) {
+            this.id = id;
+            this.sizePx = sizePx;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final int packVersion;
+    private final int capacity;
+    private final List<IndexEntry> index = new ArrayList<>();
+    private final byte[] chunk = new byte[16 * 1024];
+    private boolean closed = false;
+
+    public PictogramPackFileWriter(File file, int packVersion, int capacity) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+        this.packVersion = packVersion;
+        this.capacity = capacity;
+        this.file.setLength(0);
+        this.file.seek(PictogramPack.HEADER_BYTES + (long) capacity * PictogramPack.ENTRY_BYTES);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    // Bytes del archivo hasta ahora, índice reservado incluido
+    public long length() throws IOException {
+        return file.getFilePointer();
+    }
+
+    public void add(int id, int sizePx, ByteBuffer png) throws IOException {
+        long start = reserve();
+        ByteBuffer source = png.duplicate();
+        while (source.hasRemaining()) {
+            int count = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, count);
+            file.write(chunk, 0, count);
+        }
+        index.add(new IndexEntry(id, sizePx, start, (int) (file.getFilePointer() - start)));
+    }
+
+    /**
+     * Copia la imagen desde {@code png} sin cargarla entera. Si la lectura falla a medias, lo
+     * escrito de esa imagen se descarta y el paquete sigue siendo válido.
+     */
+    public void add(int id, int sizePx, InputStream png) throws IOException {
+        long start = reserve();
+        try {
+            int read;
+            while ((read = png.read(chunk)) != -1) {
+                file.write(chunk, 0, read);
+            }
+        } catch (IOException e) {
+            file.setLength(start);
+            file.seek(start);
+            throw e;
+        }
+        index.add(new IndexEntry(id, sizePx, start, (int) (file.getFilePointer() - start)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            Collections.sort(index, (a, b) -> a.id != b.id
+                    ? Integer.compare(a.id, b.id) : Integer.compare(a.sizePx, b.sizePx));
+
+            ByteArrayOutputStream header = new ByteArrayOutputStream(
+                    PictogramPack.HEADER_BYTES + index.size() * PictogramPack.ENTRY_BYTES);
+            DataOutputStream out = new DataOutputStream(header);
+            out.writeInt(PictogramPack.MAGIC);
+            out.writeInt(PictogramPack.FORMAT_VERSION);
+            out.writeInt(packVersion);
+            out.writeInt(index.size());
+            for (IndexEntry entry : index) {
+                out.writeInt(entry.id);
+                out.writeInt(entry.sizePx);
+                out.writeLong(entry.offset);
+                out.writeInt(entry.length);
+            }
+            file.seek(0);
+            file.write(header.toByteArray());
+        } finally {
+            file.close();
+        }
+    }
+
+    private long reserve() throws IOException {
+        if (closed) {
+            throw new IOException("Paquete ya cerrado");
+        }
+        if (index.size() >= capacity) {
+            throw new IOException("Paquete lleno: " + capacity + " imágenes");
+        }
+        return file.getFilePointer();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.mirutinavisual;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Paquetes de pictogramas locales que Glide consulta a través de {@link PackedPictogramLoader}
+ * antes de ir a la red. Se usa el de los assets del APK ({@link #ASSET_NAME}, sin comprimir para
+ * poder mapearlo) si el build lo incluye, y el paquete "fijado" que genera
+ * {@link RoutinePrefetchJobService} con los pictogramas de la rutina del usuario y que se
+ * reemplaza entero en cada ejecución.
+ */
+public class PictogramPackManager {
+
+    static final String ASSET_NAME = "pictograms.pack";
+    private static final String PACK_DIR = "pictogram_packs";
+    private static final String PINNED_FILE = "pinned.pack";
+
+    private static PictogramPackManager instance;
+
+    private final Context appContext;
+    private final File pinnedFile;
+    private final PictogramPack pack;
+    private volatile PictogramPack pinned;
+
+    public static synchronized PictogramPackManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new PictogramPackManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private PictogramPackManager(Context appContext) {
+        this.appContext = appContext;
+        this.pinnedFile = new File(new File(appContext.getFilesDir(), PACK_DIR), PINNED_FILE);
+        // Solo se lee la cabecera y el índice; las imágenes se leen del mapeo cuando hacen falta
+        pack = openAsset();
+        System.out.println("PICTOGRAM_PACK: Paquete del APK: " + (pack != null
+                ? "versión " + pack.getPackVersion() + ", " + pack.size() + " imágenes" : "ninguno"));
+        pinned = openFile(pinnedFile);
+    }
+
+    /**
+     * Si algún paquete tiene el pictograma con el tamaño pedido o mayor. Si solo lo tiene más
+     * pequeño no se usa: Glide guardaría esa imagen borrosa en su caché con la clave del tamaño
+     * grande y no la volvería a pedir a la red.
+     */
+    public boolean contains(PictogramRef ref) {
+        // Solo se empaquetan las imágenes a color
+        if (ref.getVariant() != PictogramRef.Variant.COLOR) {
+            return false;
+        }
+        int sizePx = ref.getResolution().getSizePx();
+        PictogramPack currentPinned = pinned;
+        return (pack != null && pack.contains(ref.getId(), sizePx))
+                || (currentPinned != null && currentPinned.contains(ref.getId(), sizePx));
+    }
+
+    public ByteBuffer find(PictogramRef ref) {
+        if (ref.getVariant() != PictogramRef.Variant.COLOR) {
+            return null;
+        }
+        int sizePx = ref.getResolution().getSizePx();
+        PictogramPack currentPinned = pinned;
+        // Primero el tamaño exacto en cualquiera de los dos; si no, el siguiente mayor
+        ByteBuffer image = findExact(ref.getId(), sizePx);
+        if (image == null && pack != null) {
+            image = pack.find(ref.getId(), sizePx);
+        }
+        if (image == null && currentPinned != null) {
+            image = currentPinned.find(ref.getId(), sizePx);
+        }
+        return image;
+    }
+
+    /**
+     * Imagen con ese tamaño exacto en el paquete principal o en el fijado, o null.
+     */
+    public ByteBuffer findExact(int id, int sizePx) {
+        PictogramPack currentPinned = pinned;
+        ByteBuffer image = pack != null ? pack.findExact(id, sizePx) : null;
+        if (image == null && currentPinned != null) {
+            image = currentPinned.findExact(id, sizePx);
+        }
+        return image;
+    }
+
+    /**
+     * Archivo donde escribir el próximo paquete fijado antes de instalarlo con
+     * {@link #installPinned}.
+     */
+    public File newPinnedFile() throws IOException {
+        File dir = pinnedFile.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("No se pudo crear " + dir);
+        }
+        return new File(dir, PINNED_FILE + ".tmp");
+    }
+
+    /**
+     * Sustituye el paquete fijado por el ya escrito en {@code temp} (ver {@link #newPinnedFile}).
+     * Se llama fuera del hilo principal.
+     */
+    public synchronized void installPinned(File temp) throws IOException {
+        PictogramPack candidate;
+        try {
+            candidate = PictogramPack.open(temp);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(pinnedFile)) {
+            temp.delete();
+            throw new IOException("No se pudo guardar el paquete fijado");
+        }
+        pinned = candidate;
+        System.out.println("PICTOGRAM_PACK: Paquete fijado con " + candidate.size() + " imágenes");
+    }
+
+    private PictogramPack openAsset() {
+        try (AssetFileDescriptor descriptor = appContext.getAssets().openFd(ASSET_NAME);
+             FileInputStream stream = descriptor.createInputStream()) {
+            return PictogramPack.open(stream.getChannel(), descriptor.getStartOffset(), descriptor.getLength());
+        } catch (IOException e) {
+            // Sin paquete en el APK
+            return null;
+        }
+    }
+
+    private PictogramPack openFile(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return PictogramPack.open(file);
+        } catch (IOException e) {
+            System.out.println("PICTOGRAM_PACK: Paquete " + file.getName() + " no válido, se descarta: " + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+}
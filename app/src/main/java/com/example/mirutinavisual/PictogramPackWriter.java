@@ -0,0 +1,56 @@
+package com.example.mirutinavisual;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Genera un paquete con el formato que lee {@link PictogramPack}.
+ */
+public class PictogramPackWriter {
+
+    private final int packVersion;
+    // Clave id << 32 | tamaño, para que el índice salga ordenado por id y tamaño
+    private final TreeMap<Long, byte[]> images = new TreeMap<>();
+
+    public PictogramPackWriter(int packVersion) {
+        this.packVersion = packVersion;
+    }
+
+    public PictogramPackWriter add(int id, int sizePx, byte[] png) {
+        images.put(((long) id << 32) | (sizePx & 0xFFFFFFFFL), png);
+        return this;
+    }
+
+    public void writeTo(File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            writeTo(out);
+        }
+    }
+
+    public void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(PictogramPack.MAGIC);
+        out.writeInt(PictogramPack.FORMAT_VERSION);
+        out.writeInt(packVersion);
+        out.writeInt(images.size());
+
+        long offset = PictogramPack.HEADER_BYTES + (long) images.size() * PictogramPack.ENTRY_BYTES;
+        for (Map.Entry<Long, byte[]> entry : images.entrySet()) {
+            out.writeInt((int) (entry.getKey() >> 32));
+            out.writeInt((int) (long) entry.getKey());
+            out.writeLong(offset);
+            out.writeInt(entry.getValue().length);
+            offset += entry.getValue().length;
+        }
+        for (byte[] png : images.values()) {
+            out.write(png);
+        }
+        out.flush();
+    }
+}
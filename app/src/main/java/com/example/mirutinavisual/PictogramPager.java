@@ -0,0 +1,63 @@
+package com.example.mirutinavisual;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de una búsqueda entregado por páginas.
+ * La lista se analiza una sola vez; la rejilla pide la página siguiente cuando el usuario se
+ * acerca al final, así que las imágenes de las páginas posteriores no se piden hasta entonces.
+ */
+public class PictogramPager {
+
+    private final List<Pictogram> results;
+    private final int pageSize;
+    // false si la búsqueda se cortó sin todos los resultados (idiomas que no respondieron a tiempo)
+    private final boolean complete;
+    private int loadedCount = 0;
+
+    public PictogramPager(List<Pictogram> results, int pageSize) {
+        this(results, pageSize, true);
+    }
+
+    public PictogramPager(List<Pictogram> results, int pageSize, boolean complete) {
+        this.results = new ArrayList<>(results);
+        this.pageSize = pageSize;
+        this.complete = complete;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean hasMore() {
+        return loadedCount < results.size();
+    }
+
+    public List<Pictogram> nextPage() {
+        if (!hasMore()) {
+            return Collections.emptyList();
+        }
+        int end = Math.min(loadedCount + pageSize, results.size());
+        List<Pictogram> page = new ArrayList<>(results.subList(loadedCount, end));
+        loadedCount = end;
+        return page;
+    }
+
+    public int getLoadedCount() {
+        return loadedCount;
+    }
+
+    public int getTotal() {
+        return results.size();
+    }
+
+    public boolean isEmpty() {
+        return results.isEmpty();
+    }
+
+    public List<Pictogram> getAllResults() {
+        return Collections.unmodifiableList(results);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.mirutinavisual;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.resource.bitmap.CenterCrop;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precarga en segundo plano las miniaturas de los resultados de una búsqueda para que la
+ * rejilla las encuentre ya en caché al enlazar las celdas.
+ * Las peticiones usan la misma resolución, tamaño y recorte que la celda de item_pictogram.xml
+ * (ver {@link PictogramImageLoader}), así Glide reutiliza la descarga en curso si la celda se
+ * enlaza antes de que termine.
+ * Todos los métodos se llaman desde el hilo principal.
+ */
+public class PictogramPrefetcher {
+
+    // Tamaño de pictogramImageView en item_pictogram.xml
+    private static final int THUMBNAIL_SIZE_DP = 80;
+    private static final int MAX_CONCURRENT = 3;
+
+    private final Context appContext;
+    private final RequestManager glide;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final int thumbnailSizePx;
+    private final ArrayDeque<Pictogram> pending = new ArrayDeque<>();
+    private final List<PrefetchTarget> running = new ArrayList<>();
+
+    public PictogramPrefetcher(Context context) {
+        appContext = context.getApplicationContext();
+        glide = Glide.with(appContext);
+        thumbnailSizePx = PictogramImageLoader.dpToPx(appContext, THUMBNAIL_SIZE_DP);
+    }
+
+    /**
+     * Sustituye lo que se estuviera precargando por las primeras {@code maxCount} miniaturas.
+     */
+    public void prefetch(List<Pictogram> pictograms, int maxCount) {
+        cancel();
+        for (int i = 0; i < pictograms.size() && i < maxCount; i++) {
+            pending.add(pictograms.get(i));
+        }
+        startNext();
+    }
+
+    public void cancel() {
+        pending.clear();
+        List<PrefetchTarget> active = new ArrayList<>(running);
+        running.clear();
+        for (PrefetchTarget target : active) {
+            glide.clear(target);
+        }
+    }
+
+    private void startNext() {
+        while (running.size() < MAX_CONCURRENT && !pending.isEmpty()) {
+            Pictogram pictogram = pending.poll();
+            PrefetchTarget target = new PrefetchTarget();
+            running.add(target);
+            PictogramImageLoader.request(glide, appContext, pictogram.getId(), thumbnailSizePx, new CenterCrop())
+                    .into(target);
+        }
+    }
+
+    private void finished(PrefetchTarget target) {
+        if (!running.remove(target)) {
+            return;
+        }
+        // Se libera fuera del callback de Glide; la imagen queda en la caché de memoria y disco
+        mainHandler.post(() -> glide.clear(target));
+        startNext();
+    }
+
+    private class PrefetchTarget extends CustomTarget<Drawable> {
+
+        PrefetchTarget() {
+            super(thumbnailSizePx, thumbnailSizePx);
+        }
+
+        @Override
+        public void onResourceReady(@NonNull Drawable resource, @Nullable Transition<? super Drawable> transition) {
+            finished(this);
+        }
+
+        @Override
+        public void onLoadFailed(@Nullable Drawable errorDrawable) {
+            finished(this);
+        }
+
+        @Override
+        public void onLoadCleared(@Nullable Drawable placeholder) {
+        }
+    }
+}
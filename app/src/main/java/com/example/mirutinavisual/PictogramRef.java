@@ -0,0 +1,80 @@
+package com.example.mirutinavisual;
+
+/**
+ * Referencia tipada a una imagen de pictograma: id, resolución y variante.
+ * Es el modelo que se pasa a Glide (ver {@link PictogramModelLoader}); dos referencias iguales
+ * tienen siempre la misma URL y la misma clave de caché, así todas las pantallas comparten los
+ * aciertos de memoria y disco. Es también el único sitio donde se construyen URLs de imágenes.
+ */
+public final class PictogramRef {
+
+    public enum Variant {
+        COLOR,
+        // Blanco y negro, solo disponible a través de la API
+        NO_COLOR
+    }
+
+    private static final String STATIC_URL = "https://static.arasaac.org/pictograms/";
+    private static final String API_URL = "https://api.arasaac.org/api/pictograms/";
+
+    private final int id;
+    private final PictogramResolution resolution;
+    private final Variant variant;
+
+    public PictogramRef(int id, PictogramResolution resolution, Variant variant) {
+        this.id = id;
+        this.resolution = resolution;
+        this.variant = variant;
+    }
+
+    // Resolución y variante por defecto de ARASAAC (500 px a color)
+    public static PictogramRef of(int id) {
+        return new PictogramRef(id, PictogramResolution.MEDIUM, Variant.COLOR);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public PictogramResolution getResolution() {
+        return resolution;
+    }
+
+    public Variant getVariant() {
+        return variant;
+    }
+
+    public String getUrl() {
+        if (variant == Variant.COLOR) {
+            return STATIC_URL + id + "/" + id + "_" + resolution.getSizePx() + ".png";
+        }
+        // La API solo sirve 500 y 2500 px
+        int apiResolution = resolution == PictogramResolution.LARGE ? 2500 : 500;
+        return API_URL + id + "?resolution=" + apiResolution + "&color=false&download=false";
+    }
+
+    public String getCacheKey() {
+        return "pictogram/" + id + "/" + resolution.getSizePx() + "/" + variant.name().toLowerCase();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PictogramRef)) return false;
+        PictogramRef other = (PictogramRef) o;
+        return id == other.id && resolution == other.resolution && variant == other.variant;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = id;
+        result = 31 * result + resolution.hashCode();
+        result = 31 * result + variant.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getCacheKey();
+    }
+}
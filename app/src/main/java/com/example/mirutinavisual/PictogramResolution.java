@@ -0,0 +1,31 @@
+package com.example.mirutinavisual;
+
+/**
+ * Resoluciones en las que ARASAAC publica cada pictograma como PNG estático.
+ * Se elige la más pequeña que cubre el tamaño en píxeles de la vista, para no descargar ni
+ * decodificar una imagen de 2500 px para una miniatura de 80 dp.
+ */
+public enum PictogramResolution {
+    SMALL(300),
+    MEDIUM(500),
+    LARGE(2500);
+
+    private final int sizePx;
+
+    PictogramResolution(int sizePx) {
+        this.sizePx = sizePx;
+    }
+
+    public int getSizePx() {
+        return sizePx;
+    }
+
+    public static PictogramResolution forTargetSize(int targetPx) {
+        for (PictogramResolution resolution : values()) {
+            if (targetPx <= resolution.sizePx) {
+                return resolution;
+            }
+        }
+        return LARGE;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.mirutinavisual;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector en streaming de las respuestas de búsqueda de ARASAAC.
+ * Solo extrae "_id" y "keywords[].keyword", salta el resto de campos sin construir objetos
+ * y deja de leer en cuanto tiene los resultados pedidos.
+ */
+public class PictogramResponseParser {
+
+    public static List<Pictogram> parse(Reader source, int maxResults) throws IOException {
+        List<Pictogram> pictograms = new ArrayList<>();
+
+        JsonReader reader = new JsonReader(source);
+        reader.beginArray();
+        while (pictograms.size() < maxResults && reader.hasNext()) {
+            List<String> keywords = new ArrayList<>();
+            int id = readPictogram(reader, keywords);
+            if (id <= 0) {
+                continue;
+            }
+
+            // Si no hay keywords, usar un placeholder
+            if (keywords.isEmpty()) {
+                keywords.add("Pictograma " + id);
+            }
+
+            pictograms.add(new Pictogram(id, keywords));
+        }
+        // No se consume el resto del array: quien llama cierra el flujo y descarta lo que quede
+
+        return pictograms;
+    }
+
+    /**
+     * Lee un objeto pictograma completo y devuelve su id (o -1 si no tiene), añadiendo sus
+     * palabras clave a {@code keywords}.
+     */
+    static int readPictogram(JsonReader reader, List<String> keywords) throws IOException {
+        int id = -1;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("_id".equals(name) && reader.peek() == JsonToken.NUMBER) {
+                id = reader.nextInt();
+            } else if ("keywords".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                readKeywords(reader, keywords);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return id;
+    }
+
+    private static void readKeywords(JsonReader reader, List<String> keywords) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("keyword".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                    keywords.add(reader.nextString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+    }
+}
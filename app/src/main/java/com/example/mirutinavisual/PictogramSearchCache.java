@@ -0,0 +1,293 @@
+package com.example.mirutinavisual;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché LRU en disco para los resultados de búsqueda de ARASAAC.
+ * Las entradas se indexan por el término normalizado (minúsculas, sin tildes, sin espacios
+ * sobrantes) y se conservan entre sesiones en un único archivo JSON.
+ * El archivo no se reescribe en cada cambio: los cambios se agrupan y se guardan en un hilo
+ * propio como mucho una vez cada {@link #PERSIST_DELAY_MS}.
+ */
+public class PictogramSearchCache {
+
+    // Una entrada es fresca durante 1 día y se puede servir "caducada" (revalidando en
+    // segundo plano) hasta 30 días; después solo se usa si no hay conexión.
+    public static final long DEFAULT_TTL_MS = 24L * 60 * 60 * 1000;
+    public static final long DEFAULT_STALE_MS = 30L * 24 * 60 * 60 * 1000;
+    public static final int DEFAULT_MAX_ENTRIES = 200;
+    static final long PERSIST_DELAY_MS = 2000;
+
+    // Un solo hilo para todos los archivos de caché: guardar es poco frecuente y breve
+    private static final ScheduledExecutorService PERSIST_EXECUTOR =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "search-cache");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public enum Freshness {
+        FRESH,
+        STALE,
+        EXPIRED
+    }
+
+    public static class Entry {
+        String term;
+        List<Pictogram> pictograms;
+        long storedAt;
+        // Validadores HTTP para revalidar con una petición condicional (304)
+        String etag;
+        String lastModified;
+
+        public Entry() {
+            // Constructor vacío requerido para Gson
+        }
+
+        Entry(String term, List<Pictogram> pictograms, long storedAt, String etag, String lastModified) {
+            this.term = term;
+            this.pictograms = pictograms;
+            this.storedAt = storedAt;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        public List<Pictogram> getPictograms() {
+            return new ArrayList<>(pictograms);
+        }
+
+        public long getStoredAt() {
+            return storedAt;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+    }
+
+    private final File file;
+    private final long ttlMs;
+    private final long staleMs;
+    private final Gson gson = new Gson();
+    private final LinkedHashMap<String, Entry> entries;
+    private final long persistDelayMs;
+    // Protege el archivo; se toma siempre antes que el cerrojo de la instancia
+    private final Object fileLock = new Object();
+    private boolean loaded = false;
+    private boolean dirty = false;
+    private boolean persistScheduled = false;
+
+    public PictogramSearchCache(File file) {
+        this(file, DEFAULT_TTL_MS, DEFAULT_STALE_MS, DEFAULT_MAX_ENTRIES);
+    }
+
+    public PictogramSearchCache(File file, long ttlMs, long staleMs, int maxEntries) {
+        this(file, ttlMs, staleMs, maxEntries, PERSIST_DELAY_MS);
+    }
+
+    PictogramSearchCache(File file, long ttlMs, long staleMs, int maxEntries, long persistDelayMs) {
+        this.file = file;
+        this.ttlMs = ttlMs;
+        this.staleMs = staleMs;
+        this.persistDelayMs = persistDelayMs;
+        // accessOrder = true: el orden de iteración va del menos al más usado recientemente
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Normaliza un término de búsqueda: minúsculas, sin tildes ni diéresis y con los espacios
+     * colapsados. La "ñ" se conserva porque cambia el significado ("año" / "ano").
+     */
+    public static String normalize(String term) {
+        if (term == null) {
+            return "";
+        }
+        String lower = term.trim().toLowerCase(new Locale("es", "ES"));
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        char previous = 0;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                if (c == '\u0303' && previous == 'n') {
+                    builder.append(c);
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                if (previous == ' ' || builder.length() == 0) {
+                    continue;
+                }
+                c = ' ';
+            }
+            builder.append(c);
+            previous = c;
+        }
+
+        return Normalizer.normalize(builder.toString(), Normalizer.Form.NFC);
+    }
+
+    public synchronized Entry get(String normalizedTerm) {
+        ensureLoaded();
+        return entries.get(normalizedTerm);
+    }
+
+    public synchronized void put(String normalizedTerm, List<Pictogram> pictograms) {
+        put(normalizedTerm, pictograms, null, null);
+    }
+
+    public synchronized void put(String normalizedTerm, List<Pictogram> pictograms, String etag, String lastModified) {
+        ensureLoaded();
+        entries.put(normalizedTerm, new Entry(normalizedTerm, new ArrayList<>(pictograms),
+                System.currentTimeMillis(), etag, lastModified));
+        schedulePersist();
+    }
+
+    /**
+     * El servidor confirmó (304) que la entrada sigue vigente: vuelve a contar como fresca.
+     */
+    public synchronized void touch(String normalizedTerm) {
+        ensureLoaded();
+        Entry entry = entries.get(normalizedTerm);
+        if (entry != null) {
+            entry.storedAt = System.currentTimeMillis();
+            schedulePersist();
+        }
+    }
+
+    public Freshness freshnessOf(Entry entry) {
+        long age = System.currentTimeMillis() - entry.storedAt;
+        if (age < ttlMs) {
+            return Freshness.FRESH;
+        } else if (age < staleMs) {
+            return Freshness.STALE;
+        }
+        return Freshness.EXPIRED;
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return entries.size();
+    }
+
+    public void clear() {
+        synchronized (fileLock) {
+            synchronized (this) {
+                entries.clear();
+                loaded = true;
+                dirty = false;
+            }
+            if (file != null && file.exists() && !file.delete()) {
+                System.out.println("SEARCH_CACHE: No se pudo borrar " + file);
+            }
+        }
+    }
+
+    /**
+     * Guarda ahora los cambios pendientes, si los hay.
+     */
+    public void flush() {
+        synchronized (fileLock) {
+            List<Entry> snapshot;
+            synchronized (this) {
+                persistScheduled = false;
+                if (!dirty) {
+                    return;
+                }
+                dirty = false;
+                snapshot = new ArrayList<>(entries.values());
+            }
+            persist(snapshot);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        if (file == null || !file.exists()) {
+            return;
+        }
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            Type listType = new TypeToken<List<Entry>>() {}.getType();
+            List<Entry> stored = gson.fromJson(reader, listType);
+            if (stored != null) {
+                // Se guardan del menos al más reciente, así se respeta el orden LRU al reinsertar
+                for (Entry entry : stored) {
+                    if (entry != null && entry.term != null && entry.pictograms != null) {
+                        entries.put(entry.term, entry);
+                    }
+                }
+            }
+            System.out.println("SEARCH_CACHE: " + entries.size() + " búsquedas cargadas desde disco");
+        } catch (IOException | JsonParseException e) {
+            System.out.println("SEARCH_CACHE: Caché ilegible, se descarta: " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    private void schedulePersist() {
+        if (file == null) {
+            return;
+        }
+        dirty = true;
+        if (!persistScheduled) {
+            persistScheduled = true;
+            PERSIST_EXECUTOR.schedule(this::flush, persistDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void persist(List<Entry> snapshot) {
+
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8)) {
+            gson.toJson(snapshot, writer);
+        } catch (IOException e) {
+            System.out.println("SEARCH_CACHE: Error al guardar caché: " + e.getMessage());
+            return;
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            System.out.println("SEARCH_CACHE: No se pudo reemplazar " + file);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.mirutinavisual;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Historial compacto de los pictogramas elegidos: para cada id guarda cuántas veces se ha
+ * usado, cuándo fue la última vez y una puntuación que combina frecuencia y recencia (cada uso
+ * suma 1 y la puntuación se reduce a la mitad cada {@link #HALF_LIFE_MS}).
+ * Son arrays paralelos de tamaño fijo; al llenarse se sustituye la entrada con menos puntuación.
+ */
+public class PictogramUsageHistory {
+
+    static final int MAX_ENTRIES = 64;
+    static final long HALF_LIFE_MS = 14L * 24 * 60 * 60 * 1000;
+
+    private final int[] ids = new int[MAX_ENTRIES];
+    private final int[] counts = new int[MAX_ENTRIES];
+    private final long[] lastUsed = new long[MAX_ENTRIES];
+    private final double[] scores = new double[MAX_ENTRIES];
+    private final String[] labels = new String[MAX_ENTRIES];
+    private int size = 0;
+
+    public synchronized void record(int id, String label, long now) {
+        int index = indexOf(id);
+        if (index < 0) {
+            if (size < MAX_ENTRIES) {
+                index = size++;
+            } else {
+                index = lowestScoreIndex(now);
+            }
+            ids[index] = id;
+            counts[index] = 0;
+            scores[index] = 0;
+            lastUsed[index] = now;
+        }
+
+        scores[index] = scoreAt(index, now) + 1;
+        counts[index]++;
+        lastUsed[index] = now;
+        if (label != null && !label.isEmpty()) {
+            labels[index] = label;
+        }
+    }
+
+    /**
+     * Los pictogramas más usados, de mayor a menor puntuación.
+     */
+    public synchronized List<Pictogram> getFrequent(int maxResults, long now) {
+        return toPictograms(rankedIndexes(null, now), maxResults);
+    }
+
+    /**
+     * Pictogramas del historial cuya etiqueta empieza por el término (o alguna de sus palabras),
+     * ordenados por puntuación.
+     */
+    public synchronized List<Pictogram> suggest(String term, int maxResults, long now) {
+        String normalizedTerm = PictogramSearchCache.normalize(term);
+        if (normalizedTerm.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return toPictograms(rankedIndexes(normalizedTerm, now), maxResults);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int getCount(int id) {
+        int index = indexOf(id);
+        return index >= 0 ? counts[index] : 0;
+    }
+
+    // Una línea por pictograma: id, usos, último uso, puntuación y etiqueta separados por tabuladores
+    public synchronized String encode() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append('\n');
+            }
+            String label = labels[i] != null ? labels[i].replace('\t', ' ').replace('\n', ' ') : "";
+            builder.append(ids[i]).append('\t')
+                    .append(counts[i]).append('\t')
+                    .append(lastUsed[i]).append('\t')
+                    .append(scores[i]).append('\t')
+                    .append(label);
+        }
+        return builder.toString();
+    }
+
+    public static PictogramUsageHistory decode(String encoded) {
+        PictogramUsageHistory history = new PictogramUsageHistory();
+        if (encoded == null || encoded.isEmpty()) {
+            return history;
+        }
+
+        for (String line : encoded.split("\n")) {
+            String[] fields = line.split("\t", 5);
+            if (fields.length < 5 || history.size >= MAX_ENTRIES) {
+                continue;
+            }
+            try {
+                int i = history.size;
+                history.ids[i] = Integer.parseInt(fields[0]);
+                history.counts[i] = Integer.parseInt(fields[1]);
+                history.lastUsed[i] = Long.parseLong(fields[2]);
+                history.scores[i] = Double.parseDouble(fields[3]);
+                history.labels[i] = fields[4];
+                history.size++;
+            } catch (NumberFormatException e) {
+                System.out.println("USAGE_HISTORY: Línea ignorada: " + line);
+            }
+        }
+        return history;
+    }
+
+    private int indexOf(int id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private double scoreAt(int index, long now) {
+        long age = Math.max(0, now - lastUsed[index]);
+        return scores[index] * Math.pow(0.5, (double) age / HALF_LIFE_MS);
+    }
+
+    private int lowestScoreIndex(long now) {
+        int lowest = 0;
+        for (int i = 1; i < size; i++) {
+            if (scoreAt(i, now) < scoreAt(lowest, now)) {
+                lowest = i;
+            }
+        }
+        return lowest;
+    }
+
+    private List<Integer> rankedIndexes(String normalizedTerm, long now) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (normalizedTerm == null || matches(labels[i], normalizedTerm)) {
+                indexes.add(i);
+            }
+        }
+        Collections.sort(indexes, (a, b) -> Double.compare(scoreAt(b, now), scoreAt(a, now)));
+        return indexes;
+    }
+
+    private static boolean matches(String label, String normalizedTerm) {
+        if (label == null) {
+            return false;
+        }
+        String normalizedLabel = PictogramSearchCache.normalize(label);
+        return normalizedLabel.startsWith(normalizedTerm) || normalizedLabel.contains(" " + normalizedTerm);
+    }
+
+    private List<Pictogram> toPictograms(List<Integer> indexes, int maxResults) {
+        List<Pictogram> pictograms = new ArrayList<>();
+        for (int index : indexes) {
+            if (pictograms.size() >= maxResults) {
+                break;
+            }
+            List<String> keywords = new ArrayList<>();
+            keywords.add(labels[index] != null ? labels[index] : "Pictograma " + ids[index]);
+            pictograms.add(new Pictogram(ids[index], keywords));
+        }
+        return pictograms;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.mirutinavisual;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.List;
+
+/**
+ * Guarda en SharedPreferences qué pictogramas eligen los cuidadores, para ofrecer una paleta
+ * de frecuentes y sugerencias que no necesitan red. Una instancia por proceso.
+ */
+public class PictogramUsageTracker {
+
+    private static final String PREFS_NAME = "pictogram_usage";
+    private static final String KEY_HISTORY = "history";
+
+    private static PictogramUsageTracker instance;
+
+    private final SharedPreferences prefs;
+    private final PictogramUsageHistory history;
+
+    public static synchronized PictogramUsageTracker getInstance(Context context) {
+        if (instance == null) {
+            instance = new PictogramUsageTracker(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private PictogramUsageTracker(Context appContext) {
+        prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        history = PictogramUsageHistory.decode(prefs.getString(KEY_HISTORY, null));
+    }
+
+    public void recordSelection(Pictogram pictogram) {
+        if (pictogram == null || pictogram.getId() <= 0) {
+            return;
+        }
+        String label = null;
+        if (pictogram.getKeywords() != null && !pictogram.getKeywords().isEmpty()) {
+            label = pictogram.getKeywords().get(0);
+        }
+        history.record(pictogram.getId(), label, System.currentTimeMillis());
+        prefs.edit().putString(KEY_HISTORY, history.encode()).apply();
+    }
+
+    public List<Pictogram> getFrequentPictograms(int maxResults) {
+        return history.getFrequent(maxResults, System.currentTimeMillis());
+    }
+
+    public List<Pictogram> suggest(String term, int maxResults) {
+        return history.suggest(term, maxResults, System.currentTimeMillis());
+    }
+}
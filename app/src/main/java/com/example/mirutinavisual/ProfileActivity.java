@@ -26,7 +26,6 @@ import androidx.core.content.ContextCompat;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
-import java.io.IOException;
 import java.util.Locale;
 
 public class ProfileActivity extends AppCompatActivity implements TextToSpeech.OnInitListener {
@@ -109,7 +108,11 @@ public class ProfileActivity extends AppCompatActivity implements TextToSpeech.O
                     Bundle extras = result.getData().getExtras();
                     if (extras != null) {
                         Bitmap imageBitmap = (Bitmap) extras.get("data");
-                        profileImageView.setImageBitmap(imageBitmap);
+                        if (imageBitmap != null) {
+                            profileImageView.setImageBitmap(imageBitmap);
+                            ProfileAvatarManager.getInstance(this)
+                                .saveFromBitmap(sharedPreferences, getCurrentUserId(), imageBitmap, avatarSaved);
+                        }
                         speakText("Foto tomada correctamente");
                     }
                 }
@@ -122,12 +125,12 @@ public class ProfileActivity extends AppCompatActivity implements TextToSpeech.O
             result -> {
                 if (result.getResultCode() == RESULT_OK && result.getData() != null) {
                     Uri imageUri = result.getData().getData();
-                    try {
-                        Bitmap bitmap = MediaStore.Images.Media.getBitmap(
-                            getContentResolver(), imageUri);
-                        profileImageView.setImageBitmap(bitmap);
+                    if (imageUri != null) {
+                        // Se decodifica reducida en segundo plano y se guarda como miniatura
+                        ProfileAvatarManager.getInstance(this)
+                            .saveFromUri(sharedPreferences, getCurrentUserId(), imageUri, avatarSaved);
                         speakText("Foto seleccionada correctamente");
-                    } catch (IOException e) {
+                    } else {
                         showToast("Error al cargar la imagen");
                     }
                 }
@@ -271,51 +274,22 @@ public class ProfileActivity extends AppCompatActivity implements TextToSpeech.O
     }
     
     private void loadUserAvatar() {
-        String avatarType = sharedPreferences.getString("avatar_type", "");
-        
-        if ("pictogram".equals(avatarType)) {
-            // Cargar pictograma como avatar
-            String pictogramId = sharedPreferences.getString("avatar_pictogram_id", "");
-            if (!pictogramId.isEmpty()) {
-                loadPictogramAsAvatar(pictogramId);
-            } else {
-                // Avatar por defecto
-                profileImageView.setImageResource(R.drawable.ic_profile_default);
-            }
-        } else {
-            // Intentar cargar foto guardada (funcionalidad existente)
-            String imagePath = sharedPreferences.getString("profile_image_path", "");
-            if (!imagePath.isEmpty()) {
-                try {
-                    android.graphics.Bitmap bitmap = android.graphics.BitmapFactory.decodeFile(imagePath);
-                    if (bitmap != null) {
-                        profileImageView.setImageBitmap(bitmap);
-                    } else {
-                        profileImageView.setImageResource(R.drawable.ic_profile_default);
-                    }
-                } catch (Exception e) {
-                    System.out.println("PROFILE: Error al cargar imagen: " + e.getMessage());
-                    profileImageView.setImageResource(R.drawable.ic_profile_default);
-                }
-            } else {
-                profileImageView.setImageResource(R.drawable.ic_profile_default);
-            }
-        }
+        // Pictograma o miniatura de la foto, decodificados fuera del hilo principal
+        ProfileAvatarManager.getInstance(this)
+            .loadInto(sharedPreferences, profileImageView, R.drawable.ic_profile_default);
     }
     
-    private void loadPictogramAsAvatar(String pictogramId) {
-        String imageUrl = "https://api.arasaac.org/api/pictograms/" + pictogramId + "?download=false";
-        
-        // Usar Glide para cargar la imagen
-        com.bumptech.glide.Glide.with(this)
-            .load(imageUrl)
-            .placeholder(R.drawable.ic_profile_default)
-            .error(R.drawable.ic_profile_default)
-            .circleCrop() // Hacer la imagen circular
-            .into(profileImageView);
-            
-        System.out.println("PROFILE: Cargando pictograma como avatar: " + pictogramId);
-    }
+    private final ProfileAvatarManager.SaveCallback avatarSaved = new ProfileAvatarManager.SaveCallback() {
+        @Override
+        public void onSaved() {
+            loadUserAvatar();
+        }
+
+        @Override
+        public void onError(String error) {
+            showToast("Error al cargar la imagen");
+        }
+    };
     
     @Override
     protected void onResume() {
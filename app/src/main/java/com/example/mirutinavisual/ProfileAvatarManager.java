@@ -0,0 +1,235 @@
+package com.example.mirutinavisual;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.ImageView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.resource.bitmap.CircleCrop;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Avatar del usuario: un pictograma o una foto propia.
+ * La foto se decodifica una sola vez en segundo plano, reducida con inSampleSize al tamaño en
+ * que se muestra, y se guarda recortada y comprimida como miniatura; después todas las pantallas
+ * cargan esa miniatura con Glide, sin volver a tocar la foto original.
+ * Los datos del avatar se guardan en las preferencias de perfil de cada usuario.
+ */
+public class ProfileAvatarManager {
+
+    public interface SaveCallback {
+        void onSaved();
+        void onError(String error);
+    }
+
+    static final String KEY_AVATAR_TYPE = "avatar_type";
+    static final String KEY_PICTOGRAM_ID = "avatar_pictogram_id";
+    static final String KEY_IMAGE_PATH = "profile_image_path";
+    static final String TYPE_PICTOGRAM = "pictogram";
+    static final String TYPE_PHOTO = "photo";
+
+    // La vista más grande que muestra el avatar: profileImageView en activity_profile.xml
+    private static final int THUMBNAIL_SIZE_DP = 150;
+    private static final int JPEG_QUALITY = 85;
+
+    private static ProfileAvatarManager instance;
+
+    private final Context appContext;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final int thumbnailSizePx;
+
+    public static synchronized ProfileAvatarManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new ProfileAvatarManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private ProfileAvatarManager(Context appContext) {
+        this.appContext = appContext;
+        this.thumbnailSizePx = PictogramImageLoader.dpToPx(appContext, THUMBNAIL_SIZE_DP);
+    }
+
+    /**
+     * Muestra el avatar guardado en {@code profilePrefs}, o {@code defaultRes} si no hay ninguno.
+     */
+    public void loadInto(SharedPreferences profilePrefs, ImageView imageView, int defaultRes) {
+        String avatarType = profilePrefs.getString(KEY_AVATAR_TYPE, "");
+
+        if (TYPE_PICTOGRAM.equals(avatarType)) {
+            int pictogramId = parseId(profilePrefs.getString(KEY_PICTOGRAM_ID, ""));
+            if (pictogramId > 0) {
+                PictogramImageLoader.request(imageView, pictogramId, new CircleCrop())
+                        .placeholder(defaultRes)
+                        .error(defaultRes)
+                        .into(imageView);
+                return;
+            }
+        } else {
+            String imagePath = profilePrefs.getString(KEY_IMAGE_PATH, "");
+            File thumbnail = imagePath.isEmpty() ? null : new File(imagePath);
+            if (thumbnail != null && thumbnail.exists()) {
+                // Ya está recortada y a su tamaño: no hace falta guardarla otra vez en la caché de disco
+                Glide.with(imageView)
+                        .load(thumbnail)
+                        .signature(new ObjectKey(thumbnail.lastModified()))
+                        .diskCacheStrategy(DiskCacheStrategy.NONE)
+                        .placeholder(defaultRes)
+                        .error(defaultRes)
+                        .circleCrop()
+                        .into(imageView);
+                return;
+            }
+        }
+        Glide.with(imageView).clear(imageView);
+        imageView.setImageResource(defaultRes);
+    }
+
+    /**
+     * Foto elegida en la galería. El callback llega en el hilo principal.
+     */
+    public void saveFromUri(SharedPreferences profilePrefs, String userId, Uri imageUri, SaveCallback callback) {
+        executor.execute(() -> {
+            try {
+                Bitmap source = decodeSampled(appContext.getContentResolver(), imageUri);
+                saveThumbnail(profilePrefs, userId, source, readRotation(appContext.getContentResolver(), imageUri));
+                mainHandler.post(callback::onSaved);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("AVATAR: Error al guardar la foto: " + e.getMessage());
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Foto de la cámara (la miniatura que devuelve ACTION_IMAGE_CAPTURE).
+     */
+    public void saveFromBitmap(SharedPreferences profilePrefs, String userId, Bitmap photo, SaveCallback callback) {
+        executor.execute(() -> {
+            try {
+                saveThumbnail(profilePrefs, userId, photo, 0);
+                mainHandler.post(callback::onSaved);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("AVATAR: Error al guardar la foto: " + e.getMessage());
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+            }
+        });
+    }
+
+    private Bitmap decodeSampled(ContentResolver resolver, Uri imageUri) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = resolver.openInputStream(imageUri)) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("No es una imagen");
+        }
+
+        options.inSampleSize = sampleSizeFor(options.outWidth, options.outHeight, thumbnailSizePx);
+        options.inJustDecodeBounds = false;
+        try (InputStream in = resolver.openInputStream(imageUri)) {
+            Bitmap bitmap = BitmapFactory.decodeStream(in, null, options);
+            if (bitmap == null) {
+                throw new IOException("No se pudo decodificar la imagen");
+            }
+            System.out.println("AVATAR: " + options.outWidth + "x" + options.outHeight
+                    + " decodificada con inSampleSize " + options.inSampleSize);
+            return bitmap;
+        }
+    }
+
+    // Mayor potencia de dos que deja el lado corto igual o por encima del tamaño pedido
+    static int sampleSizeFor(int width, int height, int targetPx) {
+        int sampleSize = 1;
+        int shortSide = Math.min(width, height);
+        while (shortSide / (sampleSize * 2) >= targetPx) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static int readRotation(ContentResolver resolver, Uri imageUri) {
+        try (InputStream in = resolver.openInputStream(imageUri)) {
+            if (in == null) {
+                return 0;
+            }
+            int orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // Recorta el cuadrado central, lo gira y lo escala en un solo paso, y lo guarda como JPEG
+    private void saveThumbnail(SharedPreferences profilePrefs, String userId, Bitmap source, int rotation)
+            throws IOException {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - side) / 2;
+        int y = (source.getHeight() - side) / 2;
+        Matrix matrix = new Matrix();
+        if (side > thumbnailSizePx) {
+            float scale = (float) thumbnailSizePx / side;
+            matrix.postScale(scale, scale);
+        }
+        matrix.postRotate(rotation);
+        Bitmap thumbnail = Bitmap.createBitmap(source, x, y, side, side, matrix, true);
+
+        File file = new File(appContext.getFilesDir(), "avatar_" + userId + ".jpg");
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            if (!thumbnail.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out)) {
+                throw new IOException("No se pudo comprimir la foto");
+            }
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("No se pudo guardar la foto");
+        }
+        if (thumbnail != source) {
+            thumbnail.recycle();
+        }
+
+        profilePrefs.edit()
+                .putString(KEY_AVATAR_TYPE, TYPE_PHOTO)
+                .putString(KEY_IMAGE_PATH, file.getAbsolutePath())
+                .apply();
+        System.out.println("AVATAR: Miniatura guardada (" + file.length() + " bytes)");
+    }
+
+    private static int parseId(String pictogramId) {
+        try {
+            return Integer.parseInt(pictogramId.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
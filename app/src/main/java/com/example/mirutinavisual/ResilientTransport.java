@@ -0,0 +1,593 @@
+package com.example.mirutinavisual;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envoltorio de otro transporte para redes inestables (las de los colegios, sobre todo).
+ * - Reintenta los GET que fallan por red o con 5xx/429, con espera exponencial y aleatoria.
+ * - Opcionalmente lanza una segunda petición igual si la primera tarda más que el p95 del
+ *   endpoint, y se queda con la que responda antes.
+ * - Circuit breaker: tras varios fallos seguidos deja de llamar a la API durante un tiempo y
+ *   falla al instante, para que el servicio pase directamente a la caché o al catálogo local.
+ * - Cuenta peticiones, errores y latencias por endpoint.
+ */
+public class ResilientTransport implements ArasaacTransport {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long DEFAULT_BASE_BACKOFF_MS = 250;
+    private static final long MAX_BACKOFF_MS = 4000;
+    // No se empieza otro intento si la petición ya lleva este tiempo
+    private static final long RETRY_BUDGET_MS = 20000;
+
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final long DEFAULT_OPEN_MS = 30000;
+
+    // Sin suficientes muestras no hay un p95 fiable y no se duplica nada
+    static final int MIN_SAMPLES_FOR_HEDGE = 20;
+    private static final long MIN_HEDGE_DELAY_MS = 150;
+    // Si el p95 es mayor (descarga del catálogo), una segunda petición no ayuda
+    private static final long MAX_HEDGE_DELAY_MS = 3000;
+
+    private static final int HEDGE_THREADS = 4;
+    private static final int HEDGE_QUEUE_CAPACITY = 16;
+
+    /**
+     * La API se considera caída y no se ha enviado la petición.
+     */
+    public static class CircuitOpenException extends IOException {
+        CircuitOpenException() {
+            super("ARASAAC no responde, se reintentará en unos segundos");
+        }
+    }
+
+    /**
+     * Contadores de un endpoint (ruta sin el último segmento, p. ej. "/api/pictograms/es/search").
+     */
+    public static class EndpointStats {
+        private static final int LATENCY_SAMPLES = 128;
+
+        private final long[] latencies = new long[LATENCY_SAMPLES];
+        private int latencyCount = 0;
+        private int nextLatency = 0;
+        private long requests;
+        private long errors;
+        private long retries;
+        private long hedges;
+        private long hedgeWins;
+        private long rejected;
+
+        synchronized void recordLatency(long latencyMs) {
+            requests++;
+            latencies[nextLatency] = latencyMs;
+            nextLatency = (nextLatency + 1) % LATENCY_SAMPLES;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+        }
+
+        synchronized void recordError() {
+            requests++;
+            errors++;
+        }
+
+        synchronized void recordRetry() {
+            retries++;
+        }
+
+        synchronized void recordHedge() {
+            hedges++;
+        }
+
+        synchronized void recordHedgeWin() {
+            hedgeWins++;
+        }
+
+        synchronized void recordRejected() {
+            rejected++;
+        }
+
+        // Peticiones enviadas al servidor, incluidos reintentos y duplicadas
+        public synchronized long getRequests() {
+            return requests;
+        }
+
+        public synchronized long getErrors() {
+            return errors;
+        }
+
+        public synchronized long getRetries() {
+            return retries;
+        }
+
+        public synchronized long getHedges() {
+            return hedges;
+        }
+
+        public synchronized long getHedgeWins() {
+            return hedgeWins;
+        }
+
+        // Peticiones que no se enviaron porque el circuito estaba abierto
+        public synchronized long getRejected() {
+            return rejected;
+        }
+
+        public synchronized int getLatencySampleCount() {
+            return latencyCount;
+        }
+
+        /**
+         * Percentil de las últimas latencias (tiempo hasta recibir la cabecera), o -1 sin datos.
+         */
+        public synchronized long getLatencyPercentileMs(int percentile) {
+            if (latencyCount == 0) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * latencyCount) - 1;
+            return sorted[Math.max(0, Math.min(latencyCount - 1, index))];
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "peticiones=" + requests + ", errores=" + errors + ", reintentos=" + retries
+                    + ", duplicadas=" + hedges + " (" + hedgeWins + " ganadas), rechazadas=" + rejected
+                    + ", p50=" + getLatencyPercentileMs(50) + " ms, p95=" + getLatencyPercentileMs(95) + " ms";
+        }
+    }
+
+    private enum CircuitState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final ArasaacTransport delegate;
+    private final boolean hedgingEnabled;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final int failureThreshold;
+    private final long openMs;
+    private final Map<String, EndpointStats> stats = new HashMap<>();
+
+    private ExecutorService hedgeExecutor;
+
+    // Estado del circuit breaker, protegido por "this"
+    private CircuitState circuitState = CircuitState.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openUntil = 0;
+    private boolean trialInFlight = false;
+
+    public ResilientTransport(ArasaacTransport delegate, boolean hedgingEnabled) {
+        this(delegate, hedgingEnabled, DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_BACKOFF_MS,
+                DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MS);
+    }
+
+    ResilientTransport(ArasaacTransport delegate, boolean hedgingEnabled, int maxAttempts,
+                       long baseBackoffMs, int failureThreshold, long openMs) {
+        this.delegate = delegate;
+        this.hedgingEnabled = hedgingEnabled;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = baseBackoffMs;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    @Override
+    public Call newCall(String url, String etag, String lastModified, int readTimeoutMs) {
+        return new ResilientCall(url, etag, lastModified, readTimeoutMs);
+    }
+
+    public Map<String, EndpointStats> getEndpointStats() {
+        synchronized (stats) {
+            return new LinkedHashMap<>(stats);
+        }
+    }
+
+    public synchronized boolean isCircuitOpen() {
+        return circuitState == CircuitState.OPEN && System.currentTimeMillis() < openUntil;
+    }
+
+    static String endpointOf(String url) {
+        String path;
+        try {
+            path = new URI(url).getRawPath();
+        } catch (Exception e) {
+            path = url;
+        }
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        int lastSlash = path.lastIndexOf('/');
+        return lastSlash > 0 ? path.substring(0, lastSlash) : path;
+    }
+
+    private EndpointStats statsFor(String endpoint) {
+        synchronized (stats) {
+            EndpointStats endpointStats = stats.get(endpoint);
+            if (endpointStats == null) {
+                endpointStats = new EndpointStats();
+                stats.put(endpoint, endpointStats);
+            }
+            return endpointStats;
+        }
+    }
+
+    private synchronized ExecutorService hedgeExecutor() {
+        if (hedgeExecutor == null) {
+            hedgeExecutor = ArasaacExecutors.newBoundedExecutor(HEDGE_THREADS, HEDGE_QUEUE_CAPACITY,
+                    30, TimeUnit.SECONDS);
+        }
+        return hedgeExecutor;
+    }
+
+    private static boolean isRetryable(int code) {
+        return code >= 500 || code == 429;
+    }
+
+    // --- Circuit breaker ---
+
+    private synchronized boolean allowRequest() {
+        switch (circuitState) {
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                // Pasado el tiempo de espera se deja pasar una sola petición de prueba
+                circuitState = CircuitState.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            case HALF_OPEN:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    private synchronized void recordSuccess() {
+        if (circuitState != CircuitState.CLOSED) {
+            System.out.println("ARASAAC_NET: Circuito cerrado, la API vuelve a responder");
+        }
+        circuitState = CircuitState.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    private synchronized void recordFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (circuitState == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (circuitState != CircuitState.OPEN) {
+                System.out.println("ARASAAC_NET: Circuito abierto tras " + consecutiveFailures + " fallos");
+            }
+            circuitState = CircuitState.OPEN;
+            openUntil = System.currentTimeMillis() + openMs;
+        }
+    }
+
+    // Una petición cancelada no dice nada de la salud de la API
+    private synchronized void recordAbandoned() {
+        trialInFlight = false;
+    }
+
+    /**
+     * Un envío al transporte real. Si pierde la carrera contra la petición duplicada se cancela
+     * y su respuesta, si llega, se cierra para liberar la conexión.
+     */
+    private class Attempt {
+        private final Call call;
+        private final EndpointStats endpointStats;
+        private boolean abandoned = false;
+        private Response result;
+
+        Attempt(Call call, EndpointStats endpointStats) {
+            this.call = call;
+            this.endpointStats = endpointStats;
+        }
+
+        Response run() throws IOException {
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = call.execute();
+            } catch (IOException e) {
+                if (isAbandoned()) {
+                    recordAbandoned();
+                } else {
+                    endpointStats.recordError();
+                    recordFailure();
+                }
+                throw e;
+            }
+
+            if (isRetryable(response.getCode())) {
+                endpointStats.recordError();
+                recordFailure();
+            } else {
+                endpointStats.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                recordSuccess();
+            }
+
+            synchronized (this) {
+                if (abandoned) {
+                    response.close();
+                    throw new IOException("Petición descartada");
+                }
+                result = response;
+            }
+            return response;
+        }
+
+        synchronized boolean isAbandoned() {
+            return abandoned;
+        }
+
+        void abandon() {
+            Response pending;
+            synchronized (this) {
+                abandoned = true;
+                pending = result;
+                result = null;
+            }
+            call.cancel();
+            if (pending != null) {
+                try {
+                    pending.close();
+                } catch (IOException ignored) {
+                    // La conexión simplemente no se reutilizará
+                }
+            }
+        }
+    }
+
+    private class ResilientCall implements Call {
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final int readTimeoutMs;
+        private final String endpoint;
+        private final CountDownLatch cancelSignal = new CountDownLatch(1);
+        private final List<Attempt> activeAttempts = new ArrayList<>();
+        private volatile boolean cancelled = false;
+
+        ResilientCall(String url, String etag, String lastModified, int readTimeoutMs) {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.readTimeoutMs = readTimeoutMs;
+            this.endpoint = endpointOf(url);
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            EndpointStats endpointStats = statsFor(endpoint);
+            long start = System.currentTimeMillis();
+            Response lastResponse = null;
+
+            for (int attempt = 0; attempt < maxAttempts; attempt++) {
+                if (attempt > 0) {
+                    if (System.currentTimeMillis() - start > RETRY_BUDGET_MS) {
+                        break;
+                    }
+                    endpointStats.recordRetry();
+                    waitBackoff(attempt);
+                }
+                checkCancelled();
+
+                if (!allowRequest()) {
+                    endpointStats.recordRejected();
+                    closeQuietly(lastResponse);
+                    throw new CircuitOpenException();
+                }
+
+                closeQuietly(lastResponse);
+                lastResponse = null;
+                try {
+                    Response response = executeOnce(endpointStats);
+                    if (!isRetryable(response.getCode())) {
+                        return response;
+                    }
+                    System.out.println("ARASAAC_NET: HTTP " + response.getCode() + " en " + endpoint
+                            + " (intento " + (attempt + 1) + " de " + maxAttempts + ")");
+                    lastResponse = response;
+                } catch (IOException e) {
+                    if (cancelled || attempt == maxAttempts - 1
+                            || System.currentTimeMillis() - start > RETRY_BUDGET_MS) {
+                        throw e;
+                    }
+                    System.out.println("ARASAAC_NET: Fallo de red en " + endpoint + ": " + e.getMessage()
+                            + " (intento " + (attempt + 1) + " de " + maxAttempts + ")");
+                }
+            }
+
+            if (lastResponse != null) {
+                // El servidor siguió fallando: quien llama ve el último código de error
+                return lastResponse;
+            }
+            throw new IOException("Sin respuesta de " + endpoint);
+        }
+
+        private Response executeOnce(EndpointStats endpointStats) throws IOException {
+            long hedgeDelay = hedgeDelayMs(endpointStats);
+            Attempt primary = startAttempt(endpointStats);
+            if (hedgeDelay < 0) {
+                try {
+                    return primary.run();
+                } finally {
+                    finishAttempt(primary);
+                }
+            }
+            return race(primary, endpointStats, hedgeDelay);
+        }
+
+        private long hedgeDelayMs(EndpointStats endpointStats) {
+            if (!hedgingEnabled || endpointStats.getLatencySampleCount() < MIN_SAMPLES_FOR_HEDGE) {
+                return -1;
+            }
+            long p95 = endpointStats.getLatencyPercentileMs(95);
+            if (p95 > MAX_HEDGE_DELAY_MS) {
+                return -1;
+            }
+            return Math.max(MIN_HEDGE_DELAY_MS, p95);
+        }
+
+        /**
+         * Lanza la petición y, si no ha respondido pasado el p95, una segunda igual. Gana la
+         * primera respuesta válida; la otra se cancela.
+         */
+        private Response race(Attempt primary, EndpointStats endpointStats, long hedgeDelayMs) throws IOException {
+            CompletionService<Response> completion = new ExecutorCompletionService<>(hedgeExecutor());
+            Map<Future<Response>, Attempt> attempts = new HashMap<>();
+            try {
+                attempts.put(completion.submit(primary::run), primary);
+            } catch (RejectedExecutionException e) {
+                // Pool lleno: se hace la petición normal en este hilo
+                try {
+                    return primary.run();
+                } finally {
+                    finishAttempt(primary);
+                }
+            }
+
+            Attempt hedge = null;
+            Response winner = null;
+            Attempt winnerAttempt = null;
+            IOException lastError = null;
+            try {
+                Future<Response> done = completion.poll(hedgeDelayMs, TimeUnit.MILLISECONDS);
+                if (done == null && !cancelled && allowRequest()) {
+                    hedge = startAttempt(endpointStats);
+                    try {
+                        attempts.put(completion.submit(hedge::run), hedge);
+                        endpointStats.recordHedge();
+                    } catch (RejectedExecutionException e) {
+                        finishAttempt(hedge);
+                        recordAbandoned();
+                        hedge = null;
+                    }
+                }
+
+                int pending = attempts.size();
+                while (pending > 0 && winner == null) {
+                    Future<Response> finished = done != null ? done : completion.take();
+                    done = null;
+                    pending--;
+                    try {
+                        Response response = finished.get();
+                        if (!isRetryable(response.getCode()) || pending == 0) {
+                            winner = response;
+                            winnerAttempt = attempts.get(finished);
+                        } else {
+                            // 5xx: se espera a la otra petición antes de darlo por fallido
+                            closeQuietly(response);
+                        }
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        lastError = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lastError = new InterruptedIOException("Petición interrumpida");
+            } finally {
+                for (Attempt attempt : attempts.values()) {
+                    if (attempt != winnerAttempt) {
+                        attempt.abandon();
+                    }
+                    finishAttempt(attempt);
+                }
+            }
+
+            if (winner != null) {
+                if (winnerAttempt == hedge) {
+                    endpointStats.recordHedgeWin();
+                }
+                return winner;
+            }
+            throw lastError != null ? lastError : new IOException("Sin respuesta de " + endpoint);
+        }
+
+        private Attempt startAttempt(EndpointStats endpointStats) throws IOException {
+            Attempt attempt = new Attempt(delegate.newCall(url, etag, lastModified, readTimeoutMs), endpointStats);
+            synchronized (activeAttempts) {
+                activeAttempts.add(attempt);
+            }
+            // cancel() pudo llegar justo antes de registrar el intento
+            if (cancelled) {
+                attempt.abandon();
+                finishAttempt(attempt);
+                recordAbandoned();
+                throw new IOException("Petición cancelada");
+            }
+            return attempt;
+        }
+
+        private void finishAttempt(Attempt attempt) {
+            synchronized (activeAttempts) {
+                activeAttempts.remove(attempt);
+            }
+        }
+
+        private void waitBackoff(int attempt) throws IOException {
+            // Exponencial con la mitad aleatoria, para que los clientes no reintenten a la vez
+            long exponential = Math.min(MAX_BACKOFF_MS, baseBackoffMs << (attempt - 1));
+            long delay = exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+            try {
+                cancelSignal.await(delay, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Petición interrumpida");
+            }
+        }
+
+        private void checkCancelled() throws IOException {
+            if (cancelled) {
+                throw new IOException("Petición cancelada");
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelSignal.countDown();
+            List<Attempt> active;
+            synchronized (activeAttempts) {
+                active = new ArrayList<>(activeAttempts);
+            }
+            for (Attempt attempt : active) {
+                attempt.abandon();
+            }
+        }
+    }
+
+    private static void closeQuietly(Response response) {
+        if (response == null) {
+            return;
+        }
+        try {
+            response.close();
+        } catch (IOException ignored) {
+            // Nada que hacer
+        }
+    }
+}
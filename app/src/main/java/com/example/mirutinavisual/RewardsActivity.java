@@ -18,6 +18,9 @@ import java.util.Locale;
 
 public class RewardsActivity extends AppCompatActivity implements TextToSpeech.OnInitListener {
 
+    // Logros por delante cuyo pictograma se precarga en cada lista
+    private static final int PRELOAD_WINDOW = 3;
+
     private TextToSpeech textToSpeech;
     private FirebaseAuth firebaseAuth;
     private AchievementManager achievementManager;
@@ -116,6 +119,9 @@ public class RewardsActivity extends AppCompatActivity implements TextToSpeech.O
         dailyAchievementsRecyclerView.setAdapter(dailyAdapter);
         streakAchievementsRecyclerView.setAdapter(streakAdapter);
         specialAchievementsRecyclerView.setAdapter(specialAdapter);
+        new PictogramListPreloader(dailyAchievementsRecyclerView, dailyAdapter, R.id.achievementImageView, PRELOAD_WINDOW);
+        new PictogramListPreloader(streakAchievementsRecyclerView, streakAdapter, R.id.achievementImageView, PRELOAD_WINDOW);
+        new PictogramListPreloader(specialAchievementsRecyclerView, specialAdapter, R.id.achievementImageView, PRELOAD_WINDOW);
     }
 
     private void loadUserData() {
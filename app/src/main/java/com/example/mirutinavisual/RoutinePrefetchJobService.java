@@ -0,0 +1,264 @@
+package com.example.mirutinavisual;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.Query;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trabajo nocturno (dispositivo inactivo y red sin límite de datos) que descarga los pictogramas
+ * de las actividades que van a sonar antes de la próxima ejecución, y de sus pasos, y los fija en
+ * el paquete local, para que los recordatorios de mañana se vean aunque la tablet no tenga
+ * conexión. Las imágenes se escriben en el paquete a medida que llegan, de la actividad más
+ * cercana a la más lejana, hasta {@link #MAX_PINNED_BYTES}.
+ * Guarda cuántos pictogramas de la rutina quedaron disponibles sin conexión.
+ */
+public class RoutinePrefetchJobService extends JobService {
+
+    private static final int JOB_ID = 1801;
+    private static final long PERIOD_MS = TimeUnit.DAYS.toMillis(1);
+    private static final int READ_TIMEOUT_MS = 30000;
+    // Tope del paquete fijado en disco; lo que no quepa se carga de la red como siempre
+    private static final long MAX_PINNED_BYTES = 32L * 1024 * 1024;
+
+    private static final String PREFS_NAME = "routine_prefetch";
+    private static final String KEY_READY = "ready";
+    private static final String KEY_TOTAL = "total";
+    private static final String KEY_CHECKED_AT = "checked_at";
+
+    // Tamaños de las vistas que muestran la rutina: tarjeta de activity_fullscreen_activity.xml,
+    // imagen de activity_sequence.xml y miniaturas de las listas
+    private static final int FULL_SCREEN_DP = 300;
+    private static final int SEQUENCE_STEP_DP = 200;
+    private static final int THUMBNAIL_DP = 80;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private volatile boolean stopped;
+
+    /**
+     * Programa el trabajo si no lo está ya. Se puede llamar en cada arranque.
+     */
+    public static void schedule(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) {
+            return;
+        }
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, RoutinePrefetchJobService.class))
+                .setRequiresDeviceIdle(true)
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setPeriodic(PERIOD_MS)
+                .setPersisted(true)
+                .build();
+        int result = scheduler.schedule(job);
+        System.out.println("ROUTINE_PREFETCH: Trabajo programado: " + (result == JobScheduler.RESULT_SUCCESS));
+    }
+
+    /**
+     * Resumen para el cuidador de la última preparación, o null si todavía no se ha hecho.
+     */
+    public static String getReadinessSummary(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        long checkedAt = prefs.getLong(KEY_CHECKED_AT, 0);
+        if (checkedAt == 0) {
+            return null;
+        }
+        int ready = prefs.getInt(KEY_READY, 0);
+        int total = prefs.getInt(KEY_TOTAL, 0);
+        int percent = total > 0 ? ready * 100 / total : 100;
+        return ready + " de " + total + " pictogramas de la rutina disponibles sin conexión (" + percent + "%)";
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            return false;
+        }
+        stopped = false;
+
+        String userId = user.getUid();
+        // Antes hay que saber si sus actividades ya están en su subárbol (ver ActivityMigration)
+        ActivityMigration.getInstance().ensureMigrated(userId, migrated ->
+                readActivities(params, ActivityStore.getInstance().activitiesQueries(userId, migrated)));
+        return true;
+    }
+
+    private void readActivities(JobParameters params, List<Query> queries) {
+        List<Task<DataSnapshot>> reads = new ArrayList<>();
+        for (Query query : queries) {
+            reads.add(query.get());
+        }
+        Tasks.whenAllSuccess(reads)
+                .addOnSuccessListener(results -> {
+                    // Las consultas van de mayor a menor prioridad: de cada id se queda la primera
+                    Map<String, Activity> byId = new LinkedHashMap<>();
+                    for (Object result : results) {
+                        for (DataSnapshot activitySnapshot : ((DataSnapshot) result).getChildren()) {
+                            Activity activity = activitySnapshot.getValue(Activity.class);
+                            if (activity != null && !byId.containsKey(activitySnapshot.getKey())) {
+                                byId.put(activitySnapshot.getKey(), activity);
+                            }
+                        }
+                    }
+                    List<Activity> activities = new ArrayList<>(byId.values());
+                    executor.execute(() -> {
+                        boolean complete = pinRoutine(activities);
+                        jobFinished(params, !complete && !stopped);
+                    });
+                })
+                .addOnFailureListener(e -> {
+                    System.out.println("ROUTINE_PREFETCH: Error al leer las actividades: " + e.getMessage());
+                    jobFinished(params, true);
+                });
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Se han perdido las condiciones (Wi-Fi, inactividad): se deja lo descargado y se reintenta
+        stopped = true;
+        return true;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Descarga lo que falte, reescribe el paquete fijado y guarda el resultado.
+     * Devuelve true si toda la rutina próxima ha quedado disponible sin conexión.
+     */
+    private boolean pinRoutine(List<Activity> activities) {
+        // id → resoluciones que necesitan las pantallas donde aparece, por orden de uso
+        Map<Integer, Set<PictogramResolution>> wanted = new LinkedHashMap<>();
+        PictogramResolution fullScreen = resolutionFor(FULL_SCREEN_DP);
+        PictogramResolution sequenceStep = resolutionFor(SEQUENCE_STEP_DP);
+        PictogramResolution thumbnail = resolutionFor(THUMBNAIL_DP);
+        List<Activity> upcoming = UpcomingRoutine.within(activities, Calendar.getInstance(), PERIOD_MS);
+        int images = 0;
+        for (Activity activity : upcoming) {
+            images += addWanted(wanted, activity.getPictogramId(), fullScreen, thumbnail);
+            if (activity.getSteps() != null) {
+                for (SequenceStep step : activity.getSteps()) {
+                    if (step != null) {
+                        images += addWanted(wanted, step.getPictogramId(), sequenceStep, thumbnail);
+                    }
+                }
+            }
+        }
+
+        PictogramPackManager packManager = PictogramPackManager.getInstance(this);
+        ArasaacTransport transport = new ResilientTransport(new HttpUrlConnectionTransport(), false);
+        int ready = 0;
+        try {
+            File temp = packManager.newPinnedFile();
+            try (PictogramPackFileWriter writer = new PictogramPackFileWriter(temp, 1, images)) {
+                for (Map.Entry<Integer, Set<PictogramResolution>> entry : wanted.entrySet()) {
+                    boolean allSizes = true;
+                    for (PictogramResolution resolution : entry.getValue()) {
+                        allSizes &= writer.length() < MAX_PINNED_BYTES
+                                && pin(writer, packManager, transport, entry.getKey(), resolution);
+                    }
+                    if (allSizes) {
+                        ready++;
+                    }
+                }
+            }
+            packManager.installPinned(temp);
+        } catch (IOException e) {
+            System.out.println("ROUTINE_PREFETCH: Error al guardar el paquete: " + e.getMessage());
+            ready = 0;
+        }
+
+        getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit()
+                .putInt(KEY_READY, ready)
+                .putInt(KEY_TOTAL, wanted.size())
+                .putLong(KEY_CHECKED_AT, System.currentTimeMillis())
+                .apply();
+        System.out.println("ROUTINE_PREFETCH: " + ready + "/" + wanted.size() + " pictogramas de "
+                + upcoming.size() + " actividades próximas listos sin conexión");
+        return ready == wanted.size();
+    }
+
+    private PictogramResolution resolutionFor(int dp) {
+        return PictogramResolution.forTargetSize(PictogramImageLoader.dpToPx(this, dp));
+    }
+
+    // Devuelve cuántas imágenes nuevas (id y tamaño) añade
+    private static int addWanted(Map<Integer, Set<PictogramResolution>> wanted, int id,
+                                 PictogramResolution... resolutions) {
+        if (id <= 0) {
+            return 0;
+        }
+        Set<PictogramResolution> sizes = wanted.get(id);
+        if (sizes == null) {
+            sizes = EnumSet.noneOf(PictogramResolution.class);
+            wanted.put(id, sizes);
+        }
+        int added = 0;
+        for (PictogramResolution resolution : resolutions) {
+            if (sizes.add(resolution)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    // Lo que ya está en un paquete se reutiliza (aunque se haya parado el trabajo, para no perder
+    // lo fijado la noche anterior); el resto se descarga de ARASAAC directamente al paquete
+    private boolean pin(PictogramPackFileWriter writer, PictogramPackManager packManager,
+                        ArasaacTransport transport, int id, PictogramResolution resolution) {
+        int sizePx = resolution.getSizePx();
+        ByteBuffer packed = packManager.findExact(id, sizePx);
+        if (packed != null) {
+            try {
+                writer.add(id, sizePx, packed);
+                return true;
+            } catch (IOException e) {
+                System.out.println("ROUTINE_PREFETCH: Error al copiar " + id + ": " + e.getMessage());
+                return false;
+            }
+        }
+        if (stopped) {
+            return false;
+        }
+
+        String url = new PictogramRef(id, resolution, PictogramRef.Variant.COLOR).getUrl();
+        try (ArasaacTransport.Response response = transport.newCall(url, null, null, READ_TIMEOUT_MS).execute()) {
+            if (response.getCode() != 200 || response.getBody() == null) {
+                System.out.println("ROUTINE_PREFETCH: HTTP " + response.getCode() + " para " + url);
+                return false;
+            }
+            writer.add(id, sizePx, response.getBody());
+            return true;
+        } catch (IOException e) {
+            System.out.println("ROUTINE_PREFETCH: Error al descargar " + url + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
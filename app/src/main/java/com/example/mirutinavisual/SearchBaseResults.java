@@ -0,0 +1,58 @@
+package com.example.mirutinavisual;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultados de la última búsqueda real, que se filtran en local cuando el término se amplía.
+ * Solo sirven de base si están completos: búsqueda completa que no se ha cortado por tiempo y por
+ * debajo del máximo de resultados. Los de bestsearch (solo coincidencias exactas), los de una
+ * búsqueda en varios idiomas a la que le faltan idiomas o una lista recortada al máximo dejarían
+ * fuera pictogramas que el servidor sí devolvería para el término más largo.
+ */
+final class SearchBaseResults {
+
+    private final String normalizedTerm;
+    private final List<Pictogram> results;
+
+    private SearchBaseResults(String normalizedTerm, List<Pictogram> results) {
+        this.normalizedTerm = normalizedTerm;
+        this.results = new ArrayList<>(results);
+    }
+
+    /**
+     * Base para filtrar en local, o null si los resultados pueden estar incompletos.
+     */
+    static SearchBaseResults from(String normalizedTerm, List<Pictogram> results, boolean completeSearch,
+                                  int maxResults) {
+        if (!completeSearch || results.size() >= maxResults) {
+            return null;
+        }
+        return new SearchBaseResults(normalizedTerm, results);
+    }
+
+    /**
+     * Resultados de la base que encajan con {@code normalizedTerm}, o null si el término no
+     * amplía el de la base y hay que preguntar al servidor.
+     */
+    List<Pictogram> narrow(String normalizedTerm) {
+        if (!normalizedTerm.startsWith(this.normalizedTerm)) {
+            return null;
+        }
+        List<Pictogram> narrowed = new ArrayList<>();
+        for (Pictogram pictogram : results) {
+            if (pictogram.getKeywords() == null) {
+                continue;
+            }
+            for (String keyword : pictogram.getKeywords()) {
+                String normalizedKeyword = PictogramSearchCache.normalize(keyword);
+                if (normalizedKeyword.startsWith(normalizedTerm)
+                        || normalizedKeyword.contains(" " + normalizedTerm)) {
+                    narrowed.add(pictogram);
+                    break;
+                }
+            }
+        }
+        return narrowed;
+    }
+}
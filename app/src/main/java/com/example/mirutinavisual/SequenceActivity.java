@@ -12,9 +12,6 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.bumptech.glide.Glide;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.google.gson.Gson;
 
 import java.util.Locale;
@@ -22,7 +19,7 @@ import java.util.Locale;
 public class SequenceActivity extends AppCompatActivity implements TextToSpeech.OnInitListener {
 
     private TextToSpeech textToSpeech;
-    private DatabaseReference databaseReference;
+    private ActivityStore activityStore;
     
     private Activity currentActivity;
     private SequenceStep currentStep;
@@ -43,7 +40,7 @@ public class SequenceActivity extends AppCompatActivity implements TextToSpeech.
         setContentView(R.layout.activity_sequence);
         
         // Inicializar Firebase
-        databaseReference = FirebaseDatabase.getInstance().getReference();
+        activityStore = ActivityStore.getInstance();
         
         // Inicializar Text-to-Speech
         textToSpeech = new TextToSpeech(this, this);
@@ -147,12 +144,8 @@ public class SequenceActivity extends AppCompatActivity implements TextToSpeech.
         stepDescriptionText.setText(currentStep.getDescription());
         
         // Cargar imagen del pictograma
-        String imageUrl = "https://api.arasaac.org/api/pictograms/" + currentStep.getPictogramId() + "?download=false";
-        Glide.with(this)
-            .load(imageUrl)
-            .placeholder(R.drawable.ic_placeholder)
-            .error(R.drawable.ic_error)
-            .into(stepImageView);
+        PictogramImageLoader.load(stepImageView, currentStep.getPictogramId(),
+            R.drawable.ic_placeholder, R.drawable.ic_error);
         
         // Actualizar progreso
         int progress = (int) currentActivity.getProgressPercentage();
@@ -217,8 +210,7 @@ public class SequenceActivity extends AppCompatActivity implements TextToSpeech.
     
     private void saveProgressToFirebase() {
         if (currentActivity.getId() != null) {
-            databaseReference.child("activities").child(currentActivity.getId())
-                .setValue(currentActivity)
+            activityStore.setActivity(ActivityStore.currentUserId(), currentActivity.getId(), currentActivity)
                 .addOnSuccessListener(aVoid -> {
                     System.out.println("SEQUENCE: Progreso guardado en Firebase");
                 })
@@ -25,6 +25,17 @@ public class SequenceStep {
         this.completed = false;
         this.audioText = name + ". " + description;
     }
+
+    public SequenceStep(SequenceStep other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.description = other.description;
+        this.pictogramId = other.pictogramId;
+        this.pictogramKeyword = other.pictogramKeyword;
+        this.stepNumber = other.stepNumber;
+        this.completed = other.completed;
+        this.audioText = other.audioText;
+    }
     
     // Getters y Setters
     public String getId() { return id; }
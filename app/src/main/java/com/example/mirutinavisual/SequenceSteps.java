@@ -0,0 +1,57 @@
+package com.example.mirutinavisual;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pasos de una secuencia tal como se guardan en Firebase (ver
+ * {@link ActivityRepository#parseActivity}).
+ */
+final class SequenceSteps {
+
+    private SequenceSteps() {
+    }
+
+    /**
+     * Da a cada paso el pictograma encontrado para su palabra clave; los que no tienen se quedan
+     * con el que traían. Devuelve cuántos pasos cambiaron.
+     */
+    static int applyPictograms(List<SequenceStep> steps, Map<String, Pictogram> bestMatches) {
+        int changed = 0;
+        for (SequenceStep step : steps) {
+            Pictogram match = bestMatches.get(step.getPictogramKeyword());
+            if (match != null && match.getId() != step.getPictogramId()) {
+                step.setPictogramId(match.getId());
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Campos de la actividad que guardan su secuencia: isSequence, totalSteps y steps.
+     */
+    static Map<String, Object> sequenceFields(List<SequenceStep> steps) {
+        List<Map<String, Object>> stepsMapList = new ArrayList<>();
+        for (SequenceStep step : steps) {
+            Map<String, Object> stepMap = new HashMap<>();
+            stepMap.put("id", step.getId());
+            stepMap.put("name", step.getName());
+            stepMap.put("description", step.getDescription());
+            stepMap.put("pictogramId", step.getPictogramId());
+            stepMap.put("pictogramKeyword", step.getPictogramKeyword());
+            stepMap.put("stepNumber", step.getStepNumber());
+            stepMap.put("completed", step.isCompleted());
+            stepMap.put("audioText", step.getAudioText());
+            stepsMapList.add(stepMap);
+        }
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("isSequence", !steps.isEmpty());
+        fields.put("totalSteps", steps.size());
+        fields.put("steps", stepsMapList);
+        return fields;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.mirutinavisual;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actividades de un usuario ordenadas por hora (y por id si coinciden), a las que se aplican
+ * los cambios de Firebase de uno en uno. Cada operación localiza la fila con una búsqueda
+ * binaria y devuelve su posición, así quien muestra la lista puede avisar solo de esa fila.
+ */
+class SortedActivityList {
+
+    static final Comparator<Activity> ORDER = (a1, a2) -> {
+        int byTime = nonNull(a1.getTime()).compareTo(nonNull(a2.getTime()));
+        return byTime != 0 ? byTime : nonNull(a1.getId()).compareTo(nonNull(a2.getId()));
+    };
+
+    private final List<Activity> items = new ArrayList<>();
+    private final List<Activity> readOnly = Collections.unmodifiableList(items);
+    // La versión guardada de cada actividad: con ella se encuentra su posición aunque cambie la hora
+    private final Map<String, Activity> byId = new HashMap<>();
+
+    /**
+     * Vista de solo lectura que refleja los cambios.
+     */
+    List<Activity> asList() {
+        return readOnly;
+    }
+
+    /**
+     * Vista de solo lectura en la que cada actividad es una copia propia, hecha la primera vez
+     * que se lee: quien la recibe puede modificarlas sin cambiar lo que ven los demás. No refleja
+     * altas ni bajas posteriores.
+     */
+    List<Activity> copies() {
+        return new CopyingList(items);
+    }
+
+    private static final class CopyingList extends AbstractList<Activity> {
+        private final List<Activity> source;
+        private final Activity[] copies;
+
+        CopyingList(List<Activity> source) {
+            this.source = source;
+            this.copies = new Activity[source.size()];
+        }
+
+        @Override
+        public Activity get(int index) {
+            if (copies[index] == null) {
+                copies[index] = new Activity(source.get(index));
+            }
+            return copies[index];
+        }
+
+        @Override
+        public int size() {
+            return copies.length;
+        }
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    boolean contains(String id) {
+        return byId.containsKey(id);
+    }
+
+    int indexOf(String id) {
+        Activity current = byId.get(id);
+        return current != null ? Collections.binarySearch(items, current, ORDER) : -1;
+    }
+
+    /**
+     * Añade una actividad nueva y devuelve la posición en que ha quedado.
+     */
+    int insert(Activity activity) {
+        if (byId.containsKey(activity.getId())) {
+            throw new IllegalArgumentException("Ya está en la lista: " + activity.getId());
+        }
+        int position = -(Collections.binarySearch(items, activity, ORDER) + 1);
+        items.add(position, activity);
+        byId.put(activity.getId(), activity);
+        return position;
+    }
+
+    /**
+     * Sustituye una actividad que ya estaba y devuelve su nueva posición, que es distinta de
+     * {@link #indexOf} anterior si ha cambiado la hora.
+     */
+    int update(Activity activity) {
+        int from = indexOf(activity.getId());
+        if (from < 0) {
+            throw new IllegalArgumentException("No está en la lista: " + activity.getId());
+        }
+        if (ORDER.compare(items.get(from), activity) == 0) {
+            items.set(from, activity);
+            byId.put(activity.getId(), activity);
+            return from;
+        }
+        items.remove(from);
+        byId.remove(activity.getId());
+        return insert(activity);
+    }
+
+    /**
+     * Quita una actividad y devuelve la posición que tenía, o -1 si no estaba.
+     */
+    int remove(String id) {
+        int position = indexOf(id);
+        if (position >= 0) {
+            items.remove(position);
+            byId.remove(id);
+        }
+        return position;
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -11,22 +11,17 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 public class StatisticsActivity extends AppCompatActivity implements TextToSpeech.OnInitListener {
 
     private TextToSpeech textToSpeech;
     private FirebaseAuth firebaseAuth;
-    private DatabaseReference databaseReference;
     
     private ImageButton backButton;
     private TextView totalActivitiesText, completedTodayText, completionRateText, streakText;
@@ -41,7 +36,6 @@ public class StatisticsActivity extends AppCompatActivity implements TextToSpeec
         
         // Inicializar Firebase
         firebaseAuth = FirebaseAuth.getInstance();
-        databaseReference = FirebaseDatabase.getInstance().getReference();
         
         // Inicializar Text-to-Speech
         textToSpeech = new TextToSpeech(this, this);
@@ -107,23 +101,20 @@ public class StatisticsActivity extends AppCompatActivity implements TextToSpeec
 
         String userId = firebaseAuth.getCurrentUser().getUid();
         
-        databaseReference.child("activities")
-                .orderByChild("userId")
-                .equalTo(userId)
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(DataSnapshot dataSnapshot) {
-                        calculateStatistics(dataSnapshot);
-                    }
-
-                    @Override
-                    public void onCancelled(DatabaseError databaseError) {
-                        showToast("Error al cargar estadísticas: " + databaseError.getMessage());
-                    }
-                });
+        ActivityRepository.getInstance().observe(this, userId, new ActivityRepository.Observer() {
+            @Override
+            public void onActivitiesChanged(List<Activity> activities) {
+                calculateStatistics(activities);
+            }
+
+            @Override
+            public void onError(String error) {
+                showToast("Error al cargar estadísticas: " + error);
+            }
+        });
     }
 
-    private void calculateStatistics(DataSnapshot dataSnapshot) {
+    private void calculateStatistics(List<Activity> activities) {
         int totalActivities = 0;
         int completedToday = 0;
         int totalCompleted = 0;
@@ -141,33 +132,30 @@ public class StatisticsActivity extends AppCompatActivity implements TextToSpeec
         
         String todayDateString = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(today.getTime());
         
-        for (DataSnapshot activitySnapshot : dataSnapshot.getChildren()) {
-            Activity activity = activitySnapshot.getValue(Activity.class);
-            if (activity != null) {
-                totalActivities++;
+        for (Activity activity : activities) {
+            totalActivities++;
+            
+            if (activity.isCompleted()) {
+                totalCompleted++;
                 
+                // Verificar si fue completada hoy (simulación)
+                // En una implementación real, necesitarías guardar la fecha de completación
+                completedToday++; // Simplificado para demo
+            }
+            
+            // Estadísticas semanales y mensuales (simuladas)
+            long createdTime = activity.getCreatedAt();
+            if (createdTime > weekAgo.getTimeInMillis()) {
+                weeklyTotal++;
                 if (activity.isCompleted()) {
-                    totalCompleted++;
-                    
-                    // Verificar si fue completada hoy (simulación)
-                    // En una implementación real, necesitarías guardar la fecha de completación
-                    completedToday++; // Simplificado para demo
+                    weeklyCompleted++;
                 }
-                
-                // Estadísticas semanales y mensuales (simuladas)
-                long createdTime = activity.getCreatedAt();
-                if (createdTime > weekAgo.getTimeInMillis()) {
-                    weeklyTotal++;
-                    if (activity.isCompleted()) {
-                        weeklyCompleted++;
-                    }
-                }
-                
-                if (createdTime > monthAgo.getTimeInMillis()) {
-                    monthlyTotal++;
-                    if (activity.isCompleted()) {
-                        monthlyCompleted++;
-                    }
+            }
+            
+            if (createdTime > monthAgo.getTimeInMillis()) {
+                monthlyTotal++;
+                if (activity.isCompleted()) {
+                    monthlyCompleted++;
                 }
             }
         }
@@ -10,11 +10,10 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
-
 import java.util.List;
 
-public class StepAdapter extends RecyclerView.Adapter<StepAdapter.StepViewHolder> {
+public class StepAdapter extends RecyclerView.Adapter<StepAdapter.StepViewHolder>
+        implements PictogramListPreloader.PictogramIds {
 
     private List<SequenceStep> stepsList;
     private OnStepActionListener listener;
@@ -51,16 +50,8 @@ public class StepAdapter extends RecyclerView.Adapter<StepAdapter.StepViewHolder
         holder.stepDescriptionText.setText(step.getDescription());
         
         // Cargar imagen del pictograma
-        if (step.getPictogramId() > 0) {
-            String imageUrl = "https://api.arasaac.org/api/pictograms/" + step.getPictogramId() + "?download=false";
-            Glide.with(holder.itemView.getContext())
-                .load(imageUrl)
-                .placeholder(R.drawable.ic_placeholder)
-                .error(R.drawable.ic_error)
-                .into(holder.stepImageView);
-        } else {
-            holder.stepImageView.setImageResource(R.drawable.ic_placeholder);
-        }
+        PictogramImageLoader.load(holder.stepImageView, step.getPictogramId(),
+                R.drawable.ic_placeholder, R.drawable.ic_error);
         
         // Listeners para botones
         holder.editButton.setOnClickListener(v -> {
@@ -76,6 +67,11 @@ public class StepAdapter extends RecyclerView.Adapter<StepAdapter.StepViewHolder
         });
     }
 
+    @Override
+    public int getPictogramIdAt(int position) {
+        return stepsList.get(position).getPictogramId();
+    }
+
     @Override
     public int getItemCount() {
         return stepsList != null ? stepsList.size() : 0;
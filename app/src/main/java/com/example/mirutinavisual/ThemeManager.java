@@ -12,6 +12,7 @@ public class ThemeManager {
     private static final String KEY_FONT_SIZE = "font_size";
     private static final String KEY_HIGH_CONTRAST = "high_contrast";
     private static final String KEY_LARGE_ICONS = "large_icons";
+    private static final String KEY_PICTOGRAM_COLOR_MODE = "pictogram_color_mode";
     
     // Colores predefinidos
     public static final int[] THEME_COLORS = {
@@ -86,6 +87,22 @@ public class ThemeManager {
         return prefs.getBoolean(KEY_LARGE_ICONS, false);
     }
     
+    // Métodos para pictogramas
+    public void setPictogramColorMode(PictogramColorMode mode) {
+        prefs.edit()
+                .putString(KEY_PICTOGRAM_COLOR_MODE, mode.name())
+                .putBoolean(KEY_HIGH_CONTRAST, mode == PictogramColorMode.HIGH_CONTRAST)
+                .apply();
+    }
+    
+    public PictogramColorMode getPictogramColorMode() {
+        // El alto contraste manda sobre cualquier otro modo
+        if (isHighContrastEnabled()) {
+            return PictogramColorMode.HIGH_CONTRAST;
+        }
+        return PictogramColorMode.fromName(prefs.getString(KEY_PICTOGRAM_COLOR_MODE, null));
+    }
+    
     // Método para aplicar tema a una vista
     public void applyTheme(android.view.View view) {
         // Aplicar color primario como fondo si es un botón o card
@@ -17,25 +17,21 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 public class TodayRoutineActivity extends AppCompatActivity implements TextToSpeech.OnInitListener {
 
+    // Filas por delante cuyo pictograma se precarga al desplazarse
+    private static final int PRELOAD_WINDOW = 5;
+
     private TextToSpeech textToSpeech;
     private FirebaseAuth firebaseAuth;
-    private DatabaseReference databaseReference;
+    private ActivityStore activityStore;
     
     private ImageButton backButton;
     private TextView dateText, emptyStateSubtitle;
@@ -45,6 +41,7 @@ public class TodayRoutineActivity extends AppCompatActivity implements TextToSpe
     private ProgressBar loadingProgressBar;
     
     private ActivityAdapter activityAdapter;
+    private PictogramListPreloader activitiesPreloader;
     private List<Activity> activitiesList;
     
     // Sistema de logros
@@ -59,7 +56,7 @@ public class TodayRoutineActivity extends AppCompatActivity implements TextToSpe
             
             // Inicializar Firebase
             firebaseAuth = FirebaseAuth.getInstance();
-            databaseReference = FirebaseDatabase.getInstance().getReference();
+            activityStore = ActivityStore.getInstance();
             
             // Inicializar Text-to-Speech
             textToSpeech = new TextToSpeech(this, this);
@@ -198,6 +195,10 @@ public class TodayRoutineActivity extends AppCompatActivity implements TextToSpe
             }
             
             activitiesRecyclerView.setAdapter(activityAdapter);
+            if (activitiesPreloader == null) {
+                activitiesPreloader = new PictogramListPreloader(activitiesRecyclerView, activityAdapter,
+                        R.id.pictogramImageView, PRELOAD_WINDOW);
+            }
             
         } catch (Exception e) {
             showToast("Error RecyclerView: " + e.getMessage());
@@ -238,62 +239,50 @@ public class TodayRoutineActivity extends AppCompatActivity implements TextToSpe
         
         String userId = firebaseAuth.getCurrentUser().getUid();
         
-        databaseReference.child("activities")
-                .orderByChild("userId")
-                .equalTo(userId)
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(DataSnapshot dataSnapshot) {
-                        activitiesList.clear();
-                        
-                        for (DataSnapshot activitySnapshot : dataSnapshot.getChildren()) {
-                            Activity activity = createActivityFromSnapshot(activitySnapshot);
-                            if (activity != null) {
-                                activitiesList.add(activity);
-                            }
-                        }
-                        
-                        try {
-                            // Ordenar por hora
-                            Collections.sort(activitiesList, (a1, a2) -> a1.getTime().compareTo(a2.getTime()));
-                            
-                            // Actualizar adapter solo si existe
-                            if (activityAdapter != null) {
-                                activityAdapter.notifyDataSetChanged();
-                            }
-                            
-                            if (loadingProgressBar != null) {
-                                loadingProgressBar.setVisibility(View.GONE);
-                            }
-                            
-                            if (activitiesList.isEmpty()) {
-                                if (emptyStateText != null) {
-                                    emptyStateText.setVisibility(View.VISIBLE);
-                                }
-                                speakText("No tienes actividades programadas para hoy");
-                            } else {
-                                if (emptyStateText != null) {
-                                    emptyStateText.setVisibility(View.GONE);
-                                }
-                                speakText("Tienes " + activitiesList.size() + " actividades para hoy");
-                            }
-                        } catch (Exception e) {
-                            showToast("Error al mostrar actividades: " + e.getMessage());
-                        }
+        // Lista compartida y ya ordenada por hora: solo se repinta la fila que cambia y se deja de
+        // observar al cerrar la pantalla
+        ActivityRepository.getInstance().observe(this, userId,
+                new ActivityRepository.AdapterObserver(activitiesList, activityAdapter) {
+            @Override
+            protected void onListUpdated(boolean fullReload) {
+                try {
+                    if (loadingProgressBar != null) {
+                        loadingProgressBar.setVisibility(View.GONE);
                     }
-
-                    @Override
-                    public void onCancelled(DatabaseError databaseError) {
-                        if (loadingProgressBar != null) {
-                            loadingProgressBar.setVisibility(View.GONE);
-                        }
+                    
+                    // El resumen hablado solo al cargar, no con cada cambio de una actividad
+                    if (activitiesList.isEmpty()) {
                         if (emptyStateText != null) {
                             emptyStateText.setVisibility(View.VISIBLE);
                         }
-                        speakText("Error al cargar las actividades");
-                        showToast("Error: " + databaseError.getMessage());
+                        if (fullReload) {
+                            speakText("No tienes actividades programadas para hoy");
+                        }
+                    } else {
+                        if (emptyStateText != null) {
+                            emptyStateText.setVisibility(View.GONE);
+                        }
+                        if (fullReload) {
+                            speakText("Tienes " + activitiesList.size() + " actividades para hoy");
+                        }
                     }
-                });
+                } catch (Exception e) {
+                    showToast("Error al mostrar actividades: " + e.getMessage());
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                if (loadingProgressBar != null) {
+                    loadingProgressBar.setVisibility(View.GONE);
+                }
+                if (emptyStateText != null) {
+                    emptyStateText.setVisibility(View.VISIBLE);
+                }
+                speakText("Error al cargar las actividades");
+                showToast("Error: " + error);
+            }
+        });
     }
 
     private void showActivityDetail(Activity activity) {
@@ -307,8 +296,7 @@ public class TodayRoutineActivity extends AppCompatActivity implements TextToSpe
         if (activity.getId() == null) return;
         
         // Actualizar estado en Firebase
-        databaseReference.child("activities").child(activity.getId())
-                .child("completed").setValue(true)
+        activityStore.setActivityField(ActivityStore.currentUserId(), activity.getId(), "completed", true)
                 .addOnSuccessListener(aVoid -> {
                     speakText("¡Muy bien! Actividad completada: " + activity.getName());
                     showToast("¡Actividad completada! 🎉");
@@ -357,108 +345,6 @@ public class TodayRoutineActivity extends AppCompatActivity implements TextToSpe
         Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
     }
     
-    // Método para crear Activity desde DataSnapshot incluyendo pasos personalizados
-    private Activity createActivityFromSnapshot(DataSnapshot activitySnapshot) {
-        try {
-            Activity activity = activitySnapshot.getValue(Activity.class);
-            if (activity != null) {
-                activity.setId(activitySnapshot.getKey());
-                
-                // Cargar pasos personalizados si existen
-                Boolean isSequence = activitySnapshot.child("isSequence").getValue(Boolean.class);
-                Object stepsData = activitySnapshot.child("steps").getValue();
-                
-                System.out.println("TODAY_LOAD: Actividad " + activity.getName() + 
-                                 " - isSequence: " + isSequence + 
-                                 " - tiene pasos: " + (stepsData != null));
-                
-                if (isSequence != null && isSequence && stepsData != null) {
-                    // Cargar pasos personalizados
-                    List<SequenceStep> customSteps = loadStepsFromSnapshot(stepsData);
-                    if (!customSteps.isEmpty()) {
-                        activity.setSequence(true);
-                        activity.setSteps(customSteps);
-                        System.out.println("TODAY_LOAD: Cargados " + customSteps.size() + 
-                                         " pasos para " + activity.getName());
-                    }
-                } else {
-                    System.out.println("TODAY_LOAD: " + activity.getName() + 
-                                     " usará secuencia automática");
-                }
-            }
-            return activity;
-        } catch (Exception e) {
-            System.out.println("TODAY_LOAD: Error al crear actividad desde snapshot: " + e.getMessage());
-            return null;
-        }
-    }
-    
-    // Método para cargar pasos desde DataSnapshot
-    private List<SequenceStep> loadStepsFromSnapshot(Object stepsData) {
-        List<SequenceStep> steps = new ArrayList<>();
-        
-        try {
-            if (stepsData instanceof List) {
-                List<?> stepsList = (List<?>) stepsData;
-                
-                for (Object stepObj : stepsList) {
-                    if (stepObj instanceof Map) {
-                        Map<?, ?> stepMap = (Map<?, ?>) stepObj;
-                        
-                        SequenceStep step = new SequenceStep();
-                        step.setId(getStringValue(stepMap, "id"));
-                        step.setName(getStringValue(stepMap, "name"));
-                        step.setDescription(getStringValue(stepMap, "description"));
-                        step.setPictogramId((int) getLongValue(stepMap, "pictogramId"));
-                        step.setPictogramKeyword(getStringValue(stepMap, "pictogramKeyword"));
-                        step.setStepNumber(getIntValue(stepMap, "stepNumber"));
-                        step.setCompleted(getBooleanValue(stepMap, "completed"));
-                        step.setAudioText(getStringValue(stepMap, "audioText"));
-                        
-                        steps.add(step);
-                    }
-                }
-                
-                // Ordenar por número de paso
-                steps.sort((s1, s2) -> Integer.compare(s1.getStepNumber(), s2.getStepNumber()));
-            }
-        } catch (Exception e) {
-            System.out.println("TODAY_LOAD: Error al cargar pasos: " + e.getMessage());
-        }
-        
-        return steps;
-    }
-    
-    // Métodos auxiliares para extraer datos de Map de forma segura
-    private String getStringValue(Map<?, ?> map, String key) {
-        Object value = map.get(key);
-        return value != null ? value.toString() : "";
-    }
-    
-    private long getLongValue(Map<?, ?> map, String key) {
-        Object value = map.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
-        }
-        return 0;
-    }
-    
-    private int getIntValue(Map<?, ?> map, String key) {
-        Object value = map.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).intValue();
-        }
-        return 0;
-    }
-    
-    private boolean getBooleanValue(Map<?, ?> map, String key) {
-        Object value = map.get(key);
-        if (value instanceof Boolean) {
-            return (Boolean) value;
-        }
-        return false;
-    }
-    
     // Método para abrir una actividad (modo secuencia o normal)
     private void openActivity(Activity activity) {
         try {
@@ -483,9 +369,11 @@ public class TodayRoutineActivity extends AppCompatActivity implements TextToSpe
     }
     
     // Crear secuencia simple para actividades normales
-    private void createSimpleSequence(Activity activity) {
+    private void createSimpleSequence(Activity original) {
         try {
-            // Convertir actividad normal en secuencia de un paso
+            // Convertir actividad normal en secuencia de un paso, sobre una copia para no
+            // cambiar la fila de la lista
+            Activity activity = new Activity(original);
             activity.setSequence(true);
             
             SequenceStep step = new SequenceStep();
@@ -515,21 +403,13 @@ public class TodayRoutineActivity extends AppCompatActivity implements TextToSpe
     // Método para completar una actividad
     private void completeActivity(Activity activity) {
         try {
-            activity.setCompleted(true);
-            
-            // Actualizar en Firebase
-            if (databaseReference != null && firebaseAuth.getCurrentUser() != null) {
-                databaseReference.child("activities").child(activity.getId())
-                    .child("completed").setValue(true)
+            // Actualizar en Firebase; la fila se marca cuando llega el cambio guardado
+            if (activityStore != null && firebaseAuth.getCurrentUser() != null) {
+                activityStore.setActivityField(ActivityStore.currentUserId(), activity.getId(), "completed", true)
                     .addOnSuccessListener(aVoid -> {
                         speakText("¡Actividad " + activity.getName() + " completada! ¡Muy bien!");
                         showToast("✅ ¡Actividad completada!");
                         
-                        // Actualizar la lista
-                        if (activityAdapter != null) {
-                            activityAdapter.notifyDataSetChanged();
-                        }
-                        
                         // *** VERIFICAR LOGROS ***
                         if (achievementManager != null) {
                             achievementManager.onActivityCompleted();
@@ -0,0 +1,71 @@
+package com.example.mirutinavisual;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actividades de la rutina que van a sonar pronto. Cada actividad se repite todos los días a su
+ * hora ("HH:mm", ver {@link NotificationService}); las que no tienen una hora válida no tienen
+ * recordatorio.
+ */
+final class UpcomingRoutine {
+
+    private UpcomingRoutine() {
+    }
+
+    /**
+     * Actividades cuyo próximo recordatorio cae en los próximos {@code windowMs}, de la más
+     * cercana a la más lejana.
+     */
+    static List<Activity> within(List<Activity> activities, Calendar now, long windowMs) {
+        Map<Activity, Long> next = new IdentityHashMap<>();
+        List<Activity> upcoming = new ArrayList<>();
+        for (Activity activity : activities) {
+            long at = nextOccurrence(activity.getTime(), now);
+            if (at >= 0 && at - now.getTimeInMillis() < windowMs) {
+                next.put(activity, at);
+                upcoming.add(activity);
+            }
+        }
+        Collections.sort(upcoming, (a, b) -> Long.compare(next.get(a), next.get(b)));
+        return upcoming;
+    }
+
+    /**
+     * Próxima vez que suena una actividad a esa hora, o -1 si la hora no es válida.
+     */
+    static long nextOccurrence(String time, Calendar now) {
+        if (time == null) {
+            return -1;
+        }
+        String[] parts = time.trim().split(":");
+        if (parts.length != 2) {
+            return -1;
+        }
+        int hour;
+        int minute;
+        try {
+            hour = Integer.parseInt(parts[0]);
+            minute = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return -1;
+        }
+
+        Calendar next = (Calendar) now.clone();
+        next.set(Calendar.HOUR_OF_DAY, hour);
+        next.set(Calendar.MINUTE, minute);
+        next.set(Calendar.SECOND, 0);
+        next.set(Calendar.MILLISECOND, 0);
+        if (next.before(now)) {
+            next.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return next.getTimeInMillis();
+    }
+}
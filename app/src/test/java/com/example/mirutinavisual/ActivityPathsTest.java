@@ -0,0 +1,55 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ActivityPathsTest {
+
+    @Test
+    public void writePaths_dependOnLayout() {
+        assertEquals(Collections.singletonList("activities/a1"),
+                ActivityPaths.writePaths(ActivityPaths.Layout.LEGACY, "u1", "a1"));
+        assertEquals(Arrays.asList("activities/a1", "users/u1/activities/a1"),
+                ActivityPaths.writePaths(ActivityPaths.Layout.DUAL, "u1", "a1"));
+        assertEquals(Collections.singletonList("users/u1/activities/a1"),
+                ActivityPaths.writePaths(ActivityPaths.Layout.PER_USER, "u1", "a1"));
+
+        assertFalse(ActivityPaths.Layout.DUAL.readsPerUser(false));
+        assertTrue(ActivityPaths.Layout.DUAL.readsPerUser(true));
+        assertTrue(ActivityPaths.Layout.PER_USER.readsPerUser(false));
+    }
+
+    @Test
+    public void fieldUpdate_touchesOnlyGivenFieldsInEveryCopy() {
+        List<String> paths = ActivityPaths.writePaths(ActivityPaths.Layout.DUAL, "u1", "a1");
+        Map<String, Object> update = ActivityPaths.fieldUpdate(paths, Collections.singletonMap("completed", true));
+
+        assertEquals(2, update.size());
+        assertEquals(true, update.get("activities/a1/completed"));
+        assertEquals(true, update.get("users/u1/activities/a1/completed"));
+    }
+
+    @Test
+    public void copyUpdate_mirrorsLegacyAndDropsStaleCopies() {
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("a1", Collections.singletonMap("name", "Desayunar"));
+        legacy.put("a2", Collections.singletonMap("name", "Lavarse los dientes"));
+
+        Map<String, Object> update = ActivityPaths.copyUpdate("u1", legacy, new HashSet<>(Arrays.asList("a1", "old")));
+
+        assertEquals(3, update.size());
+        assertEquals(legacy.get("a1"), update.get("users/u1/activities/a1"));
+        assertEquals(legacy.get("a2"), update.get("users/u1/activities/a2"));
+        assertTrue(update.containsKey("users/u1/activities/old"));
+        assertNull(update.get("users/u1/activities/old"));
+        assertFalse(update.keySet().stream().anyMatch(path -> path.startsWith("activities/")));
+    }
+}
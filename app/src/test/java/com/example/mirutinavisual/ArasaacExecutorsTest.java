@@ -0,0 +1,116 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Regresión: antes cada pantalla creaba su propio pool de 3 hilos que nunca se cerraba.
+ */
+public class ArasaacExecutorsTest {
+
+    @Test
+    public void threadCount_isClampedToDevice() {
+        assertEquals(ArasaacExecutors.MIN_THREADS, ArasaacExecutors.threadCountFor(1));
+        assertEquals(3, ArasaacExecutors.threadCountFor(3));
+        assertEquals(ArasaacExecutors.MAX_THREADS, ArasaacExecutors.threadCountFor(16));
+    }
+
+    @Test
+    public void floodOfSearches_neverExceedsPoolSize() throws Exception {
+        int threadsBefore = countArasaacThreads();
+        ThreadPoolExecutor executor = ArasaacExecutors.newBoundedExecutor(3, 32, 200, TimeUnit.MILLISECONDS);
+        CountDownLatch release = new CountDownLatch(1);
+
+        int accepted = 0;
+        int rejected = 0;
+        for (int i = 0; i < 200; i++) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                accepted++;
+            } catch (RejectedExecutionException e) {
+                rejected++;
+            }
+        }
+
+        assertEquals(3 + 32, accepted);
+        assertEquals(200 - accepted, rejected);
+        assertTrue(countArasaacThreads() - threadsBefore <= 3);
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void serviceConfiguration_rejectsOnceTheQueueIsFull() throws Exception {
+        // La misma configuración que usa ArasaacApiService para sus búsquedas
+        ThreadPoolExecutor executor = ArasaacExecutors.newBoundedExecutor();
+        int threads = ArasaacExecutors.threadCountFor(Runtime.getRuntime().availableProcessors());
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocked = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        for (int i = 0; i < threads + ArasaacExecutors.QUEUE_CAPACITY; i++) {
+            executor.execute(blocked);
+        }
+        assertEquals(0, executor.getQueue().remainingCapacity());
+        try {
+            executor.execute(blocked);
+            fail("Con la cola llena la búsqueda debería rechazarse");
+        } catch (RejectedExecutionException expected) {
+            // Quien llama informa del error en lugar de acumular trabajo
+        }
+
+        // Al liberar los hilos vuelve a aceptar trabajo
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        executor.execute(() -> { });
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void idleThreadsAreReleased() throws Exception {
+        ThreadPoolExecutor executor = ArasaacExecutors.newBoundedExecutor(3, 32, 100, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> { });
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getPoolSize() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, executor.getPoolSize());
+        executor.shutdown();
+    }
+
+    private static int countArasaacThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith(ArasaacExecutors.THREAD_PREFIX)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.mirutinavisual;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del transporte contra un servidor HTTP local: compresión, revalidación con
+ * ETag/Last-Modified, reutilización de conexiones y bytes transferidos.
+ */
+public class HttpUrlConnectionTransportTest {
+
+    private static final String ETAG = "W/\"2f1-abc\"";
+    private static final String LAST_MODIFIED = "Tue, 03 Nov 2020 10:33:57 GMT";
+    private static final int TIMEOUT_MS = 5000;
+    // Por debajo de HttpUrlConnectionTransport.MAX_DRAIN_BYTES
+    private static final int LARGE_BODY_BYTES = 8 * 1024;
+
+    private HttpServer server;
+    private String baseUrl;
+    private byte[] body;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger gzipRequests = new AtomicInteger();
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<>());
+
+    private HttpUrlConnectionTransport transport;
+
+    @Before
+    public void startServer() throws IOException {
+        // Cuerpo repetitivo como las respuestas reales de búsqueda: comprime muy bien
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 50; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"_id\":").append(2000 + i)
+                    .append(",\"keywords\":[{\"keyword\":\"cepillar los dientes\",\"type\":3}],\"tags\":[\"hygiene\"]}");
+        }
+        body = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/search", this::handleSearch);
+        server.createContext("/large", exchange -> {
+            requests.incrementAndGet();
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            // Sin gzip y sin patrón: los bytes en la red son exactamente LARGE_BODY_BYTES
+            byte[] payload = new byte[LARGE_BODY_BYTES];
+            new Random(42).nextBytes(payload);
+            exchange.sendResponseHeaders(200, payload.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(payload);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        transport = new HttpUrlConnectionTransport();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+
+        if (ETAG.equals(ifNoneMatch) || LAST_MODIFIED.equals(ifModifiedSince)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] payload = body;
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            gzipRequests.incrementAndGet();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            payload = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, payload.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(payload);
+        }
+    }
+
+    @Test
+    public void requestsGzipAndDecompresses() throws IOException {
+        try (ArasaacTransport.Response response = transport.newCall(baseUrl + "/search", null, null, TIMEOUT_MS).execute()) {
+            assertEquals(200, response.getCode());
+            assertArrayEquals(body, readAll(response.getBody()));
+        }
+
+        assertEquals(1, gzipRequests.get());
+        assertTrue("Se recibieron " + transport.getBytesReceived() + " bytes para un cuerpo de " + body.length,
+                transport.getBytesReceived() < body.length / 4);
+    }
+
+    @Test
+    public void revalidatesWithEtag() throws IOException {
+        String etag;
+        try (ArasaacTransport.Response first = transport.newCall(baseUrl + "/search", null, null, TIMEOUT_MS).execute()) {
+            readAll(first.getBody());
+            etag = first.getEtag();
+        }
+        long bytesAfterFirst = transport.getBytesReceived();
+        assertEquals(ETAG, etag);
+
+        try (ArasaacTransport.Response second = transport.newCall(baseUrl + "/search", etag, null, TIMEOUT_MS).execute()) {
+            assertTrue(second.isNotModified());
+            assertNull(second.getBody());
+        }
+
+        assertEquals(2, transport.getRoundTrips());
+        assertEquals(1, transport.getNotModifiedResponses());
+        assertEquals("Un 304 no debe transferir cuerpo", bytesAfterFirst, transport.getBytesReceived());
+    }
+
+    @Test
+    public void revalidatesWithLastModified() throws IOException {
+        try (ArasaacTransport.Response response = transport.newCall(baseUrl + "/search", null, LAST_MODIFIED, TIMEOUT_MS).execute()) {
+            assertTrue(response.isNotModified());
+        }
+        assertEquals(0, transport.getBytesReceived());
+    }
+
+    @Test
+    public void reusesConnectionAcrossRequests() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            try (ArasaacTransport.Response response = transport.newCall(baseUrl + "/search", null, null, TIMEOUT_MS).execute()) {
+                readAll(response.getBody());
+            }
+        }
+
+        assertEquals(5, requests.get());
+        assertEquals("Todas las peticiones deberían ir por la misma conexión", 1, clientPorts.size());
+    }
+
+    @Test
+    public void partiallyReadBodyIsDrainedAndKeepsConnection() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            try (ArasaacTransport.Response response = transport.newCall(baseUrl + "/large", null, null, TIMEOUT_MS).execute()) {
+                // Como el parser cuando ya tiene bastantes resultados
+                response.getBody().read();
+            }
+        }
+
+        assertEquals(3, requests.get());
+        assertEquals("Al cerrar se descarta el resto del cuerpo", 3L * LARGE_BODY_BYTES, transport.getBytesReceived());
+        assertEquals("Cerrar a medias no debería perder la conexión", 1, clientPorts.size());
+    }
+
+    @Test
+    public void errorStatusHasNoBody() throws IOException {
+        try (ArasaacTransport.Response response = transport.newCall(baseUrl + "/missing", null, null, TIMEOUT_MS).execute()) {
+            assertEquals(404, response.getCode());
+            assertNull(response.getBody());
+        }
+        assertEquals(1, transport.getRoundTrips());
+    }
+
+    @Test(expected = IOException.class)
+    public void cancelledCallDoesNotStart() throws IOException {
+        ArasaacTransport.Call call = transport.newCall(baseUrl + "/search", null, null, TIMEOUT_MS);
+        call.cancel();
+        call.execute();
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int read;
+        while ((read = input.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return buffer.toByteArray();
+    }
+}
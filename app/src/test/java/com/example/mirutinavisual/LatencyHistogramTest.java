@@ -0,0 +1,49 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void values_fallInPowerOfTwoBuckets() {
+        assertEquals(0, LatencyHistogram.bucketFor(0));
+        assertEquals(1, LatencyHistogram.bucketFor(1));
+        assertEquals(2, LatencyHistogram.bucketFor(3));
+        assertEquals(7, LatencyHistogram.bucketFor(100));
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketFor(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles_useBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 19; i++) {
+            histogram.record(10);
+        }
+        histogram.record(900);
+
+        assertEquals(20, histogram.getCount());
+        assertEquals(16, histogram.getPercentileMs(50));
+        assertEquals(16, histogram.getPercentileMs(95));
+        assertEquals(1024, histogram.getPercentileMs(100));
+        assertEquals((19 * 10 + 900) / 20, histogram.getAverageMs());
+    }
+
+    @Test
+    public void stats_computeHitRatioAndIgnoreUnknownValues() {
+        ImageLoadStats stats = new ImageLoadStats();
+        stats.recordLoad(ImageLoadStats.Source.MEMORY, 2, -1, -1);
+        stats.recordLoad(ImageLoadStats.Source.DISK, 20, -1, -1);
+        stats.recordLoad(ImageLoadStats.Source.NETWORK, 400, 5000, 30);
+        stats.recordLoad(ImageLoadStats.Source.LOCAL, 15, 3000, 10);
+        stats.recordFailure();
+
+        assertEquals(4, stats.getTotalLoads());
+        assertEquals(0.75, stats.getCacheHitRatio(), 0.001);
+        assertEquals(8000, stats.getBytesFetched());
+        assertEquals(4, stats.getTimeToFirstPixel().getCount());
+        assertEquals(2, stats.getDecodeTime().getCount());
+        assertEquals(1, stats.getFailures());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MergedActivitySourcesTest {
+
+    private static final int LEGACY = 0;
+    private static final int PER_USER = 1;
+
+    private static Activity activity(String id, String name) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setName(name);
+        return activity;
+    }
+
+    @Test
+    public void put_showsLegacyAndUsesPerUserOnlyForWhatLegacyLacks() {
+        MergedActivitySources merged = new MergedActivitySources(2);
+
+        assertTrue(merged.put(PER_USER, activity("a", "Desayunar")));
+        assertTrue(merged.put(LEGACY, activity("a", "Desayunar")));
+        // Una versión antigua solo cambia el nodo global: se ve su cambio
+        assertTrue(merged.put(LEGACY, activity("a", "Desayunar tarde")));
+        // Una escritura parcial en el subárbol no tapa la fila completa del nodo global
+        assertFalse(merged.put(PER_USER, activity("a", null)));
+        assertEquals("Desayunar tarde", merged.get("a").getName());
+
+        assertTrue(merged.put(PER_USER, activity("b", "Merendar")));
+        assertEquals("Merendar", merged.get("b").getName());
+        assertNull(merged.get("c"));
+    }
+
+    @Test
+    public void removeFromLegacy_hidesActivityStillInPerUser() {
+        MergedActivitySources merged = new MergedActivitySources(2);
+        merged.put(LEGACY, activity("a", "Desayunar"));
+        merged.put(PER_USER, activity("a", "Desayunar"));
+
+        assertFalse(merged.remove(LEGACY, "missing"));
+        // Borrada solo del nodo global por una versión antigua: no vuelve desde el subárbol
+        assertTrue(merged.remove(LEGACY, "a"));
+        assertNull(merged.get("a"));
+        assertFalse(merged.put(PER_USER, activity("a", "Desayunar")));
+        assertNull(merged.get("a"));
+        assertFalse(merged.remove(PER_USER, "a"));
+        assertNull(merged.get("a"));
+
+        // Después se puede volver a crear con la misma clave
+        assertTrue(merged.put(PER_USER, activity("a", "Desayunar otra vez")));
+        assertEquals("Desayunar otra vez", merged.get("a").getName());
+    }
+
+    @Test
+    public void removeFromPerUser_changesNothingWhileLegacyHasIt() {
+        MergedActivitySources merged = new MergedActivitySources(2);
+        merged.put(LEGACY, activity("a", "Desayunar"));
+        merged.put(PER_USER, activity("a", "Desayunar"));
+
+        assertFalse(merged.remove(PER_USER, "a"));
+        assertEquals("Desayunar", merged.get("a").getName());
+        assertTrue(merged.remove(LEGACY, "a"));
+        assertNull(merged.get("a"));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.mirutinavisual;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del índice local de ARASAAC contra un catálogo de ejemplo.
+ */
+public class PictogramCatalogTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private PictogramCatalog catalog;
+
+    @Before
+    public void loadFixture() throws Exception {
+        InputStream input = getClass().getClassLoader().getResourceAsStream("arasaac_catalog_fixture.json");
+        assertNotNull("Falta el catálogo de ejemplo", input);
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            catalog = PictogramCatalog.parse(reader);
+        }
+    }
+
+    @Test
+    public void parse_skipsPictogramsWithoutKeywords() {
+        assertEquals(9, catalog.getPictogramCount());
+    }
+
+    @Test
+    public void search_prefixMatchesKeywords() {
+        List<Pictogram> result = catalog.search("cepill", 12);
+        assertEquals(2, result.size());
+        assertTrue(containsId(result, 2326));
+        assertTrue(containsId(result, 2443));
+    }
+
+    @Test
+    public void search_wholeWordInsideCompoundKeyword() {
+        List<Pictogram> result = catalog.search("dientes", 12);
+        assertTrue(containsId(result, 2326));
+        assertTrue(containsId(result, 2443));
+    }
+
+    @Test
+    public void search_exactMatchComesFirst() {
+        List<Pictogram> result = catalog.search("comer", 12);
+        assertEquals(6456, result.get(0).getId());
+        assertEquals("comer", result.get(0).getKeywords().get(0));
+    }
+
+    @Test
+    public void search_ignoresAccentsAndCase() {
+        assertEquals(2565, catalog.search("PANTALON", 12).get(0).getId());
+        assertEquals(2565, catalog.search("pantalón", 12).get(0).getId());
+    }
+
+    @Test
+    public void search_keepsEnye() {
+        assertTrue(containsId(catalog.search("año", 12), 2473));
+        assertTrue(catalog.search("ano", 12).isEmpty());
+    }
+
+    @Test
+    public void search_respectsMaxResults() {
+        assertEquals(1, catalog.search("c", 1).size());
+    }
+
+    @Test
+    public void search_missReturnsEmpty() {
+        assertTrue(catalog.search("helicoptero", 12).isEmpty());
+        assertTrue(catalog.search("", 12).isEmpty());
+    }
+
+    @Test
+    public void search_keepsEveryKeywordSoResultsCanBeNarrowed() {
+        List<Pictogram> result = catalog.search("la", 12);
+        assertTrue(containsId(result, 2326));
+        Pictogram teeth = result.get(indexOf(result, 2326));
+        assertEquals(2, teeth.getKeywords().size());
+        assertEquals("lavarse los dientes", teeth.getKeywords().get(1));
+
+        // Solo encaja por su segunda palabra clave: sigue al filtrar en local
+        SearchBaseResults base = SearchBaseResults.from("la", result, true, 12);
+        assertTrue(containsId(base.narrow("lavar"), 2326));
+    }
+
+    @Test
+    public void writeAndRead_roundTrip() throws Exception {
+        File file = new File(tempFolder.getRoot(), "catalog.bin");
+        catalog.writeTo(file);
+
+        PictogramCatalog restored = PictogramCatalog.readFrom(file);
+        assertEquals(catalog.getPictogramCount(), restored.getPictogramCount());
+        assertEquals(catalog.getTermCount(), restored.getTermCount());
+        assertEquals(6632, restored.search("vestirse", 12).get(0).getId());
+        assertEquals(2, restored.search("ponerse", 12).get(0).getKeywords().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_rejectsTruncatedFile() throws Exception {
+        File file = new File(tempFolder.getRoot(), "catalog.bin");
+        catalog.writeTo(file);
+        try (RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+            truncated.setLength(truncated.length() / 2);
+        }
+        PictogramCatalog.readFrom(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_rejectsImpossibleCounts() throws Exception {
+        File file = new File(tempFolder.getRoot(), "catalog.bin");
+        catalog.writeTo(file);
+        // La cabecera son dos int; el siguiente es el número de pictogramas
+        try (RandomAccessFile damaged = new RandomAccessFile(file, "rw")) {
+            damaged.seek(8);
+            damaged.writeInt(Integer.MAX_VALUE);
+        }
+        PictogramCatalog.readFrom(file);
+    }
+
+    private static int indexOf(List<Pictogram> pictograms, int id) {
+        for (int i = 0; i < pictograms.size(); i++) {
+            if (pictograms.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean containsId(List<Pictogram> pictograms, int id) {
+        for (Pictogram pictogram : pictograms) {
+            if (pictogram.getId() == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PictogramColorModeTest {
+
+    private static final int THEME_BLUE = 0xFF2196F3;
+
+    // Aplica la matriz como lo hace ColorMatrixColorFilter, con los canales recortados a 0..255
+    private static int apply(float[] m, int argb) {
+        int a = argb >>> 24, r = argb >> 16 & 0xFF, g = argb >> 8 & 0xFF, b = argb & 0xFF;
+        int[] out = new int[4];
+        for (int row = 0; row < 4; row++) {
+            float value = m[row * 5] * r + m[row * 5 + 1] * g + m[row * 5 + 2] * b + m[row * 5 + 3] * a + m[row * 5 + 4];
+            out[row] = Math.max(0, Math.min(255, Math.round(value)));
+        }
+        return out[3] << 24 | out[0] << 16 | out[1] << 8 | out[2];
+    }
+
+    @Test
+    public void tint_mapsBlackToThemeColorAndKeepsWhite() {
+        float[] matrix = PictogramColorMode.TINT.colorMatrix(THEME_BLUE);
+        assertEquals(THEME_BLUE, apply(matrix, 0xFF000000));
+        assertEquals(0xFFFFFFFF, apply(matrix, 0xFFFFFFFF));
+        assertEquals(0x00FFFFFF, apply(matrix, 0x00FFFFFF));
+    }
+
+    @Test
+    public void grayscaleAndHighContrast_adjustChannels() {
+        int gray = apply(PictogramColorMode.GRAYSCALE.colorMatrix(0), 0xFFFF0000);
+        assertEquals(gray >> 16 & 0xFF, gray & 0xFF);
+        assertEquals(gray >> 8 & 0xFF, gray & 0xFF);
+
+        float[] contrast = PictogramColorMode.HIGH_CONTRAST.colorMatrix(0);
+        assertEquals(0xFF000000, apply(contrast, 0xFF202020));
+        assertEquals(0xFFFFFFFF, apply(contrast, 0xFFE0E0E0));
+        assertEquals(0xFF808080, apply(contrast, 0xFF808080));
+        assertEquals(0xFF123456, apply(PictogramColorMode.NORMAL.colorMatrix(0), 0xFF123456));
+    }
+
+    @Test
+    public void unknownStoredName_fallsBackToNormal() {
+        assertEquals(PictogramColorMode.GRAYSCALE, PictogramColorMode.fromName("GRAYSCALE"));
+        assertEquals(PictogramColorMode.NORMAL, PictogramColorMode.fromName("SEPIA"));
+        assertEquals(PictogramColorMode.NORMAL, PictogramColorMode.fromName(null));
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.mirutinavisual;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class PictogramPackTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] png(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String read(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void mappedPack_servesEachImageByIdAndSize() throws IOException {
+        File file = folder.newFile("pictograms.pack");
+        new PictogramPackWriter(3)
+                .add(8566, 300, png("fuego-300"))
+                .add(2557, 500, png("medalla-500"))
+                .add(2557, 300, png("medalla-300"))
+                .writeTo(file);
+
+        PictogramPack pack = PictogramPack.open(file);
+
+        assertEquals(3, pack.getPackVersion());
+        assertEquals(3, pack.size());
+        assertEquals("medalla-300", read(pack.find(2557, 300)));
+        assertEquals("medalla-500", read(pack.find(2557, 500)));
+        assertEquals("fuego-300", read(pack.find(8566, 300)));
+        assertNull(pack.find(2595, 300));
+        assertFalse(pack.contains(2595));
+    }
+
+    @Test
+    public void missingSize_fallsBackToNextLargerButNeverSmaller() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PictogramPackWriter(1)
+                .add(2557, 300, png("300"))
+                .add(2557, 2500, png("2500"))
+                .writeTo(out);
+        PictogramPack pack = PictogramPack.wrap(ByteBuffer.wrap(out.toByteArray()));
+
+        assertEquals("2500", read(pack.find(2557, 500)));
+        assertEquals("300", read(pack.find(2557, 100)));
+        assertNull(pack.find(2557, 4000));
+        assertTrue(pack.contains(2557, 2500));
+        assertFalse(pack.contains(2557, 4000));
+        assertFalse(pack.contains(8566, 300));
+    }
+
+    @Test
+    public void findExact_ignoresOtherSizes() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PictogramPackWriter(1).add(2557, 300, png("300")).writeTo(out);
+        PictogramPack pack = PictogramPack.wrap(ByteBuffer.wrap(out.toByteArray()));
+
+        assertEquals("300", read(pack.findExact(2557, 300)));
+        assertNull(pack.findExact(2557, 500));
+        assertNull(pack.findExact(8566, 300));
+    }
+
+    @Test
+    public void slices_areIndependent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PictogramPackWriter(1).add(2557, 300, png("medalla")).writeTo(out);
+        PictogramPack pack = PictogramPack.wrap(ByteBuffer.wrap(out.toByteArray()));
+
+        ByteBuffer first = pack.find(2557, 300);
+        read(first);
+        assertEquals("medalla", read(pack.find(2557, 300)));
+        assertTrue(first.isReadOnly());
+    }
+
+    @Test
+    public void fileWriter_streamsImagesAndDropsFailedOnes() throws IOException {
+        File file = folder.newFile("pinned.pack");
+        try (PictogramPackFileWriter writer = new PictogramPackFileWriter(file, 2, 4)) {
+            writer.add(8566, 300, new ByteArrayInputStream(png("fuego-300")));
+            try {
+                writer.add(2557, 500, new FailingInputStream(png("medalla a me")));
+                fail("La descarga cortada debería lanzar IOException");
+            } catch (IOException expected) {
+                // Lo escrito de esa imagen se descarta
+            }
+            writer.add(2557, 300, ByteBuffer.wrap(png("medalla-300")));
+            assertEquals(2, writer.size());
+        }
+
+        // Sobran dos huecos reservados en el índice: el paquete sigue siendo válido
+        PictogramPack pack = PictogramPack.open(file);
+        assertEquals(2, pack.getPackVersion());
+        assertEquals(2, pack.size());
+        assertEquals("medalla-300", read(pack.find(2557, 300)));
+        assertNull(pack.findExact(2557, 500));
+        assertEquals("fuego-300", read(pack.find(8566, 300)));
+    }
+
+    @Test(expected = IOException.class)
+    public void fileWriter_rejectsMoreImagesThanReserved() throws IOException {
+        try (PictogramPackFileWriter writer = new PictogramPackFileWriter(folder.newFile("pinned.pack"), 1, 1)) {
+            writer.add(8566, 300, ByteBuffer.wrap(png("fuego")));
+            writer.add(2557, 300, ByteBuffer.wrap(png("medalla")));
+        }
+    }
+
+    // Entrega el contenido y luego falla, como una conexión que se corta
+    private static class FailingInputStream extends InputStream {
+        private final ByteArrayInputStream content;
+
+        FailingInputStream(byte[] content) {
+            this.content = new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (content.available() == 0) {
+                throw new IOException("Conexión cortada");
+            }
+            return content.read(buffer, offset, length);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidFile_isRejected() throws IOException {
+        PictogramPack.wrap(ByteBuffer.wrap(png("no es un paquete de pictogramas")));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PictogramPagerTest {
+
+    private static List<Pictogram> pictograms(int count) {
+        List<Pictogram> list = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            list.add(new Pictogram(i, Collections.singletonList("p" + i)));
+        }
+        return list;
+    }
+
+    @Test
+    public void pages_coverAllResultsInOrder() {
+        PictogramPager pager = new PictogramPager(pictograms(30), 12);
+
+        assertEquals(30, pager.getTotal());
+        assertEquals(12, pager.nextPage().size());
+        assertEquals(12, pager.nextPage().size());
+
+        List<Pictogram> last = pager.nextPage();
+        assertEquals(6, last.size());
+        assertEquals(25, last.get(0).getId());
+        assertFalse(pager.hasMore());
+        assertTrue(pager.nextPage().isEmpty());
+        assertEquals(30, pager.getLoadedCount());
+    }
+
+    @Test
+    public void emptyResult_hasNoPages() {
+        PictogramPager pager = new PictogramPager(pictograms(0), 12);
+
+        assertTrue(pager.isEmpty());
+        assertFalse(pager.hasMore());
+        assertTrue(pager.nextPage().isEmpty());
+    }
+
+    @Test
+    public void sourceList_isCopied() {
+        List<Pictogram> source = pictograms(5);
+        PictogramPager pager = new PictogramPager(source, 12);
+        source.clear();
+
+        assertEquals(5, pager.nextPage().size());
+    }
+
+    @Test
+    public void partialResults_areNeverANarrowingBase() {
+        assertTrue(new PictogramPager(pictograms(5), 12).isComplete());
+
+        // Búsqueda en varios idiomas cortada por el presupuesto de latencia
+        PictogramPager partial = new PictogramPager(pictograms(5), 12, false);
+        assertFalse(partial.isComplete());
+        assertNull(SearchBaseResults.from("p", partial.getAllResults(), partial.isComplete(), 120));
+    }
+}
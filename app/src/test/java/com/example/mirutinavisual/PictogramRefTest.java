@@ -0,0 +1,39 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PictogramRefTest {
+
+    @Test
+    public void equalRefs_shareUrlAndCacheKey() {
+        PictogramRef a = new PictogramRef(2349, PictogramResolution.SMALL, PictogramRef.Variant.COLOR);
+        PictogramRef b = new PictogramRef(2349, PictogramResolution.SMALL, PictogramRef.Variant.COLOR);
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.getCacheKey(), b.getCacheKey());
+        assertEquals("https://static.arasaac.org/pictograms/2349/2349_300.png", a.getUrl());
+    }
+
+    @Test
+    public void resolutionAndVariant_changeTheCacheKey() {
+        PictogramRef color = new PictogramRef(2349, PictogramResolution.MEDIUM, PictogramRef.Variant.COLOR);
+        PictogramRef large = new PictogramRef(2349, PictogramResolution.LARGE, PictogramRef.Variant.COLOR);
+        PictogramRef noColor = new PictogramRef(2349, PictogramResolution.MEDIUM, PictogramRef.Variant.NO_COLOR);
+
+        assertNotEquals(color, large);
+        assertNotEquals(color.getCacheKey(), large.getCacheKey());
+        assertNotEquals(color.getCacheKey(), noColor.getCacheKey());
+        assertEquals(color, PictogramRef.of(2349));
+    }
+
+    @Test
+    public void noColorVariant_usesTheApiWithSupportedResolution() {
+        PictogramRef small = new PictogramRef(2349, PictogramResolution.SMALL, PictogramRef.Variant.NO_COLOR);
+
+        assertEquals("https://api.arasaac.org/api/pictograms/2349?resolution=500&color=false&download=false",
+                small.getUrl());
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PictogramResolutionTest {
+
+    @Test
+    public void smallestResolutionCoveringTheView_isChosen() {
+        assertEquals(PictogramResolution.SMALL, PictogramResolution.forTargetSize(160));
+        assertEquals(PictogramResolution.SMALL, PictogramResolution.forTargetSize(300));
+        assertEquals(PictogramResolution.MEDIUM, PictogramResolution.forTargetSize(320));
+        assertEquals(PictogramResolution.LARGE, PictogramResolution.forTargetSize(900));
+        assertEquals(PictogramResolution.LARGE, PictogramResolution.forTargetSize(4000));
+    }
+}
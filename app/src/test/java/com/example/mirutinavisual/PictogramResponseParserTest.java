@@ -0,0 +1,193 @@
+package com.example.mirutinavisual;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas y benchmark del lector en streaming frente al camino anterior
+ * (leer todo el cuerpo y construir un JSONArray completo).
+ */
+public class PictogramResponseParserTest {
+
+    private static final int MAX_RESULTS = 12;
+    private static final int LARGE_PAYLOAD_REPEAT = 200;
+    private static final int BENCHMARK_ITERATIONS = 20;
+
+    private static String recordedResponse;
+    private static String largeResponse;
+
+    @BeforeClass
+    public static void loadFixtures() throws IOException {
+        recordedResponse = readResource("arasaac_search_cepillar.json");
+
+        // Respuesta de un término genérico: la grabación repetida hasta varios MB
+        String items = recordedResponse.trim();
+        items = items.substring(1, items.length() - 1).trim();
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < LARGE_PAYLOAD_REPEAT; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(items);
+        }
+        largeResponse = builder.append(']').toString();
+    }
+
+    @Test
+    public void parse_readsIdAndKeywords() throws IOException {
+        List<Pictogram> result = PictogramResponseParser.parse(new StringReader(recordedResponse), MAX_RESULTS);
+
+        assertEquals(2326, result.get(0).getId());
+        assertEquals(2, result.get(0).getKeywords().size());
+        assertEquals("cepillar los dientes", result.get(0).getKeywords().get(0));
+        assertEquals("lavarse los dientes", result.get(0).getKeywords().get(1));
+    }
+
+    @Test
+    public void parse_capsResults() throws IOException {
+        assertEquals(MAX_RESULTS, PictogramResponseParser.parse(new StringReader(recordedResponse), MAX_RESULTS).size());
+        assertEquals(15, PictogramResponseParser.parse(new StringReader(recordedResponse), 100).size());
+    }
+
+    @Test
+    public void parse_placeholderWhenNoKeywords() throws IOException {
+        List<Pictogram> result = PictogramResponseParser.parse(
+                new StringReader("[{\"_id\": 5, \"keywords\": [], \"tags\": [\"x\"]}]"), MAX_RESULTS);
+
+        assertEquals("Pictograma 5", result.get(0).getKeywords().get(0));
+    }
+
+    @Test
+    public void parse_matchesFullDocumentPath() throws Exception {
+        List<Pictogram> streaming = PictogramResponseParser.parse(new StringReader(largeResponse), MAX_RESULTS);
+        List<Pictogram> legacy = parseFullDocument(new StringReader(largeResponse));
+
+        assertEquals(legacy.size(), streaming.size());
+        for (int i = 0; i < legacy.size(); i++) {
+            assertEquals(legacy.get(i).getId(), streaming.get(i).getId());
+            assertEquals(legacy.get(i).getKeywords(), streaming.get(i).getKeywords());
+        }
+    }
+
+    @Test
+    public void parse_stopsReadingAfterMaxResults() throws IOException {
+        CountingReader reader = new CountingReader(new StringReader(largeResponse));
+        PictogramResponseParser.parse(reader, MAX_RESULTS);
+
+        // Solo se debe haber leído la primera grabación (más el búfer interno de JsonReader)
+        assertTrue("Se leyeron " + reader.count + " de " + largeResponse.length() + " caracteres",
+                reader.count < recordedResponse.length() + 4096);
+    }
+
+    @Test
+    public void benchmark_streamingVsFullDocument() throws Exception {
+        // Calentamiento para que el JIT no favorezca al segundo camino medido
+        for (int i = 0; i < 3; i++) {
+            parseFullDocument(new StringReader(largeResponse));
+            PictogramResponseParser.parse(new StringReader(largeResponse), MAX_RESULTS);
+        }
+
+        long legacyStart = System.nanoTime();
+        CountingReader legacyReader = null;
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            legacyReader = new CountingReader(new StringReader(largeResponse));
+            parseFullDocument(legacyReader);
+        }
+        long legacyNanos = System.nanoTime() - legacyStart;
+
+        long streamingStart = System.nanoTime();
+        CountingReader streamingReader = null;
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            streamingReader = new CountingReader(new StringReader(largeResponse));
+            PictogramResponseParser.parse(streamingReader, MAX_RESULTS);
+        }
+        long streamingNanos = System.nanoTime() - streamingStart;
+
+        System.out.println("BENCHMARK: respuesta de " + largeResponse.length() + " caracteres");
+        System.out.println("BENCHMARK: JSONArray completo " + (legacyNanos / BENCHMARK_ITERATIONS / 1000)
+                + " us/búsqueda, " + legacyReader.count + " caracteres leídos");
+        System.out.println("BENCHMARK: streaming " + (streamingNanos / BENCHMARK_ITERATIONS / 1000)
+                + " us/búsqueda, " + streamingReader.count + " caracteres leídos");
+
+        assertTrue(streamingReader.count < legacyReader.count);
+    }
+
+    // Camino anterior de ArasaacApiService: cuerpo completo en memoria y JSONArray entero
+    private static List<Pictogram> parseFullDocument(Reader source) throws Exception {
+        BufferedReader reader = new BufferedReader(source);
+        StringBuilder response = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            response.append(line);
+        }
+        reader.close();
+
+        List<Pictogram> pictograms = new ArrayList<>();
+        JSONArray jsonArray = new JSONArray(response.toString());
+        int maxResults = Math.min(jsonArray.length(), MAX_RESULTS);
+        for (int i = 0; i < maxResults; i++) {
+            JSONObject pictogramJson = jsonArray.getJSONObject(i);
+            List<String> keywords = new ArrayList<>();
+            JSONArray keywordsArray = pictogramJson.getJSONArray("keywords");
+            for (int j = 0; j < keywordsArray.length(); j++) {
+                keywords.add(keywordsArray.getJSONObject(j).getString("keyword"));
+            }
+            pictograms.add(new Pictogram(pictogramJson.getInt("_id"), keywords));
+        }
+        return pictograms;
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream input = PictogramResponseParserTest.class.getClassLoader().getResourceAsStream(name)) {
+            assertNotNull("Falta el fixture " + name, input);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class CountingReader extends FilterReader {
+        long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c != -1) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
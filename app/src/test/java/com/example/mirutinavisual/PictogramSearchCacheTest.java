@@ -0,0 +1,111 @@
+package com.example.mirutinavisual;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PictogramSearchCacheTest {
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+    private static final long TTL_MS = HOUR_MS;
+    private static final long STALE_MS = 24 * HOUR_MS;
+    // Sin guardado automático durante el test: se guarda con flush()
+    private static final long NO_AUTO_PERSIST = HOUR_MS;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<Pictogram> pictograms(int... ids) {
+        Pictogram[] list = new Pictogram[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            list[i] = new Pictogram(ids[i], Collections.singletonList("p" + ids[i]));
+        }
+        return Arrays.asList(list);
+    }
+
+    @Test
+    public void normalize_keepsEnieAndDropsOtherAccents() {
+        assertEquals("año", PictogramSearchCache.normalize("  AÑO "));
+        assertEquals("ano", PictogramSearchCache.normalize("ano"));
+        assertEquals("cafe con pinguino", PictogramSearchCache.normalize("Café   con\tpingüino"));
+        assertEquals("", PictogramSearchCache.normalize(null));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        PictogramSearchCache cache = new PictogramSearchCache(null, TTL_MS, STALE_MS, 2, NO_AUTO_PERSIST);
+        cache.put("comer", pictograms(1));
+        cache.put("beber", pictograms(2));
+        assertNotNull(cache.get("comer"));
+        cache.put("dormir", pictograms(3));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("comer"));
+        assertNull(cache.get("beber"));
+        assertNotNull(cache.get("dormir"));
+    }
+
+    @Test
+    public void freshnessOf_changesAtTtlAndStaleLimits() {
+        PictogramSearchCache cache = new PictogramSearchCache(null, TTL_MS, STALE_MS, 10, NO_AUTO_PERSIST);
+        cache.put("comer", pictograms(1));
+        PictogramSearchCache.Entry entry = cache.get("comer");
+        long now = System.currentTimeMillis();
+
+        entry.storedAt = now - TTL_MS + 60_000;
+        assertEquals(PictogramSearchCache.Freshness.FRESH, cache.freshnessOf(entry));
+        entry.storedAt = now - TTL_MS;
+        assertEquals(PictogramSearchCache.Freshness.STALE, cache.freshnessOf(entry));
+        entry.storedAt = now - STALE_MS + 60_000;
+        assertEquals(PictogramSearchCache.Freshness.STALE, cache.freshnessOf(entry));
+        entry.storedAt = now - STALE_MS;
+        assertEquals(PictogramSearchCache.Freshness.EXPIRED, cache.freshnessOf(entry));
+
+        cache.touch("comer");
+        assertEquals(PictogramSearchCache.Freshness.FRESH, cache.freshnessOf(cache.get("comer")));
+    }
+
+    @Test
+    public void flush_writesOnceAndReloadsInLruOrder() throws Exception {
+        File file = new File(folder.getRoot(), "search_cache.json");
+        PictogramSearchCache cache = new PictogramSearchCache(file, TTL_MS, STALE_MS, 2, NO_AUTO_PERSIST);
+        cache.put("comer", pictograms(1, 2));
+        cache.put("beber", pictograms(3), "\"etag-1\"", null);
+        cache.touch("comer");
+        // Los cambios se agrupan: todavía no se ha escrito nada
+        assertFalse(file.exists());
+
+        cache.flush();
+        assertTrue(file.exists());
+
+        PictogramSearchCache reloaded = new PictogramSearchCache(file, TTL_MS, STALE_MS, 2, NO_AUTO_PERSIST);
+        assertEquals(2, reloaded.size());
+        assertEquals(2, reloaded.get("comer").getPictograms().size());
+        assertEquals("\"etag-1\"", reloaded.get("beber").getEtag());
+
+        // "beber" se usó después que "comer" al leerlo arriba; entra una nueva y sale "comer"
+        reloaded.put("dormir", pictograms(4));
+        assertNull(reloaded.get("comer"));
+        assertNotNull(reloaded.get("beber"));
+    }
+
+    @Test
+    public void put_isPersistedInBackground() throws Exception {
+        File file = new File(folder.getRoot(), "search_cache.json");
+        PictogramSearchCache cache = new PictogramSearchCache(file, TTL_MS, STALE_MS, 10, 10);
+        cache.put("comer", pictograms(1));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!file.exists() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, new PictogramSearchCache(file).size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PictogramUsageHistoryTest {
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void frequent_ranksByUsesAndRecency() {
+        PictogramUsageHistory history = new PictogramUsageHistory();
+        // "desayunar" se usó mucho hace dos meses; "cepillar los dientes" un poco, pero ayer
+        for (int i = 0; i < 5; i++) {
+            history.record(2557, "desayunar", NOW - 60 * DAY_MS);
+        }
+        history.record(2326, "cepillar los dientes", NOW - DAY_MS);
+        history.record(2326, "cepillar los dientes", NOW - DAY_MS);
+        history.record(8566, "colegio", NOW - 2 * DAY_MS);
+
+        List<Pictogram> frequent = history.getFrequent(10, NOW);
+        assertEquals(3, frequent.size());
+        assertEquals(2326, frequent.get(0).getId());
+        assertEquals(5, history.getCount(2557));
+    }
+
+    @Test
+    public void suggest_matchesPrefixOfAnyWord() {
+        PictogramUsageHistory history = new PictogramUsageHistory();
+        history.record(2326, "cepillar los dientes", NOW);
+        history.record(2557, "desayunar", NOW);
+
+        List<Pictogram> suggestions = history.suggest("Dien", 10, NOW);
+        assertEquals(1, suggestions.size());
+        assertEquals(2326, suggestions.get(0).getId());
+        assertTrue(history.suggest("xyz", 10, NOW).isEmpty());
+    }
+
+    @Test
+    public void full_evictsLowestScore() {
+        PictogramUsageHistory history = new PictogramUsageHistory();
+        for (int i = 1; i <= PictogramUsageHistory.MAX_ENTRIES; i++) {
+            history.record(i, "p" + i, NOW);
+            history.record(i, "p" + i, NOW);
+        }
+        history.record(1000, "nuevo", NOW);
+
+        assertEquals(PictogramUsageHistory.MAX_ENTRIES, history.size());
+        assertEquals(1, history.getCount(1000));
+    }
+
+    @Test
+    public void encode_roundTrips() {
+        PictogramUsageHistory history = new PictogramUsageHistory();
+        history.record(2326, "cepillar\tlos dientes", NOW);
+        history.record(2557, "desayunar", NOW);
+        history.record(2557, "desayunar", NOW);
+
+        PictogramUsageHistory restored = PictogramUsageHistory.decode(history.encode());
+        assertEquals(2, restored.size());
+        assertEquals(2, restored.getCount(2557));
+        assertEquals("cepillar los dientes", restored.getFrequent(10, NOW).get(1).getKeywords().get(0));
+    }
+
+    @Test
+    public void decode_ignoresGarbage() {
+        PictogramUsageHistory restored = PictogramUsageHistory.decode("no es\tun\thistorial\n12\tx\t0\t1\tfoo");
+        assertEquals(0, restored.size());
+        assertEquals(0, PictogramUsageHistory.decode(null).size());
+    }
+}
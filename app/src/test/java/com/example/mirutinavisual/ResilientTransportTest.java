@@ -0,0 +1,207 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de reintentos, petición duplicada y circuit breaker con un transporte simulado.
+ */
+public class ResilientTransportTest {
+
+    private static final String URL = "https://api.arasaac.org/api/pictograms/es/search/cepillar";
+    private static final String ENDPOINT = "/api/pictograms/es/search";
+
+    /**
+     * Transporte falso: cada llamada consume el siguiente comportamiento de la cola
+     * (código HTTP, -1 para fallo de red) y puede tardar lo indicado.
+     */
+    private static class ScriptedTransport implements ArasaacTransport {
+        final Deque<Integer> codes = new ArrayDeque<>();
+        final Deque<Long> delaysMs = new ArrayDeque<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger cancelledCalls = new AtomicInteger();
+        int defaultCode = 200;
+
+        @Override
+        public Call newCall(String url, String etag, String lastModified, int readTimeoutMs) {
+            Integer code;
+            Long delay;
+            synchronized (this) {
+                code = codes.isEmpty() ? defaultCode : codes.poll();
+                delay = delaysMs.isEmpty() ? 0L : delaysMs.poll();
+            }
+            CountDownLatch cancelSignal = new CountDownLatch(1);
+            return new Call() {
+                @Override
+                public Response execute() throws IOException {
+                    calls.incrementAndGet();
+                    try {
+                        if (delay > 0 && cancelSignal.await(delay, TimeUnit.MILLISECONDS)) {
+                            throw new IOException("cancelada");
+                        }
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    if (code < 0) {
+                        throw new IOException("Connection reset");
+                    }
+                    byte[] body = ("[" + code + "]").getBytes(StandardCharsets.UTF_8);
+                    return new Response(code, code == 200 ? new ByteArrayInputStream(body) : null, null, null);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelledCalls.incrementAndGet();
+                    cancelSignal.countDown();
+                }
+            };
+        }
+    }
+
+    private static ResilientTransport resilient(ScriptedTransport delegate, boolean hedging) {
+        return new ResilientTransport(delegate, hedging, 3, 1, 3, 200);
+    }
+
+    @Test
+    public void serverErrorsAndNetworkFailures_areRetried() throws IOException {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.codes.add(503);
+        delegate.codes.add(-1);
+        ResilientTransport transport = resilient(delegate, false);
+
+        try (ArasaacTransport.Response response = transport.newCall(URL, null, null, 1000).execute()) {
+            assertEquals(200, response.getCode());
+        }
+        assertEquals(3, delegate.calls.get());
+
+        ResilientTransport.EndpointStats stats = transport.getEndpointStats().get(ENDPOINT);
+        assertEquals(3, stats.getRequests());
+        assertEquals(2, stats.getErrors());
+        assertEquals(2, stats.getRetries());
+    }
+
+    @Test
+    public void clientErrors_areNotRetried() throws IOException {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.codes.add(404);
+        ResilientTransport transport = resilient(delegate, false);
+
+        try (ArasaacTransport.Response response = transport.newCall(URL, null, null, 1000).execute()) {
+            assertEquals(404, response.getCode());
+        }
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    public void persistentServerError_returnsLastResponse() throws IOException {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.defaultCode = 502;
+        ResilientTransport transport = new ResilientTransport(delegate, false, 3, 1, 10, 200);
+
+        try (ArasaacTransport.Response response = transport.newCall(URL, null, null, 1000).execute()) {
+            assertEquals(502, response.getCode());
+        }
+        assertEquals(3, delegate.calls.get());
+    }
+
+    @Test
+    public void circuitOpens_andFailsFastUntilTrialSucceeds() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.defaultCode = -1;
+        ResilientTransport transport = resilient(delegate, false);
+
+        try {
+            transport.newCall(URL, null, null, 1000).execute();
+            fail("Se esperaba un fallo de red");
+        } catch (IOException expected) {
+            assertFalse(expected instanceof ResilientTransport.CircuitOpenException);
+        }
+        assertTrue(transport.isCircuitOpen());
+        int callsWhenOpened = delegate.calls.get();
+
+        try {
+            transport.newCall(URL, null, null, 1000).execute();
+            fail("El circuito debería estar abierto");
+        } catch (ResilientTransport.CircuitOpenException expected) {
+            // sin tocar la red
+        }
+        assertEquals(callsWhenOpened, delegate.calls.get());
+        assertEquals(1, transport.getEndpointStats().get(ENDPOINT).getRejected());
+
+        // Pasado el tiempo de apertura, una petición de prueba correcta cierra el circuito
+        Thread.sleep(250);
+        delegate.defaultCode = 200;
+        try (ArasaacTransport.Response response = transport.newCall(URL, null, null, 1000).execute()) {
+            assertEquals(200, response.getCode());
+        }
+        assertFalse(transport.isCircuitOpen());
+    }
+
+    @Test
+    public void slowRequest_isHedgedAndLoserCancelled() throws IOException {
+        ScriptedTransport delegate = new ScriptedTransport();
+        ResilientTransport transport = resilient(delegate, true);
+
+        // Historial de latencias rápidas para tener un p95
+        for (int i = 0; i < ResilientTransport.MIN_SAMPLES_FOR_HEDGE; i++) {
+            transport.newCall(URL, null, null, 1000).execute().close();
+        }
+
+        delegate.delaysMs.add(5000L);
+        long start = System.nanoTime();
+        try (ArasaacTransport.Response response = transport.newCall(URL, null, null, 10000).execute()) {
+            assertEquals(200, response.getCode());
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("La petición duplicada debería ganar: " + elapsedMs + " ms", elapsedMs < 2000);
+        ResilientTransport.EndpointStats stats = transport.getEndpointStats().get(ENDPOINT);
+        assertEquals(1, stats.getHedges());
+        assertEquals(1, stats.getHedgeWins());
+        assertEquals(1, delegate.cancelledCalls.get());
+    }
+
+    @Test
+    public void cancel_stopsRetryingImmediately() throws Exception {
+        ScriptedTransport delegate = new ScriptedTransport();
+        delegate.defaultCode = -1;
+        ResilientTransport transport = new ResilientTransport(delegate, false, 5, 10000, 100, 200);
+        ArasaacTransport.Call call = transport.newCall(URL, null, null, 1000);
+
+        Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            call.cancel();
+        });
+        canceller.start();
+
+        long start = System.nanoTime();
+        try {
+            call.execute();
+            fail("Se esperaba la cancelación");
+        } catch (IOException expected) {
+            // cancelada durante la espera entre intentos
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertEquals(1, delegate.calls.get());
+        canceller.join();
+    }
+
+    @Test
+    public void endpoint_dropsLastPathSegment() {
+        assertEquals(ENDPOINT, ResilientTransport.endpointOf(URL));
+        assertEquals("/api/pictograms/all", ResilientTransport.endpointOf("https://api.arasaac.org/api/pictograms/all/es"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SearchBaseResultsTest {
+
+    private static final int MAX_RESULTS = 4;
+
+    private static Pictogram pictogram(int id, String... keywords) {
+        return new Pictogram(id, Arrays.asList(keywords));
+    }
+
+    private static List<Pictogram> results() {
+        List<Pictogram> results = new ArrayList<>();
+        results.add(pictogram(1, "cepillar los dientes"));
+        results.add(pictogram(2, "cepillo"));
+        results.add(pictogram(3, "cepillo de pelo", "peine"));
+        return results;
+    }
+
+    @Test
+    public void narrow_filtersCompleteResultsWhenTermGrows() {
+        SearchBaseResults base = SearchBaseResults.from("cep", results(), true, MAX_RESULTS);
+        assertNotNull(base);
+
+        List<Pictogram> narrowed = base.narrow("cepillo");
+        assertEquals(2, narrowed.size());
+        assertEquals(2, narrowed.get(0).getId());
+        assertEquals(1, base.narrow("cepillo de").size());
+    }
+
+    @Test
+    public void narrow_needsServerWhenTermDoesNotExtendBase() {
+        SearchBaseResults base = SearchBaseResults.from("cepillo", results(), true, MAX_RESULTS);
+        assertNull(base.narrow("cep"));
+        assertNull(base.narrow("peine"));
+    }
+
+    @Test
+    public void from_rejectsResultsCappedAtMax() {
+        List<Pictogram> capped = results();
+        capped.add(pictogram(4, "cepillar el pelo"));
+        // El servidor pudo tener más coincidencias para "cepillar" que no cupieron en la lista
+        assertNull(SearchBaseResults.from("cep", capped, true, MAX_RESULTS));
+    }
+
+    @Test
+    public void from_rejectsExactOnlyResults() {
+        // bestsearch no devuelve "cepillar el pelo" aunque encaje con "cepillar"
+        assertNull(SearchBaseResults.from("cep", results(), false, MAX_RESULTS));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SequenceStepsTest {
+
+    private static final int ACTIVITY_PICTOGRAM = 2326;
+
+    private static List<SequenceStep> toothBrushingTemplate() {
+        return Arrays.asList(
+                new SequenceStep("step_1", "Tomar cepillo", "Toma tu cepillo de dientes", ACTIVITY_PICTOGRAM, "cepillo", 1),
+                new SequenceStep("step_2", "Pasta dental", "Pon pasta dental en el cepillo", ACTIVITY_PICTOGRAM, "pasta de dientes", 2),
+                new SequenceStep("step_3", "Enjuagar", "Enjuaga tu boca con agua", ACTIVITY_PICTOGRAM, "agua", 3));
+    }
+
+    @Test
+    public void savedSequence_containsResolvedPictogramIds() {
+        List<SequenceStep> steps = toothBrushingTemplate();
+        Map<String, Pictogram> bestMatches = new HashMap<>();
+        bestMatches.put("cepillo", new Pictogram(2587, Collections.singletonList("cepillo")));
+        bestMatches.put("pasta de dientes", new Pictogram(2326, Collections.singletonList("pasta de dientes")));
+        bestMatches.put("agua", new Pictogram(2248, Collections.singletonList("agua")));
+
+        // "pasta de dientes" ya tenía ese pictograma
+        assertEquals(2, SequenceSteps.applyPictograms(steps, bestMatches));
+
+        Map<String, Object> saved = SequenceSteps.sequenceFields(steps);
+        assertEquals(true, saved.get("isSequence"));
+        assertEquals(3, saved.get("totalSteps"));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> savedSteps = (List<Map<String, Object>>) saved.get("steps");
+        assertEquals(2587, savedSteps.get(0).get("pictogramId"));
+        assertEquals(2326, savedSteps.get(1).get("pictogramId"));
+        assertEquals(2248, savedSteps.get(2).get("pictogramId"));
+        assertEquals("agua", savedSteps.get(2).get("pictogramKeyword"));
+        assertEquals(3, savedSteps.get(2).get("stepNumber"));
+    }
+
+    @Test
+    public void unresolvedSteps_keepActivityPictogram() {
+        List<SequenceStep> steps = toothBrushingTemplate();
+        Map<String, Pictogram> bestMatches = Collections.singletonMap(
+                "agua", new Pictogram(2248, Collections.singletonList("agua")));
+
+        assertEquals(1, SequenceSteps.applyPictograms(steps, bestMatches));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> savedSteps = (List<Map<String, Object>>) SequenceSteps.sequenceFields(steps).get("steps");
+        assertEquals(ACTIVITY_PICTOGRAM, savedSteps.get(0).get("pictogramId"));
+        assertEquals(2248, savedSteps.get(2).get("pictogramId"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SortedActivityListTest {
+
+    private static Activity activity(String id, String time) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setTime(time);
+        return activity;
+    }
+
+    private static String order(SortedActivityList list) {
+        StringBuilder ids = new StringBuilder();
+        for (Activity activity : list.asList()) {
+            ids.append(activity.getId());
+        }
+        return ids.toString();
+    }
+
+    @Test
+    public void insert_keepsTimeOrderAndReturnsPosition() {
+        SortedActivityList list = new SortedActivityList();
+        assertEquals(0, list.insert(activity("c", "12:00")));
+        assertEquals(0, list.insert(activity("a", "08:00")));
+        assertEquals(1, list.insert(activity("b", "08:00")));
+        assertEquals(3, list.insert(activity("d", "20:30")));
+        assertEquals("abcd", order(list));
+        assertEquals(2, list.indexOf("c"));
+    }
+
+    @Test
+    public void update_movesOnlyWhenTimeChanges() {
+        SortedActivityList list = new SortedActivityList();
+        list.insert(activity("a", "08:00"));
+        list.insert(activity("b", "09:00"));
+        list.insert(activity("c", "10:00"));
+
+        Activity completed = activity("b", "09:00");
+        completed.setCompleted(true);
+        assertEquals(1, list.update(completed));
+        assertTrue(list.asList().get(1).isCompleted());
+
+        assertEquals(2, list.update(activity("a", "11:00")));
+        assertEquals("bca", order(list));
+        assertEquals(0, list.update(activity("a", "07:00")));
+        assertEquals("abc", order(list));
+    }
+
+    @Test
+    public void remove_returnsOldPosition() {
+        SortedActivityList list = new SortedActivityList();
+        list.insert(activity("a", "08:00"));
+        list.insert(activity("b", "09:00"));
+        assertEquals(1, list.remove("b"));
+        assertEquals(-1, list.remove("b"));
+        assertFalse(list.contains("b"));
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    public void copies_canBeChangedWithoutTouchingTheList() {
+        SortedActivityList list = new SortedActivityList();
+        Activity sequence = activity("a", "08:00");
+        sequence.addStep(new SequenceStep("step_1", "Lavarse", "Con jabón", 1, "lavar", 1));
+        list.insert(sequence);
+
+        List<Activity> copies = list.copies();
+        Activity copy = copies.get(0);
+        assertSame(copy, copies.get(0));
+        copy.setCompleted(true);
+        copy.getSteps().get(0).setCompleted(true);
+        copy.addStep(new SequenceStep());
+
+        Activity stored = list.asList().get(0);
+        assertFalse(stored.isCompleted());
+        assertFalse(stored.getSteps().get(0).isCompleted());
+        assertEquals(1, stored.getSteps().size());
+        assertFalse(list.copies().get(0).isCompleted());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.mirutinavisual;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class UpcomingRoutineTest {
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    private static Activity activity(String id, String time) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setTime(time);
+        return activity;
+    }
+
+    private static Calendar at(int hour, int minute) {
+        Calendar now = new GregorianCalendar(TimeZone.getTimeZone("Europe/Madrid"));
+        now.clear();
+        now.set(2024, Calendar.MARCH, 12, hour, minute);
+        return now;
+    }
+
+    private static String ids(List<Activity> activities) {
+        StringBuilder ids = new StringBuilder();
+        for (Activity activity : activities) {
+            ids.append(activity.getId());
+        }
+        return ids.toString();
+    }
+
+    @Test
+    public void nextOccurrence_rollsOverToTomorrowOncePassed() {
+        Calendar now = at(2, 30);
+        assertEquals(5 * HOUR_MS + 30 * 60 * 1000, UpcomingRoutine.nextOccurrence("08:00", now) - now.getTimeInMillis());
+        assertEquals(23 * HOUR_MS + 30 * 60 * 1000, UpcomingRoutine.nextOccurrence("02:00", now) - now.getTimeInMillis());
+        assertEquals(0, UpcomingRoutine.nextOccurrence("2:30", now) - now.getTimeInMillis());
+        assertEquals(-1, UpcomingRoutine.nextOccurrence("25:00", now));
+        assertEquals(-1, UpcomingRoutine.nextOccurrence("mañana", now));
+        assertEquals(-1, UpcomingRoutine.nextOccurrence(null, now));
+    }
+
+    @Test
+    public void within_keepsOnlyTimedActivitiesInWindowSoonestFirst() {
+        List<Activity> activities = Arrays.asList(
+                activity("c", "20:00"),
+                activity("a", "08:00"),
+                activity("x", ""),
+                activity("b", "12:15"),
+                activity("z", "01:00"));
+
+        // A las 02:30 con 12 horas por delante: hasta las 14:30
+        assertEquals("ab", ids(UpcomingRoutine.within(activities, at(2, 30), 12 * HOUR_MS)));
+        // Con un día entero entra toda la rutina con hora, en el orden en que va a sonar
+        assertEquals("abcz", ids(UpcomingRoutine.within(activities, at(2, 30), 24 * HOUR_MS)));
+    }
+}